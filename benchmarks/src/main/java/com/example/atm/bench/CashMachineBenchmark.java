@@ -0,0 +1,66 @@
+package com.example.atm.bench;
+
+import com.example.atm.adapters.MinNotesStrategy;
+import com.example.atm.adapters.SmallestDenomDivisibilityPolicy;
+import com.example.atm.domain.Money;
+import com.example.atm.service.CashMachine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Withdraw/deposit throughput on one shared machine. Each invocation withdraws and deposits
+ * the same notes back, so stock stays level. Run at several thread counts with {@code -t 1,2,4,8}
+ * or the {@code @Threads} variants below.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+public class CashMachineBenchmark {
+
+    @Param({"InMemory", "Array", "CopyOnWrite", "PackedAtomic"})
+    public String inventory;
+
+    private CashMachine atm;
+    private final Money deposit = new Money(Map.of(50, 2, 20, 1, 10, 1));
+
+    @Setup
+    public void setUp() {
+        var inv = Fixtures.inventory(inventory, Map.of(50, 100_000, 20, 100_000, 10, 100_000));
+        atm = new CashMachine(inv, new MinNotesStrategy(), new SmallestDenomDivisibilityPolicy(inv.denominations()));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Money withdrawDeposit1() {
+        return cycle();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Money withdrawDeposit4() {
+        return cycle();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Money withdrawDepositMax() {
+        return cycle();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int balanceRead4() {
+        return atm.balance();
+    }
+
+    private Money cycle() {
+        Money m = atm.withdraw(130);
+        atm.deposit(deposit);
+        return m;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.atm.bench;
+
+import com.example.atm.adapters.ArrayInventory;
+import com.example.atm.adapters.CopyOnWriteInventory;
+import com.example.atm.adapters.InMemoryInventory;
+import com.example.atm.adapters.PackedAtomicInventory;
+import com.example.atm.ports.Inventory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** Shared inventories and denomination sets for the benchmarks. */
+final class Fixtures {
+    private Fixtures() {}
+
+    /** Creates an inventory by benchmark parameter name. */
+    static Inventory inventory(String kind, Map<Integer, Integer> initial) {
+        switch (kind) {
+            case "InMemory": return new InMemoryInventory(initial);
+            case "Array": return new ArrayInventory(initial);
+            case "CopyOnWrite": return new CopyOnWriteInventory(initial);
+            case "PackedAtomic": return new PackedAtomicInventory(initial);
+            default: throw new IllegalArgumentException("Unknown inventory: " + kind);
+        }
+    }
+
+    /** {@code size} ×10 denominations (10, 20, 50, 100, 200, 500, 1000, ...) with {@code count} notes each. */
+    static Map<Integer, Integer> denominations(int size, int count) {
+        int[] steps = {1, 2, 5};
+        Map<Integer, Integer> result = new LinkedHashMap<>();
+        int scale = 10;
+        for (int i = 0; i < size; i++) {
+            result.put(steps[i % 3] * scale, count);
+            if (i % 3 == 2) scale *= 10;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.atm.bench;
+
+import com.example.atm.adapters.InMemoryInventory;
+import com.example.atm.adapters.MinNotesStrategy;
+import com.example.atm.adapters.SmallestDenomDivisibilityPolicy;
+import com.example.atm.fleet.Fleet;
+import com.example.atm.service.CashMachine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/** Latency of fleet-wide aggregate queries. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+public class FleetBenchmark {
+
+    @Param({"1000", "10000"})
+    public int machines;
+
+    private Fleet fleet;
+
+    @Setup
+    public void setUp() {
+        fleet = new Fleet();
+        for (int i = 0; i < machines; i++) {
+            var inventory = new InMemoryInventory(Map.of(100, i % 7, 50, 10, 20, 20, 10, 30));
+            var policy = new SmallestDenomDivisibilityPolicy(inventory.denominations());
+            fleet.register("atm-" + i, new CashMachine(inventory, new MinNotesStrategy(), policy));
+        }
+    }
+
+    @Benchmark
+    public long totalCash() {
+        return fleet.totalCash();
+    }
+
+    @Benchmark
+    public Map<Integer, Long> denominationTotals() {
+        return fleet.denominationTotals();
+    }
+
+    @Benchmark
+    public List<String> belowThreshold() {
+        return fleet.belowThreshold(1_500);
+    }
+}
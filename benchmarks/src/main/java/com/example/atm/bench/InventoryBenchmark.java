@@ -0,0 +1,61 @@
+package com.example.atm.bench;
+
+import com.example.atm.ports.Inventory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read/write contention: three reader threads ({@code balance()}/{@code snapshot()}) against one
+ * writer doing a remove followed by an add of the same notes.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+public class InventoryBenchmark {
+
+    @Param({"InMemory", "Array", "CopyOnWrite", "PackedAtomic"})
+    public String inventory;
+
+    private Inventory inv;
+    private final Map<Integer, Integer> notes = Map.of(50, 1, 20, 1);
+
+    @Setup
+    public void setUp() {
+        inv = Fixtures.inventory(inventory, Map.of(50, 1_000, 20, 1_000, 10, 1_000));
+    }
+
+    @Benchmark
+    @Group("balance")
+    @GroupThreads(3)
+    public int balanceReader() {
+        return inv.balance();
+    }
+
+    @Benchmark
+    @Group("balance")
+    @GroupThreads(1)
+    public void balanceWriter() {
+        inv.remove(notes);
+        inv.add(notes);
+    }
+
+    @Benchmark
+    @Group("snapshot")
+    @GroupThreads(3)
+    public Map<Integer, Integer> snapshotReader() {
+        return inv.snapshot();
+    }
+
+    @Benchmark
+    @Group("snapshot")
+    @GroupThreads(1)
+    public void snapshotWriter() {
+        inv.remove(notes);
+        inv.add(notes);
+    }
+}
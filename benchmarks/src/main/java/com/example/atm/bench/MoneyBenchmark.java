@@ -0,0 +1,39 @@
+package com.example.atm.bench;
+
+import com.example.atm.domain.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/** Construction and {@code total()} cost of {@link Money}. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+public class MoneyBenchmark {
+
+    @Param({"3", "6"})
+    public int denominations;
+
+    private Map<Integer, Integer> notes;
+    private Money money;
+
+    @Setup
+    public void setUp() {
+        notes = Fixtures.denominations(denominations, 3);
+        money = new Money(notes);
+    }
+
+    @Benchmark
+    public Money construct() {
+        return new Money(notes);
+    }
+
+    @Benchmark
+    public int total() {
+        return money.total();
+    }
+}
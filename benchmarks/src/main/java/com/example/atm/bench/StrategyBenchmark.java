@@ -0,0 +1,53 @@
+package com.example.atm.bench;
+
+import com.example.atm.adapters.BranchAndBoundStrategy;
+import com.example.atm.adapters.MinNotesStrategy;
+import com.example.atm.adapters.OptimalNotesStrategy;
+import com.example.atm.domain.DispensePlan;
+import com.example.atm.ports.DispenseStrategy;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/** Single-call planning latency across denomination-set sizes. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+public class StrategyBenchmark {
+
+    @Param({"3", "6", "12"})
+    public int denominations;
+
+    @Param({"130", "1880"})
+    public int amount;
+
+    private Map<Integer, Integer> inventory;
+    private final DispenseStrategy greedy = new MinNotesStrategy();
+    private final DispenseStrategy optimal = new OptimalNotesStrategy();
+    private final DispenseStrategy branchAndBound = new BranchAndBoundStrategy();
+
+    @Setup
+    public void setUp() {
+        inventory = Fixtures.denominations(denominations, 50);
+    }
+
+    @Benchmark
+    public Optional<DispensePlan> minNotes() {
+        return greedy.plan(amount, inventory);
+    }
+
+    @Benchmark
+    public Optional<DispensePlan> optimalNotes() {
+        return optimal.plan(amount, inventory);
+    }
+
+    @Benchmark
+    public Optional<DispensePlan> branchAndBound() {
+        return branchAndBound.plan(amount, inventory);
+    }
+}
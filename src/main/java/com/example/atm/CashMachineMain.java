@@ -5,38 +5,59 @@ package com.example.atm;
 import com.example.atm.adapters.MinNotesStrategy;
 import com.example.atm.adapters.InMemoryInventory;
 import com.example.atm.adapters.SmallestDenomDivisibilityPolicy;
+import com.example.atm.adapters.journal.Durability;
+import com.example.atm.adapters.journal.JournaledInventory;
+import com.example.atm.audit.AuditTrail;
+import com.example.atm.ports.Inventory;
+import com.example.atm.ports.OperationListener;
 import com.example.atm.service.CashMachine;
 import com.example.atm.domain.Money;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class CashMachineMain {
 
     private static final Logger logger = LoggerFactory.getLogger(CashMachineMain.class);
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        // Seed stock; with -Datm.dataDir=<dir> it only applies the first time the directory is used
         Map<Integer, Integer> initial = new LinkedHashMap<>();
         initial.put(50, 2);
         initial.put(20, 3);
         initial.put(10, 5);
 
 
-        var inventory = new InMemoryInventory(initial);
-        var strategy  = new MinNotesStrategy();
-        var policy    = new SmallestDenomDivisibilityPolicy(inventory.denominations());
+        Inventory inventory = openInventory(initial);
+        // -Datm.auditDir=<dir> records every operation to rolling audit files
+        String auditDir = System.getProperty("atm.auditDir");
+        // null resources are skipped on close, so the in-memory / no-audit setup needs no special case
+        try (Closeable stock = inventory instanceof Closeable c ? c : null;
+             AuditTrail audit = auditDir == null ? null : new AuditTrail(Path.of(auditDir))) {
+            var strategy  = new MinNotesStrategy();
+            var policy    = new SmallestDenomDivisibilityPolicy(inventory.denominations());
+            var atm = new CashMachine(inventory, strategy, policy, audit == null ? OperationListener.NONE : audit);
 
-        var atm = new CashMachine(inventory, strategy, policy);
+            logger.info("Initial balance: {}", atm.balance());
 
-        logger.info("Initial balance: " + atm.balance());
+            var withdrawn = atm.withdraw(130);
+            logger.info("Dispensed: {} ",withdrawn);
+            logger.info("Post-balance: {} ",atm.balance());
 
-        var withdrawn = atm.withdraw(130);
-        logger.info("Dispensed: {} ",withdrawn);
-        logger.info("Post-balance: {} ",atm.balance());
+            atm.deposit(new Money(Map.of(10, 2, 20, 1)));
+            logger.info("After deposit balance:{}  ",atm.balance());
+        }
+    }
 
-        atm.deposit(new Money(Map.of(10, 2, 20, 1)));
-        logger.info("After deposit balance:{}  ",atm.balance());
+    /** Persistent inventory when {@code atm.dataDir} is set (recovered from checkpoint + journal), in-memory otherwise. */
+    private static Inventory openInventory(Map<Integer, Integer> initial) {
+        String dataDir = System.getProperty("atm.dataDir");
+        if (dataDir == null) return new InMemoryInventory(initial);
+        return JournaledInventory.open(Path.of(dataDir), initial, Durability.GROUP);
     }
 }
 
@@ -0,0 +1,360 @@
+package com.example.atm.adapters;
+
+
+
+import com.example.atm.domain.DispensePlan;
+import com.example.atm.domain.InventoryChange;
+import com.example.atm.domain.InventoryState;
+import com.example.atm.domain.Money;
+import com.example.atm.errors.Errors;
+import com.example.atm.ports.DispenseStrategy;
+import com.example.atm.ports.Inventory;
+import com.example.atm.ports.Subscription;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Thread-safe inventory backed by primitive arrays.
+ *
+ * Each denomination owns a fixed slot in {@code counts}; {@code denoms} keeps the table sorted
+ * DESC so the slot order is the natural dispensing order. The balance is maintained on every
+ * write, so {@link #balance()}, {@link #count(int)} and the primitive {@code add}/{@code remove}
+ * overloads never allocate. The table only grows when a new denomination is deposited.
+ * {@link #dispense} plans against a read-only view of the arrays rather than a copy, so the
+ * withdrawal path allocates only what the strategy itself does.
+ */
+public final class ArrayInventory implements Inventory {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ChangePublisher events = new ChangePublisher(this::state);
+    private final Map<Integer, Integer> view = new CountsView(); // read under lock only
+    private int[] denoms;   // DESC, slot -> denomination
+    private int[] counts;   // slot -> count
+    private int[] pending;  // slot -> notes to remove, scratch for remove(int[], int[])
+    private int balance;
+    private volatile long version; // written under lock
+    private InventoryState published; // guarded by lock: new state for subscribers, if any
+
+    public ArrayInventory(Map<Integer, Integer> initial) {
+        Objects.requireNonNull(initial, "initial");
+        initial.forEach((d,c) -> {
+            if (d == null || d <= 0) throw new IllegalArgumentException("Invalid denom: " + d);
+            if (c == null || c < 0) throw new IllegalArgumentException("Negative count for denom: " + d);
+        });
+        this.denoms = initial.keySet().stream()
+                .mapToInt(Integer::intValue)
+                .sorted()
+                .toArray();
+        reverse(denoms);
+        this.counts = new int[denoms.length];
+        this.pending = new int[denoms.length];
+        for (int i = 0; i < denoms.length; i++) {
+            counts[i] = initial.get(denoms[i]);
+            balance = Math.addExact(balance, Math.multiplyExact(denoms[i], counts[i]));
+        }
+    }
+
+    @Override public Map<Integer, Integer> snapshot() {
+        lock.lock();
+        try {
+            return snapshotLocked();
+        } finally { lock.unlock(); }
+    }
+
+    @Override public void add(Map<Integer, Integer> deposit) {
+        Objects.requireNonNull(deposit, "deposit");
+        deposit.forEach((d,c) -> {
+            if (d == null || d <= 0) throw new IllegalArgumentException("Invalid denom: " + d);
+            if (c == null || c < 0) throw new IllegalArgumentException("Negative deposit for denom: " + d);
+        });
+        lock.lock();
+        try {
+            long total = balance;
+            for (Map.Entry<Integer, Integer> e : deposit.entrySet()) total += (long) e.getKey() * e.getValue();
+            if (total > Integer.MAX_VALUE) throw new ArithmeticException("Balance overflow");
+            deposit.forEach((d,c) -> { if (c > 0) addLocked(d, c); });
+            bumpLocked();
+        } finally {
+            unlockAndPublish();
+        }
+    }
+
+    /** Allocation-free deposit of {@code count} notes of a single denomination. */
+    public void add(int denomination, int count) {
+        if (denomination <= 0) throw new IllegalArgumentException("Invalid denom: " + denomination);
+        if (count < 0) throw new IllegalArgumentException("Negative deposit for denom: " + denomination);
+        if (count == 0) return;
+        lock.lock();
+        try {
+            addLocked(denomination, count);
+            bumpLocked();
+        } finally {
+            unlockAndPublish();
+        }
+    }
+
+    @Override public void remove(Map<Integer, Integer> take) {
+        Objects.requireNonNull(take, "take");
+        lock.lock();
+        try {
+            removeLocked(take);
+        } finally {
+            unlockAndPublish();
+        }
+    }
+
+    @Override public Optional<DispensePlan> dispense(int amount, DispenseStrategy strategy) {
+        Objects.requireNonNull(strategy, "strategy");
+        lock.lock();
+        try {
+            if (balance < amount) {
+                throw new Errors.InsufficientFundsException("ATM balance is insufficient");
+            }
+            var planOpt = strategy.plan(amount, view);
+            planOpt.ifPresent(plan -> removeLocked(plan.notes()));
+            return planOpt;
+        } finally {
+            unlockAndPublish();
+        }
+    }
+
+    @Override public <T> T transact(Function<Map<Integer, Integer>, T> mutation) {
+        Objects.requireNonNull(mutation, "mutation");
+        lock.lock();
+        try {
+            Map<Integer, Integer> working = snapshotLocked();
+            T result = mutation.apply(working);
+            long total = 0;
+            for (Map.Entry<Integer, Integer> e : working.entrySet()) {
+                Integer d = e.getKey(), c = e.getValue();
+                if (d == null || d <= 0) throw new IllegalArgumentException("Invalid denom: " + d);
+                if (c == null || c < 0) throw new IllegalArgumentException("Negative count for denom: " + d);
+                total += (long) d * c;
+            }
+            if (total > Integer.MAX_VALUE) throw new ArithmeticException("Balance overflow");
+            Arrays.fill(counts, 0);
+            balance = 0;
+            working.forEach((d,c) -> { if (c > 0) addLocked(d, c); });
+            bumpLocked();
+            return result;
+        } finally {
+            unlockAndPublish();
+        }
+    }
+
+    /**
+     * Allocation-free, all-or-nothing removal: {@code counts[i]} notes of {@code denominations[i]}.
+     * A denomination listed more than once has its counts summed. Throws IllegalStateException
+     * if any denomination is short.
+     */
+    public void remove(int[] denominations, int[] counts) {
+        Objects.requireNonNull(denominations, "denominations");
+        Objects.requireNonNull(counts, "counts");
+        if (denominations.length != counts.length) throw new IllegalArgumentException("Length mismatch");
+        for (int c : counts) if (c < 0) throw new IllegalArgumentException("Negative remove");
+        lock.lock();
+        try {
+            Arrays.fill(pending, 0);
+            for (int i = 0; i < denominations.length; i++) {
+                if (counts[i] == 0) continue;
+                int slot = slotOf(denominations[i]);
+                if (slot < 0 || counts[i] > this.counts[slot] - pending[slot]) {
+                    throw new IllegalStateException("Not enough " + denominations[i] + " notes");
+                }
+                pending[slot] += counts[i];
+            }
+            for (int slot = 0; slot < pending.length; slot++) {
+                if (pending[slot] > 0) removeLocked(slot, pending[slot]);
+            }
+            bumpLocked();
+        } finally {
+            unlockAndPublish();
+        }
+    }
+
+    @Override public Set<Integer> denominations() {
+        lock.lock();
+        try {
+            Set<Integer> result = new LinkedHashSet<>();
+            for (int i = 0; i < denoms.length; i++) {
+                if (counts[i] > 0) result.add(denoms[i]);
+            }
+            return result;
+        } finally { lock.unlock(); }
+    }
+
+    @Override public int balance() {
+        lock.lock();
+        try {
+            return balance;
+        } finally { lock.unlock(); }
+    }
+
+    @Override public Subscription subscribe(Consumer<InventoryChange> subscriber) {
+        return events.subscribe(subscriber);
+    }
+
+    @Override public long version() {
+        return version;
+    }
+
+    @Override public InventoryState state() {
+        lock.lock();
+        try {
+            return InventoryState.of(version, snapshotLocked());
+        } finally { lock.unlock(); }
+    }
+
+    /** Notes held for a denomination (0 if unknown). */
+    @Override public int count(int denomination) {
+        lock.lock();
+        try {
+            return countLocked(denomination);
+        } finally { lock.unlock(); }
+    }
+
+    /** Bumps the version and, if anyone is subscribed, captures the new state to publish. */
+    private void bumpLocked() {
+        version++;
+        if (events.active()) published = InventoryState.of(version, snapshotLocked());
+    }
+
+    /** Unlocks, then hands subscribers the state captured under the lock. */
+    private void unlockAndPublish() {
+        InventoryState changed = published;
+        published = null;
+        lock.unlock();
+        events.changed(changed);
+    }
+
+    private Map<Integer, Integer> snapshotLocked() {
+        Map<Integer, Integer> copy = new HashMap<>();
+        for (int i = 0; i < denoms.length; i++) {
+            if (counts[i] > 0) copy.put(denoms[i], counts[i]);
+        }
+        return copy;
+    }
+
+    private void removeLocked(Map<Integer, Integer> take) {
+        // Pre-check
+        for (Map.Entry<Integer,Integer> e : take.entrySet()) {
+            if (e.getValue() < 0) throw new IllegalArgumentException("Negative remove");
+            if (e.getValue() > countLocked(e.getKey())) throw new IllegalStateException("Not enough " + e.getKey() + " notes");
+        }
+        // Apply
+        take.forEach((d,c) -> { if (c > 0) removeLocked(slotOf(d), c); });
+        bumpLocked();
+    }
+
+    /** Removes the notes of a plan; a Money never repeats a denomination. */
+    private void removeLocked(Money notes) {
+        for (int i = 0; i < notes.size(); i++) {
+            if (notes.countAt(i) > countLocked(notes.denominationAt(i))) {
+                throw new IllegalStateException("Not enough " + notes.denominationAt(i) + " notes");
+            }
+        }
+        for (int i = 0; i < notes.size(); i++) {
+            if (notes.countAt(i) > 0) removeLocked(slotOf(notes.denominationAt(i)), notes.countAt(i));
+        }
+        bumpLocked();
+    }
+
+    private int countLocked(int denomination) {
+        int slot = slotOf(denomination);
+        return slot < 0 ? 0 : counts[slot];
+    }
+
+    private void addLocked(int denomination, int count) {
+        int slot = slotOf(denomination);
+        if (slot < 0) slot = insertSlot(denomination);
+        int newBalance = Math.addExact(balance, Math.multiplyExact(denomination, count));
+        counts[slot] = Math.addExact(counts[slot], count);
+        balance = newBalance;
+    }
+
+    private void removeLocked(int slot, int count) {
+        counts[slot] -= count;
+        balance -= denoms[slot] * count;
+    }
+
+    /** Linear scan: denomination tables are tiny and the array is cache-resident. */
+    private int slotOf(int denomination) {
+        for (int i = 0; i < denoms.length; i++) {
+            if (denoms[i] == denomination) return i;
+        }
+        return -1;
+    }
+
+    /** Rare path: a deposit introduced a denomination the table has not seen yet. */
+    private int insertSlot(int denomination) {
+        int pos = 0;
+        while (pos < denoms.length && denoms[pos] > denomination) pos++;
+        int[] d = new int[denoms.length + 1];
+        int[] c = new int[counts.length + 1];
+        System.arraycopy(denoms, 0, d, 0, pos);
+        System.arraycopy(counts, 0, c, 0, pos);
+        d[pos] = denomination;
+        System.arraycopy(denoms, pos, d, pos + 1, denoms.length - pos);
+        System.arraycopy(counts, pos, c, pos + 1, counts.length - pos);
+        denoms = d;
+        counts = c;
+        pending = new int[c.length];
+        return pos;
+    }
+
+    /**
+     * Live, read-only map of the non-zero slots, handed to strategies while the lock is held.
+     * Lookups scan the arrays directly; only iteration allocates.
+     */
+    private final class CountsView extends AbstractMap<Integer, Integer> {
+        @Override public Integer get(Object key) {
+            if (!(key instanceof Integer)) return null;
+            int c = countLocked((Integer) key);
+            return c > 0 ? c : null;
+        }
+
+        @Override public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override public int size() {
+            int n = 0;
+            for (int c : counts) if (c > 0) n++;
+            return n;
+        }
+
+        @Override public Set<Entry<Integer, Integer>> entrySet() {
+            return new AbstractSet<>() {
+                @Override public int size() { return CountsView.this.size(); }
+
+                @Override public Iterator<Entry<Integer, Integer>> iterator() {
+                    return new Iterator<>() {
+                        private int next = advance(0);
+
+                        private int advance(int from) {
+                            while (from < counts.length && counts[from] == 0) from++;
+                            return from;
+                        }
+
+                        @Override public boolean hasNext() { return next < counts.length; }
+
+                        @Override public Entry<Integer, Integer> next() {
+                            if (!hasNext()) throw new NoSuchElementException();
+                            var e = new SimpleImmutableEntry<>(denoms[next], counts[next]);
+                            next = advance(next + 1);
+                            return e;
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+    private static void reverse(int[] a) {
+        for (int i = 0, j = a.length - 1; i < j; i++, j--) {
+            int t = a[i]; a[i] = a[j]; a[j] = t;
+        }
+    }
+}
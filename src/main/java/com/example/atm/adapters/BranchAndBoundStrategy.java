@@ -0,0 +1,243 @@
+package com.example.atm.adapters;
+
+import com.example.atm.domain.DispensePlan;
+import com.example.atm.domain.Money;
+import com.example.atm.ports.DispenseStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Minimum-notes strategy for recyclers with many denominations and large counts, where
+ * {@link OptimalNotesStrategy}'s DP over the amount gets too big.
+ *
+ * Depth-first search over denominations, largest first, trying the most notes first. A branch
+ * is cut when its notes plus {@code ceil(remaining / next largest denomination)} cannot beat the
+ * best plan so far, when the remaining denominations cannot hold the rest of the amount, or
+ * when the rest is not a multiple of their gcd. The bound only grows as a level takes fewer
+ * notes, so a cut ends that level's loop. Greedy seeds the best plan and is returned at once
+ * if it meets the bound {@code ceil(amount / largest)}.
+ *
+ * The choices for the largest denomination are split into fork-join tasks that share the best
+ * plan. When the time budget runs out the search stops and returns the best plan found, which
+ * may not be optimal. An empty result after a timeout means no plan was found in time.
+ *
+ * {@link InMemoryInventory#dispense} calls {@link #plan} while holding the inventory lock, so a
+ * search that uses the whole budget ({@link #DEFAULT_BUDGET} by default) holds that lock as long
+ * on every withdrawal. Keep the budget small behind a locking inventory.
+ */
+public final class BranchAndBoundStrategy implements DispenseStrategy {
+    private static final Logger logger = LoggerFactory.getLogger(BranchAndBoundStrategy.class);
+
+    public static final Duration DEFAULT_BUDGET = Duration.ofMillis(20);
+    private static final int CHECK_INTERVAL = 4096; // nodes between deadline checks, power of two
+    private static final int TASKS_PER_THREAD = 4;
+
+    private final long budgetNanos;
+    private final ForkJoinPool pool;
+
+    public BranchAndBoundStrategy() {
+        this(DEFAULT_BUDGET);
+    }
+
+    public BranchAndBoundStrategy(Duration budget) {
+        this(budget, ForkJoinPool.commonPool());
+    }
+
+    public BranchAndBoundStrategy(Duration budget, ForkJoinPool pool) {
+        Objects.requireNonNull(budget, "budget");
+        if (budget.isNegative() || budget.isZero()) throw new IllegalArgumentException("budget must be positive");
+        this.budgetNanos = budget.toNanos();
+        this.pool = Objects.requireNonNull(pool, "pool");
+    }
+
+    @Override
+    public Optional<DispensePlan> plan(int amount, Map<Integer, Integer> inventory) {
+        if (amount <= 0) return Optional.empty();
+        Search search = Search.of(amount, inventory, System.nanoTime() + budgetNanos);
+        if (search == null) return Optional.empty();
+
+        Incumbent greedy = search.greedy();
+        if (greedy != null) {
+            search.best.set(greedy);
+            if (greedy.notes == ceilDiv(amount, search.denoms[0])) return Optional.of(search.toPlan(greedy));
+        }
+        int top = Math.min(search.stock[0], amount / search.denoms[0]);
+        int grain = Math.max(1, (top + 1) / (pool.getParallelism() * TASKS_PER_THREAD));
+        pool.invoke(new Branches(search, 0, top, grain));
+        if (search.expired) logger.debug("Planning {} hit the time budget; returning best found", amount);
+
+        Incumbent best = search.best.get();
+        return best == null ? Optional.empty() : Optional.of(search.toPlan(best));
+    }
+
+    private static int ceilDiv(long a, int b) { return (int) ((a + b - 1) / b); }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) { int t = a % b; a = b; b = t; }
+        return a;
+    }
+
+    /** A complete plan: counts per denomination slot. */
+    private static final class Incumbent {
+        final int notes;
+        final int[] counts;
+
+        Incumbent(int notes, int[] counts) {
+            this.notes = notes;
+            this.counts = counts;
+        }
+    }
+
+    /** One planning call: the problem, shared best plan and deadline. */
+    private static final class Search {
+        final int amount;
+        final int[] denoms;       // DESC, usable only
+        final int[] stock;        // capped at amount / d
+        final long[] capacity;    // value of slots i.. combined
+        final int[] gcd;          // gcd of slots i..
+        final long deadline;
+        final AtomicReference<Incumbent> best = new AtomicReference<>();
+        volatile boolean expired;
+
+        private Search(int amount, int[] denoms, int[] stock, long deadline) {
+            this.amount = amount;
+            this.denoms = denoms;
+            this.stock = stock;
+            this.deadline = deadline;
+            int k = denoms.length;
+            this.capacity = new long[k + 1];
+            this.gcd = new int[k + 1];
+            for (int i = k - 1; i >= 0; i--) {
+                capacity[i] = capacity[i + 1] + (long) denoms[i] * stock[i];
+                gcd[i] = gcd(gcd[i + 1], denoms[i]);
+            }
+        }
+
+        /** Null if no denomination can contribute or the amount is out of reach. */
+        static Search of(int amount, Map<Integer, Integer> inventory, long deadline) {
+            TreeMap<Integer, Integer> usable = new TreeMap<>(Comparator.reverseOrder());
+            inventory.forEach((d,c) -> {
+                if (c != null && c > 0 && d != null && d > 0 && d <= amount) usable.put(d, Math.min(c, amount / d));
+            });
+            if (usable.isEmpty()) return null;
+            int[] denoms = new int[usable.size()];
+            int[] stock = new int[usable.size()];
+            int i = 0;
+            for (Map.Entry<Integer, Integer> e : usable.entrySet()) {
+                denoms[i] = e.getKey();
+                stock[i++] = e.getValue();
+            }
+            Search search = new Search(amount, denoms, stock, deadline);
+            if (search.capacity[0] < amount || amount % search.gcd[0] != 0) return null;
+            return search;
+        }
+
+        Incumbent greedy() {
+            int[] counts = new int[denoms.length];
+            int remaining = amount, notes = 0;
+            for (int i = 0; i < denoms.length; i++) {
+                counts[i] = Math.min(stock[i], remaining / denoms[i]);
+                remaining -= counts[i] * denoms[i];
+                notes += counts[i];
+            }
+            return remaining == 0 ? new Incumbent(notes, counts) : null;
+        }
+
+        int bestNotes() {
+            Incumbent b = best.get();
+            return b == null ? Integer.MAX_VALUE : b.notes;
+        }
+
+        void offer(int notes, int[] counts) {
+            Incumbent candidate = null;
+            for (Incumbent current = best.get(); current == null || notes < current.notes; current = best.get()) {
+                if (candidate == null) candidate = new Incumbent(notes, counts.clone());
+                if (best.compareAndSet(current, candidate)) return;
+            }
+        }
+
+        boolean checkDeadline() {
+            if (!expired && System.nanoTime() - deadline >= 0) expired = true;
+            return expired;
+        }
+
+        DispensePlan toPlan(Incumbent incumbent) {
+            Map<Integer, Integer> notes = new LinkedHashMap<>();
+            for (int i = 0; i < denoms.length; i++) {
+                if (incumbent.counts[i] > 0) notes.put(denoms[i], incumbent.counts[i]);
+            }
+            return new DispensePlan(new Money(notes));
+        }
+    }
+
+    /** Explores counts {@code hi..lo} of the largest denomination, splitting the range while it exceeds {@code grain}. */
+    private static final class Branches extends RecursiveAction {
+        private final Search search;
+        private final int lo, hi, grain;
+
+        Branches(Search search, int lo, int hi, int grain) {
+            this.search = search;
+            this.lo = lo;
+            this.hi = hi;
+            this.grain = grain;
+        }
+
+        @Override protected void compute() {
+            if (hi - lo + 1 > grain) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Branches(search, mid + 1, hi, grain), new Branches(search, lo, mid, grain));
+                return;
+            }
+            new Walker(search).level(0, hi, lo, search.amount, 0);
+        }
+    }
+
+    /** Sequential depth-first search; one per task. */
+    private static final class Walker {
+        private final Search s;
+        private final int[] counts;
+        private int bound;   // best plan's notes, refreshed every CHECK_INTERVAL nodes
+        private long nodes;
+
+        Walker(Search search) {
+            this.s = search;
+            this.counts = new int[search.denoms.length];
+            this.bound = search.bestNotes();
+        }
+
+        /** Tries {@code max..min} notes of slot {@code i}; false once the deadline has passed. */
+        boolean level(int i, int max, int min, int remaining, int notes) {
+            int d = s.denoms[i];
+            boolean last = i + 1 == s.denoms.length;
+            for (int t = Math.min(max, remaining / d); t >= min; t--) {
+                if ((++nodes & (CHECK_INTERVAL - 1)) == 0) {
+                    if (s.checkDeadline()) return false;
+                    bound = s.bestNotes();
+                }
+                int rest = remaining - t * d;
+                if (rest == 0) {
+                    if (notes + t < bound) {
+                        counts[i] = t;
+                        s.offer(notes + t, counts);
+                        bound = s.bestNotes();
+                    }
+                    continue;
+                }
+                // rest grows and the bound only rises as t falls, so these cuts end the loop
+                if (last || rest > s.capacity[i + 1]) break;
+                if (notes + t + ceilDiv(rest, s.denoms[i + 1]) >= bound) break;
+                if (rest % s.gcd[i + 1] != 0) continue;
+                counts[i] = t;
+                if (!level(i + 1, s.stock[i + 1], 0, rest, notes + t)) return false;
+            }
+            counts[i] = 0;
+            return true;
+        }
+    }
+}
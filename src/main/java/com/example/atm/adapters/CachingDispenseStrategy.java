@@ -0,0 +1,110 @@
+package com.example.atm.adapters;
+
+
+
+import com.example.atm.domain.DispensePlan;
+import com.example.atm.ports.DispenseStrategy;
+import com.example.atm.ports.Inventory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Memoizes another strategy's plans per (amount, inventory version) in a bounded LRU.
+ *
+ * Entries are stamped with the version they were computed at; any add/remove bumps the
+ * version, which invalidates every entry at once without touching the cache, e.g.
+ * {@code new CachingDispenseStrategy(new OptimalNotesStrategy(), inventory::version, 64)}.
+ * Entries also carry an O(k) fingerprint of the counts they were planned against, so a
+ * caller planning against changing counts at one version (a batch working copy, or a
+ * non-atomic inventory) never gets a plan for other counts. Negative results are cached too.
+ * Stale entries are simply overwritten when their amount is next planned.
+ */
+public final class CachingDispenseStrategy implements DispenseStrategy {
+    private final DispenseStrategy delegate;
+    private final LongSupplier version;
+    private final LinkedHashMap<Integer, Entry> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /** Caches plans for {@code inventory}, keyed by its version. */
+    public CachingDispenseStrategy(DispenseStrategy delegate, Inventory inventory, int maxEntries) {
+        this(delegate, inventory::version, maxEntries);
+    }
+
+    public CachingDispenseStrategy(DispenseStrategy delegate, LongSupplier version, int maxEntries) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate");
+        this.version = Objects.requireNonNull(version, "version");
+        if (maxEntries <= 0) throw new IllegalArgumentException("maxEntries must be positive");
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public Optional<DispensePlan> plan(int amount, Map<Integer, Integer> inventory) {
+        long v = version.getAsLong();
+        long fp = fingerprint(inventory);
+        Entry e;
+        synchronized (cache) {
+            e = cache.get(amount);
+        }
+        if (e != null && e.version == v && e.fingerprint == fp) {
+            hits.increment();
+            return e.plan;
+        }
+        misses.increment();
+        Optional<DispensePlan> plan = delegate.plan(amount, inventory);
+        synchronized (cache) {
+            cache.put(amount, new Entry(v, fp, plan));
+        }
+        return plan;
+    }
+
+    /** Drops all entries, e.g. after an out-of-band inventory reload. */
+    public void invalidateAll() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    public long hits() { return hits.sum(); }
+    public long misses() { return misses.sum(); }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /** Order-independent mix of (denomination, count) pairs; zero counts do not contribute. */
+    private static long fingerprint(Map<Integer, Integer> inventory) {
+        long fp = 0;
+        for (Map.Entry<Integer, Integer> e : inventory.entrySet()) {
+            int c = e.getValue();
+            if (c == 0) continue;
+            long h = ((long) e.getKey() << 32) ^ (c & 0xFFFFFFFFL);
+            h *= 0x9E3779B97F4A7C15L;
+            fp += h ^ (h >>> 29);
+        }
+        return fp;
+    }
+
+    private static final class Entry {
+        final long version;
+        final long fingerprint;
+        final Optional<DispensePlan> plan;
+
+        Entry(long version, long fingerprint, Optional<DispensePlan> plan) {
+            this.version = version;
+            this.fingerprint = fingerprint;
+            this.plan = plan;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.atm.adapters;
+
+import com.example.atm.domain.InventoryChange;
+import com.example.atm.domain.InventoryState;
+import com.example.atm.ports.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Delivers {@link InventoryChange} events for an inventory, off the mutating thread.
+ *
+ * A locking inventory checks {@link #active()} inside its critical section and, only if someone
+ * is subscribed, captures its immutable {@link InventoryState} there; after unlocking it hands
+ * that state to {@link #changed(InventoryState)}. Each subscriber keeps the newest state offered
+ * and, if it is idle, is scheduled on the executor, which delivers the difference from the last
+ * state it saw. Delivery therefore never takes the inventory lock, and a slow subscriber gets one
+ * coalesced event per burst rather than one per mutation. Inventories whose reads are lock-free
+ * may call {@link #changed()} instead, which reads the state after the mutation.
+ * Each subscriber receives events one at a time, in version order.
+ *
+ * The shared executor has a fixed number of daemon threads, so a fleet of inventories cannot
+ * grow it without bound; each subscriber has at most one task queued.
+ */
+public final class ChangePublisher {
+    private static final Logger logger = LoggerFactory.getLogger(ChangePublisher.class);
+    private static final int SHARED_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final ExecutorService SHARED = sharedExecutor();
+
+    private final Supplier<InventoryState> source;
+    private final Executor executor;
+    private final CopyOnWriteArrayList<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    /** Delivers on a shared, fixed-size pool of daemon threads. */
+    public ChangePublisher(Supplier<InventoryState> source) {
+        this(source, SHARED);
+    }
+
+    public ChangePublisher(Supplier<InventoryState> source, Executor executor) {
+        this.source = Objects.requireNonNull(source, "source");
+        this.executor = Objects.requireNonNull(executor, "executor");
+    }
+
+    /** Events start from the state at subscription time. */
+    public Subscription subscribe(Consumer<InventoryChange> consumer) {
+        var subscriber = new Subscriber(Objects.requireNonNull(consumer, "consumer"), source.get());
+        subscribers.add(subscriber);
+        subscriber.offer(source.get()); // covers a mutation that raced with registration
+        return subscriber;
+    }
+
+    /** True if anyone is subscribed; mutators capture their state only then. */
+    public boolean active() {
+        return !subscribers.isEmpty();
+    }
+
+    /**
+     * Called by the inventory after a mutation, outside its lock, with the state captured in
+     * its critical section; null (nothing captured, or nothing changed) publishes nothing. A
+     * subscriber that registered meanwhile reads the state itself when it subscribes.
+     */
+    public void changed(InventoryState state) {
+        if (state == null) return;
+        for (Subscriber s : subscribers) s.offer(state);
+    }
+
+    /** For lock-free inventories: reads the current state, only if anyone is subscribed. */
+    public void changed() {
+        if (active()) changed(source.get());
+    }
+
+    private final class Subscriber implements Runnable, Subscription {
+        private static final int IDLE = 0, SCHEDULED = 1, DIRTY = 2; // DIRTY: scheduled and signalled again
+
+        private final Consumer<InventoryChange> consumer;
+        private final AtomicInteger status = new AtomicInteger(IDLE);
+        private final AtomicReference<InventoryState> offered = new AtomicReference<>(); // newest by version
+        private InventoryState last; // delivery thread only
+        private volatile boolean closed;
+
+        Subscriber(Consumer<InventoryChange> consumer, InventoryState initial) {
+            this.consumer = consumer;
+            this.last = initial;
+        }
+
+        void offer(InventoryState state) {
+            offered.accumulateAndGet(state, (a, b) -> a == null || b.version() > a.version() ? b : a);
+            if (status.getAndSet(DIRTY) == IDLE) {
+                // Was idle: this call owns the scheduling; DIRTY also tells run() to look once more
+                executor.execute(this);
+            }
+        }
+
+        @Override public void run() {
+            do {
+                status.set(SCHEDULED);
+                if (closed) return;
+                InventoryState now = offered.getAndSet(null);
+                if (now != null && now.version() > last.version()) {
+                    InventoryChange change = new InventoryChange(last, now);
+                    last = now;
+                    try {
+                        consumer.accept(change);
+                    } catch (RuntimeException e) {
+                        logger.warn("Inventory change subscriber failed on {}", change, e);
+                    }
+                }
+            } while (!status.compareAndSet(SCHEDULED, IDLE));
+        }
+
+        @Override public void close() {
+            closed = true;
+            subscribers.remove(this);
+        }
+    }
+
+    private static ExecutorService sharedExecutor() {
+        var pool = new ThreadPoolExecutor(SHARED_THREADS, SHARED_THREADS, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "inventory-events");
+            t.setDaemon(true);
+            return t;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+}
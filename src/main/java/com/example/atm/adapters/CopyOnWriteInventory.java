@@ -0,0 +1,114 @@
+package com.example.atm.adapters;
+
+
+
+import com.example.atm.domain.DispensePlan;
+import com.example.atm.domain.InventoryChange;
+import com.example.atm.domain.InventoryState;
+import com.example.atm.errors.Errors;
+import com.example.atm.ports.DispenseStrategy;
+import com.example.atm.ports.Inventory;
+import com.example.atm.ports.Subscription;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Read-optimised inventory: writers serialise on a lock and publish a new immutable
+ * {@link InventoryState}; readers fetch the current state with a single volatile read and
+ * never block. Suited to read-heavy callers (dashboards, health checks) of
+ * {@code balance()} and {@code snapshot()}.
+ */
+public final class CopyOnWriteInventory implements Inventory {
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ChangePublisher events = new ChangePublisher(this::state);
+    private volatile InventoryState current;
+
+    public CopyOnWriteInventory(Map<Integer, Integer> initial) {
+        this.current = InventoryState.of(0, initial);
+    }
+
+    @Override public Map<Integer, Integer> snapshot() {
+        return new HashMap<>(current.asMap());
+    }
+
+    @Override public void add(Map<Integer, Integer> deposit) {
+        Objects.requireNonNull(deposit, "deposit");
+        writeLock.lock();
+        try {
+            current = current.plus(deposit);
+        } finally {
+            writeLock.unlock();
+            events.changed();
+        }
+    }
+
+    @Override public void remove(Map<Integer, Integer> take) {
+        Objects.requireNonNull(take, "take");
+        writeLock.lock();
+        try {
+            current = current.minus(take);
+        } finally {
+            writeLock.unlock();
+            events.changed();
+        }
+    }
+
+    @Override public Optional<DispensePlan> dispense(int amount, DispenseStrategy strategy) {
+        Objects.requireNonNull(strategy, "strategy");
+        writeLock.lock();
+        try {
+            InventoryState state = current;
+            if (state.balance() < amount) {
+                throw new Errors.InsufficientFundsException("ATM balance is insufficient");
+            }
+            var planOpt = strategy.plan(amount, state.asMap());
+            planOpt.ifPresent(plan -> current = state.minus(plan.notes().asMap()));
+            return planOpt;
+        } finally {
+            writeLock.unlock();
+            events.changed();
+        }
+    }
+
+    @Override public <T> T transact(Function<Map<Integer, Integer>, T> mutation) {
+        Objects.requireNonNull(mutation, "mutation");
+        writeLock.lock();
+        try {
+            InventoryState state = current;
+            Map<Integer, Integer> working = new HashMap<>(state.asMap());
+            T result = mutation.apply(working);
+            current = InventoryState.of(state.version() + 1, working);
+            return result;
+        } finally {
+            writeLock.unlock();
+            events.changed();
+        }
+    }
+
+    @Override public Set<Integer> denominations() {
+        return current.denominations();
+    }
+
+    @Override public int count(int denomination) {
+        return current.count(denomination);
+    }
+
+    @Override public int balance() {
+        return current.balance();
+    }
+
+    @Override public Subscription subscribe(Consumer<InventoryChange> subscriber) {
+        return events.subscribe(subscriber);
+    }
+
+    @Override public long version() {
+        return current.version();
+    }
+
+    @Override public InventoryState state() {
+        return current;
+    }
+}
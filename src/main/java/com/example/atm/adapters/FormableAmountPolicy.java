@@ -0,0 +1,37 @@
+package com.example.atm.adapters;
+
+import com.example.atm.domain.WithdrawResult;
+import com.example.atm.ports.AmountPolicy;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Rejects amounts the current stock cannot form before any planning happens, using a
+ * {@link FormableAmountsIndex}; runs {@code delegate} first for the usual amount rules.
+ * Amounts above the balance are passed through so the inventory still reports insufficient
+ * funds, and amounts above the index cap are left to the strategy.
+ */
+public final class FormableAmountPolicy implements AmountPolicy {
+    private final AmountPolicy delegate;
+    private final FormableAmountsIndex index;
+
+    public FormableAmountPolicy(AmountPolicy delegate, FormableAmountsIndex index) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate");
+        this.index = Objects.requireNonNull(index, "index");
+    }
+
+    @Override
+    public void validate(int amount) {
+        check(amount).ifPresent(failure -> { throw failure.toException(); });
+    }
+
+    @Override
+    public Optional<WithdrawResult.Failure> check(int amount) {
+        Optional<WithdrawResult.Failure> invalid = delegate.check(amount);
+        if (invalid.isPresent()) return invalid;
+        if (amount > index.maxAmount() || index.isFormable(amount)) return Optional.empty();
+        // isFormable is false above the balance too; let the inventory report that case
+        return amount > index.balance() ? Optional.empty() : Optional.of(WithdrawResult.unavailable(amount));
+    }
+}
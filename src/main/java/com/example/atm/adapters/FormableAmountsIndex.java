@@ -0,0 +1,186 @@
+package com.example.atm.adapters;
+
+import com.example.atm.domain.InventoryState;
+import com.example.atm.ports.Inventory;
+import com.example.atm.ports.Subscription;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalInt;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Which amounts up to {@code maxAmount} can be dispensed from an inventory's current stock.
+ *
+ * The index keeps, for every multiple of the denominations' gcd, the number of ways to form it
+ * (mod the prime 2^61 - 1): the coefficients of the product over denominations d with count c of
+ * (1 - x^((c+1)d)) / (1 - x^d). When a count changes from c to c', only that factor changes, so
+ * the index divides by (1 - x^((c+1)d)) and multiplies by (1 - x^((c'+1)d)) in two O(maxAmount / gcd)
+ * passes instead of rebuilding. An amount is formable iff its coefficient is non-zero; a false
+ * "unformable" needs a count divisible by the prime, which is vanishingly unlikely.
+ *
+ * Changes are applied from the inventory's change events, off the mutating thread, by diffing
+ * the event's state against the counts the index last saw. A query first compares versions and
+ * catches up itself only if an event is still in flight; after that {@link #isFormable} is O(1).
+ */
+public final class FormableAmountsIndex implements AutoCloseable {
+    private static final long P = (1L << 61) - 1;
+
+    private final Inventory inventory;
+    private final int maxAmount;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Integer, Integer> counts = new HashMap<>(); // counts the index reflects
+    private int unit;     // gcd of every denomination seen; 0 before the first one
+    private long[] ways;  // ways[i]: ways to form i * unit, mod P
+    private int balance;
+    private long version = -1;
+    private final Subscription subscription;
+
+    public FormableAmountsIndex(Inventory inventory, int maxAmount) {
+        this.inventory = Objects.requireNonNull(inventory, "inventory");
+        if (maxAmount <= 0) throw new IllegalArgumentException("maxAmount must be positive");
+        this.maxAmount = maxAmount;
+        this.ways = new long[] { 1 };
+        sync();
+        Subscription s;
+        try {
+            s = inventory.subscribe(change -> {
+                lock.lock();
+                try {
+                    applyLocked(change.state());
+                } finally { lock.unlock(); }
+            });
+        } catch (UnsupportedOperationException e) {
+            s = null; // queries catch up by themselves
+        }
+        this.subscription = s;
+    }
+
+    /** Largest amount the index answers for. */
+    public int maxAmount() { return maxAmount; }
+
+    /** True if the current stock can form {@code amount} exactly (0 ≤ amount ≤ maxAmount). */
+    public boolean isFormable(int amount) {
+        if (amount < 0 || amount > maxAmount) throw new IllegalArgumentException("Amount outside index range: " + amount);
+        lock.lock();
+        try {
+            syncLocked();
+            return formableLocked(amount);
+        } finally { lock.unlock(); }
+    }
+
+    /** Balance of the stock the index reflects. */
+    public int balance() {
+        lock.lock();
+        try {
+            syncLocked();
+            return balance;
+        } finally { lock.unlock(); }
+    }
+
+    /** Largest formable amount in (0, amount], if any. */
+    public OptionalInt nearestBelow(int amount) {
+        lock.lock();
+        try {
+            syncLocked();
+            if (unit == 0) return OptionalInt.empty();
+            for (long i = Math.min(Math.min(amount, maxAmount), balance) / unit; i > 0; i--) {
+                if (ways[(int) i] != 0) return OptionalInt.of((int) i * unit);
+            }
+            return OptionalInt.empty();
+        } finally { lock.unlock(); }
+    }
+
+    /** Smallest formable amount ≥ amount (and > 0) up to maxAmount, if any. */
+    public OptionalInt nearestAbove(int amount) {
+        lock.lock();
+        try {
+            syncLocked();
+            if (unit == 0) return OptionalInt.empty();
+            long last = Math.min(maxAmount, balance) / unit;
+            for (long i = Math.max(1, (Math.max(amount, 0) + (long) unit - 1) / unit); i <= last; i++) {
+                if (ways[(int) i] != 0) return OptionalInt.of((int) i * unit);
+            }
+            return OptionalInt.empty();
+        } finally { lock.unlock(); }
+    }
+
+    /** Applies any inventory changes since the last call; cheap when nothing changed. */
+    public void sync() {
+        lock.lock();
+        try {
+            syncLocked();
+        } finally { lock.unlock(); }
+    }
+
+    private boolean formableLocked(int amount) {
+        if (amount == 0) return true;
+        if (unit == 0 || amount % unit != 0 || amount > balance) return false;
+        return ways[amount / unit] != 0;
+    }
+
+    private void syncLocked() {
+        if (inventory.version() == version) return;
+        applyLocked(inventory.state());
+    }
+
+    private void applyLocked(InventoryState state) {
+        if (state.version() <= version) return; // an older event than what a query already applied
+        int g = unit;
+        for (int i = 0; i < state.size(); i++) g = gcd(g, state.denominationAt(i));
+        if (g != unit) {
+            // A denomination off the current grid: re-seed on the finer grid, then apply as usual
+            unit = g;
+            ways = new long[maxAmount / g + 1];
+            ways[0] = 1;
+            counts.replaceAll((d, c) -> 0);
+        }
+        for (Map.Entry<Integer, Integer> e : counts.entrySet()) {
+            int now = state.count(e.getKey());
+            if (now != e.getValue()) {
+                change(e.getKey() / unit, e.getValue(), now);
+                e.setValue(now);
+            }
+        }
+        for (int i = 0; i < state.size(); i++) {
+            int d = state.denominationAt(i);
+            if (!counts.containsKey(d)) {
+                change(d / unit, 0, state.countAt(i));
+                counts.put(d, state.countAt(i));
+            }
+        }
+        balance = state.balance();
+        version = state.version();
+    }
+
+    /** Stops following change events; queries still catch up on demand. */
+    @Override public void close() {
+        if (subscription != null) subscription.close();
+    }
+
+    /** Replaces the factor for a denomination of {@code d} units: count {@code from} → {@code to}. */
+    private void change(int d, int from, int to) {
+        long[] f = ways;
+        int n = f.length - 1;
+        long k = (long) (from + 1) * d;
+        for (int i = (int) Math.min(k, n + 1L); i <= n; i++) {   // divide by (1 - x^k)
+            long s = f[i] + f[i - (int) k];
+            f[i] = s >= P ? s - P : s;
+        }
+        k = (long) (to + 1) * d;
+        for (int i = n; i >= k; i--) {                          // multiply by (1 - x^k)
+            long s = f[i] - f[i - (int) k];
+            f[i] = s < 0 ? s + P : s;
+        }
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
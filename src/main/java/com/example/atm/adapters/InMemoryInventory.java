@@ -2,19 +2,38 @@ package com.example.atm.adapters;
 
 
 
+import com.example.atm.domain.DispensePlan;
+import com.example.atm.domain.InventoryChange;
+import com.example.atm.domain.InventoryState;
+import com.example.atm.errors.Errors;
+import com.example.atm.metrics.InventoryTimings;
+import com.example.atm.ports.DispenseStrategy;
 import com.example.atm.ports.Inventory;
+import com.example.atm.ports.Subscription;
 
 import java.util.*;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /** Thread-safe in-memory inventory */
 public final class InMemoryInventory implements Inventory {
     private final NavigableMap<Integer, Integer> store = new TreeMap<>(Comparator.reverseOrder());
     private final ReentrantLock lock = new ReentrantLock();
+    private final ChangePublisher events = new ChangePublisher(this::state);
+    private final InventoryTimings timings;
+    private volatile long version; // written under lock
+    private InventoryState published; // guarded by lock: new state for subscribers, if any
 
     public InMemoryInventory(Map<Integer, Integer> initial) {
+        this(initial, InventoryTimings.NONE);
+    }
+
+    /** {@code timings} receives lock wait/hold and remove durations. */
+    public InMemoryInventory(Map<Integer, Integer> initial, InventoryTimings timings) {
         Objects.requireNonNull(initial, "initial");
+        this.timings = Objects.requireNonNull(timings, "timings");
         initial.forEach((d,c) -> {
             if (d == null || d <= 0) throw new IllegalArgumentException("Invalid denom: " + d);
             if (c == null || c < 0) throw new IllegalArgumentException("Negative count for denom: " + d);
@@ -26,55 +45,169 @@ public final class InMemoryInventory implements Inventory {
     }
 
     @Override public Map<Integer, Integer> snapshot() {
-        lock.lock();
+        long acquired = acquire();
         try {
             return store.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-        } finally { lock.unlock(); }
+        } finally { release(acquired); }
     }
 
     @Override public void add(Map<Integer, Integer> deposit) {
         Objects.requireNonNull(deposit, "deposit");
-        lock.lock();
+        deposit.forEach((d,c) -> {
+            if (d == null || d <= 0) throw new IllegalArgumentException("Invalid denom: " + d);
+            if (c == null || c < 0) throw new IllegalArgumentException("Negative deposit for denom: " + d);
+        });
+        long acquired = acquire();
         try {
-            deposit.forEach((d,c) -> {
-                if (c == null || c < 0) throw new IllegalArgumentException("Negative deposit for denom: " + d);
-                if (c == 0) return;
-                store.merge(d, c, Integer::sum);
-            });
-        } finally { lock.unlock(); }
+            long total = balanceLocked();
+            for (Map.Entry<Integer, Integer> e : deposit.entrySet()) total += (long) e.getKey() * e.getValue();
+            if (total > Integer.MAX_VALUE) throw new ArithmeticException("Balance overflow");
+            deposit.forEach((d,c) -> { if (c > 0) store.merge(d, c, Integer::sum); });
+            bumpLocked();
+        } finally {
+            releaseAndPublish(acquired);
+        }
     }
 
     @Override public void remove(Map<Integer, Integer> take) {
         Objects.requireNonNull(take, "take");
-        lock.lock();
+        long start = System.nanoTime();
+        long acquired = acquire();
         try {
-            // Pre-check
-            for (Map.Entry<Integer,Integer> e : take.entrySet()) {
-                int have = store.getOrDefault(e.getKey(), 0);
-                if (e.getValue() < 0) throw new IllegalArgumentException("Negative remove");
-                if (e.getValue() > have) throw new IllegalStateException("Not enough " + e.getKey() + " notes");
+            removeLocked(take);
+        } finally {
+            releaseAndPublish(acquired);
+            timings.removed(System.nanoTime() - start);
+        }
+    }
+
+    @Override public Optional<DispensePlan> dispense(int amount, DispenseStrategy strategy) {
+        Objects.requireNonNull(strategy, "strategy");
+        long acquired = acquire();
+        try {
+            if (balanceLocked() < amount) {
+                throw new Errors.InsufficientFundsException("ATM balance is insufficient");
+            }
+            // The strategy only reads, so it can plan against the live store without a copy
+            var planOpt = strategy.plan(amount, Collections.unmodifiableMap(store));
+            if (planOpt.isPresent()) {
+                long start = System.nanoTime();
+                removeLocked(planOpt.get().notes().asMap());
+                timings.removed(System.nanoTime() - start);
             }
-            // Apply
-            take.forEach((d,c) -> {
-                if (c == 0) return;
-                int remaining = store.get(d) - c;
-                if (remaining == 0) store.remove(d); else store.put(d, remaining);
+            return planOpt;
+        } finally {
+            releaseAndPublish(acquired);
+        }
+    }
+
+    @Override public <T> T transact(Function<Map<Integer, Integer>, T> mutation) {
+        Objects.requireNonNull(mutation, "mutation");
+        long acquired = acquire();
+        try {
+            Map<Integer, Integer> working = new HashMap<>(store);
+            T result = mutation.apply(working);
+            working.forEach((d,c) -> {
+                if (d == null || d <= 0) throw new IllegalArgumentException("Invalid denom: " + d);
+                if (c == null || c < 0) throw new IllegalArgumentException("Negative count for denom: " + d);
             });
-        } finally { lock.unlock(); }
+            store.clear();
+            working.forEach((d,c) -> { if (c > 0) store.put(d, c); });
+            bumpLocked();
+            return result;
+        } finally {
+            releaseAndPublish(acquired);
+        }
+    }
+
+    private void removeLocked(Map<Integer, Integer> take) {
+        // Pre-check
+        for (Map.Entry<Integer,Integer> e : take.entrySet()) {
+            int have = store.getOrDefault(e.getKey(), 0);
+            if (e.getValue() < 0) throw new IllegalArgumentException("Negative remove");
+            if (e.getValue() > have) throw new IllegalStateException("Not enough " + e.getKey() + " notes");
+        }
+        // Apply
+        take.forEach((d,c) -> {
+            if (c == 0) return;
+            int remaining = store.get(d) - c;
+            if (remaining == 0) store.remove(d); else store.put(d, remaining);
+        });
+        bumpLocked();
     }
 
     @Override public Set<Integer> denominations() {
-        lock.lock();
+        long acquired = acquire();
         try {
             return new LinkedHashSet<>(store.keySet());
-        } finally { lock.unlock(); }
+        } finally { release(acquired); }
+    }
+
+    @Override public int count(int denomination) {
+        long acquired = acquire();
+        try {
+            return store.getOrDefault(denomination, 0);
+        } finally { release(acquired); }
     }
 
     @Override public int balance() {
-        lock.lock();
+        long acquired = acquire();
         try {
-            return store.entrySet().stream().mapToInt(e -> e.getKey() * e.getValue()).sum();
-        } finally { lock.unlock(); }
+            return balanceLocked();
+        } finally { release(acquired); }
+    }
+
+    @Override public long version() {
+        return version;
+    }
+
+    @Override public Subscription subscribe(Consumer<InventoryChange> subscriber) {
+        return events.subscribe(subscriber);
+    }
+
+    @Override public InventoryState state() {
+        long acquired = acquire();
+        try {
+            return InventoryState.of(version, store);
+        } finally { release(acquired); }
+    }
+
+    /** Bumps the version and, if anyone is subscribed, captures the new state to publish. */
+    private void bumpLocked() {
+        version++;
+        if (events.active()) published = InventoryState.of(version, store);
+    }
+
+    /** Unlocks, then hands subscribers the state captured under the lock. */
+    private void releaseAndPublish(long acquired) {
+        InventoryState changed = published;
+        published = null;
+        release(acquired);
+        events.changed(changed);
+    }
+
+    /** Locks and returns the acquisition time, recording the wait when timings are enabled. */
+    private long acquire() {
+        if (timings == InventoryTimings.NONE) {
+            lock.lock();
+            return 0;
+        }
+        long start = System.nanoTime();
+        lock.lock();
+        long acquired = System.nanoTime();
+        timings.lockWait(acquired - start);
+        return acquired;
+    }
+
+    private void release(long acquired) {
+        if (timings != InventoryTimings.NONE) timings.lockHold(System.nanoTime() - acquired);
+        lock.unlock();
+    }
+
+    private int balanceLocked() {
+        int total = 0;
+        for (Map.Entry<Integer, Integer> e : store.entrySet()) total += e.getKey() * e.getValue();
+        return total;
     }
 }
 
@@ -0,0 +1,351 @@
+package com.example.atm.adapters;
+
+import com.example.atm.domain.DispensePlan;
+import com.example.atm.domain.InventoryChange;
+import com.example.atm.domain.InventoryState;
+import com.example.atm.errors.Errors;
+import com.example.atm.ports.DispenseStrategy;
+import com.example.atm.ports.Inventory;
+import com.example.atm.ports.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Inventory whose counts live in a memory-mapped file, so several processes on one host share
+ * a single authoritative inventory at memory speed. Every process opens the same file with
+ * {@link #open}; the first one creates it from {@code initial}, later ones ignore it.
+ *
+ * Layout (native byte order, 8-byte aligned):
+ * <pre>
+ *   0  magic:int  format:int  k:int  reserved:int
+ *   16 seq:long     (version &lt;&lt; 1) | active bank
+ *   24 lock:long    0, or the writer's pid &lt;&lt; 32 | ticket
+ *   32 owner:long   the lock value once its holder has recorded its start time, else 0
+ *   40 started:long the holder's process start time, epoch millis (0 if unknown)
+ *   48 denominations: k longs, largest first
+ *   then two banks of k counts each
+ * </pre>
+ * Writers take the lock word by CAS, write the new counts into the inactive bank and publish
+ * them with a release store of {@code seq} that bumps the version and flips the bank. Readers
+ * never write: they read {@code seq}, the active bank and {@code seq} again, and retry if a
+ * writer flipped the bank meanwhile, so {@code snapshot()}, {@code balance()} and
+ * {@code state()} are always consistent. A writer that dies mid-update never touched the active
+ * bank; the next writer finds its process gone and takes the lock over.
+ *
+ * A live process under the owner's pid is only taken for a new one (the pid was reused) if its
+ * start time differs from the one the owner recorded. Pids are compared as this process sees
+ * them, so every process sharing the file must run in one pid namespace: a separate container
+ * would see a live writer as exited and steal its lock.
+ *
+ * Denominations are fixed when the file is created. Change events cover mutations made through
+ * this instance; other processes see each other's changes on their next read. The mapping is
+ * kept in the page cache, not flushed to disk per write.
+ */
+public final class MappedInventory implements Inventory, Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(MappedInventory.class);
+
+    private static final int MAGIC = 0x41544D49; // "ATMI"
+    private static final int FORMAT = 2;
+    static final int K_OFFSET = 8, SEQ = 16, LOCK = 24, OWNER = 32, STARTED = 40, DENOMS = 48;
+    private static final long STALE_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final long PID = ProcessHandle.current().pid();
+    static final long STARTED_AT = startOf(ProcessHandle.current());
+    private static final AtomicInteger tickets = new AtomicInteger();
+
+    private final Path file;
+    private final MappedByteBuffer buf;
+    private final int[] denoms; // DESC, slot -> denomination
+    private final ChangePublisher events = new ChangePublisher(this::state);
+
+    private MappedInventory(Path file, MappedByteBuffer buf) {
+        this.file = file;
+        this.buf = buf;
+        int k = buf.getInt(K_OFFSET);
+        this.denoms = new int[k];
+        for (int i = 0; i < k; i++) denoms[i] = (int) (long) LONGS.getVolatile(buf, DENOMS + 8 * i);
+    }
+
+    /** Maps {@code file}, creating it with {@code initial} counts if it does not exist yet. */
+    public static MappedInventory open(Path file, Map<Integer, Integer> initial) {
+        Objects.requireNonNull(file, "file");
+        Objects.requireNonNull(initial, "initial");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+             FileLock ignored = channel.lock()) { // serialises creation across processes
+            if (channel.size() == 0) initialize(channel, initial);
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            buf.order(ByteOrder.nativeOrder());
+            if (buf.getInt(0) != MAGIC || buf.getInt(4) != FORMAT) throw new IllegalStateException("Not an inventory file: " + file);
+            if (channel.size() != sizeFor(buf.getInt(K_OFFSET))) throw new IllegalStateException("Truncated inventory file: " + file);
+            logger.debug("Mapped inventory {}", file);
+            return new MappedInventory(file, buf);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map inventory " + file, e);
+        }
+    }
+
+    private static void initialize(FileChannel channel, Map<Integer, Integer> initial) throws IOException {
+        InventoryState state = InventoryState.of(0, initial); // validates and sorts DESC
+        int k = initial.size();
+        int[] denoms = initial.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        ByteBuffer header = ByteBuffer.allocate((int) sizeFor(k)).order(ByteOrder.nativeOrder());
+        header.putInt(0, MAGIC).putInt(4, FORMAT).putInt(K_OFFSET, k);
+        for (int i = 0; i < k; i++) {
+            int d = denoms[k - 1 - i];
+            header.putLong(DENOMS + 8 * i, d);
+            header.putLong(bank(k, 0) + 8 * i, state.count(d));
+        }
+        channel.write(header, 0);
+    }
+
+    private static long sizeFor(int k) { return DENOMS + 24L * k; }
+
+    private static int bank(int k, int bank) { return DENOMS + 8 * k * (1 + bank); }
+
+    @Override public Map<Integer, Integer> snapshot() {
+        long[] counts = new long[denoms.length];
+        read(counts);
+        return toMap(counts);
+    }
+
+    @Override public void add(Map<Integer, Integer> deposit) {
+        Objects.requireNonNull(deposit, "deposit");
+        deposit.forEach((d,c) -> {
+            if (d == null || d <= 0) throw new IllegalArgumentException("Invalid denom: " + d);
+            if (c == null || c < 0) throw new IllegalArgumentException("Negative deposit for denom: " + d);
+            if (c > 0 && slotOf(d) < 0) throw new IllegalArgumentException("Unsupported denom: " + d);
+        });
+        write(counts -> {
+            deposit.forEach((d,c) -> { if (c > 0) counts[slotOf(d)] += c; });
+            checkBalance(counts);
+            return null;
+        });
+    }
+
+    @Override public void remove(Map<Integer, Integer> take) {
+        Objects.requireNonNull(take, "take");
+        take.forEach((d,c) -> {
+            if (d == null || d <= 0) throw new IllegalArgumentException("Invalid denom: " + d);
+            if (c == null || c < 0) throw new IllegalArgumentException("Negative remove");
+        });
+        write(counts -> {
+            minus(counts, take);
+            return null;
+        });
+    }
+
+    @Override public Optional<DispensePlan> dispense(int amount, DispenseStrategy strategy) {
+        Objects.requireNonNull(strategy, "strategy");
+        return write(counts -> {
+            if (balanceOf(counts) < amount) {
+                throw new Errors.InsufficientFundsException("ATM balance is insufficient");
+            }
+            var planOpt = strategy.plan(amount, toMap(counts));
+            planOpt.ifPresent(plan -> minus(counts, plan.notes().asMap()));
+            return planOpt;
+        });
+    }
+
+    @Override public <T> T transact(Function<Map<Integer, Integer>, T> mutation) {
+        Objects.requireNonNull(mutation, "mutation");
+        return write(counts -> {
+            Map<Integer, Integer> working = toMap(counts);
+            T result = mutation.apply(working);
+            long[] next = new long[denoms.length];
+            for (Map.Entry<Integer, Integer> e : working.entrySet()) {
+                Integer d = e.getKey(), c = e.getValue();
+                if (d == null || d <= 0) throw new IllegalArgumentException("Invalid denom: " + d);
+                if (c == null || c < 0) throw new IllegalArgumentException("Negative count for denom: " + d);
+                if (c == 0) continue;
+                int slot = slotOf(d);
+                if (slot < 0) throw new IllegalArgumentException("Unsupported denom: " + d);
+                next[slot] = c;
+            }
+            checkBalance(next);
+            System.arraycopy(next, 0, counts, 0, next.length);
+            return result;
+        });
+    }
+
+    @Override public Set<Integer> denominations() {
+        long[] counts = new long[denoms.length];
+        read(counts);
+        Set<Integer> result = new LinkedHashSet<>();
+        for (int i = 0; i < denoms.length; i++) {
+            if (counts[i] > 0) result.add(denoms[i]);
+        }
+        return result;
+    }
+
+    @Override public int count(int denomination) {
+        int slot = slotOf(denomination);
+        if (slot < 0) return 0;
+        long[] counts = new long[denoms.length];
+        read(counts);
+        return (int) counts[slot];
+    }
+
+    @Override public int balance() {
+        long[] counts = new long[denoms.length];
+        read(counts);
+        return (int) balanceOf(counts);
+    }
+
+    @Override public long version() {
+        return (long) LONGS.getAcquire(buf, SEQ) >>> 1;
+    }
+
+    @Override public InventoryState state() {
+        long[] counts = new long[denoms.length];
+        long version = read(counts);
+        return InventoryState.of(version, toMap(counts));
+    }
+
+    @Override public Subscription subscribe(Consumer<InventoryChange> subscriber) {
+        return events.subscribe(subscriber);
+    }
+
+    /** Releases nothing shared: the file and other processes' mappings stay valid. */
+    @Override public void close() {
+        logger.debug("Closed inventory {}", file);
+    }
+
+    /** Seqlock read of the active bank into {@code counts}; returns the matching version. */
+    private long read(long[] counts) {
+        while (true) {
+            long seq = (long) LONGS.getAcquire(buf, SEQ);
+            int base = bank(denoms.length, (int) (seq & 1));
+            for (int i = 0; i < counts.length; i++) counts[i] = (long) LONGS.getOpaque(buf, base + 8 * i);
+            VarHandle.acquireFence();
+            if ((long) LONGS.getVolatile(buf, SEQ) == seq) return seq >>> 1;
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Runs {@code mutation} on a copy of the active counts under the file's write lock and
+     * publishes the result. If the mutation throws, nothing is published.
+     */
+    private <T> T write(Function<long[], T> mutation) {
+        long ticket = acquire();
+        boolean changed = false;
+        try {
+            long seq = (long) LONGS.getVolatile(buf, SEQ);
+            int active = (int) (seq & 1);
+            long[] counts = new long[denoms.length];
+            int from = bank(denoms.length, active);
+            for (int i = 0; i < counts.length; i++) counts[i] = (long) LONGS.getOpaque(buf, from + 8 * i);
+            T result = mutation.apply(counts);
+            int to = bank(denoms.length, 1 - active);
+            for (int i = 0; i < counts.length; i++) LONGS.setOpaque(buf, to + 8 * i, counts[i]);
+            LONGS.setRelease(buf, SEQ, (((seq >>> 1) + 1) << 1) | (1 - active));
+            changed = true;
+            return result;
+        } finally {
+            LONGS.compareAndSet(buf, OWNER, ticket, 0L);
+            LONGS.compareAndSet(buf, LOCK, ticket, 0L);
+            if (changed) events.changed();
+        }
+    }
+
+    /** Spins for the lock word; takes it over if its owner process has exited. */
+    private long acquire() {
+        long ticket = (PID << 32) | (tickets.incrementAndGet() & 0xFFFFFFFFL);
+        long nextStaleCheck = System.nanoTime() + STALE_CHECK_NANOS;
+        for (int spins = 0; ; spins++) {
+            long owner = (long) LONGS.getVolatile(buf, LOCK);
+            if (owner == 0 && LONGS.compareAndSet(buf, LOCK, 0L, ticket)) return own(ticket);
+            if (owner != 0 && System.nanoTime() - nextStaleCheck >= 0) {
+                nextStaleCheck = System.nanoTime() + STALE_CHECK_NANOS;
+                if (ownerExited(owner) && LONGS.compareAndSet(buf, LOCK, owner, ticket)) {
+                    logger.warn("Took over inventory lock of exited process {} in {}", owner >>> 32, file);
+                    return own(ticket);
+                }
+            }
+            if ((spins & 63) == 63) Thread.yield(); else Thread.onSpinWait();
+        }
+    }
+
+    /** Records this process's start time for the lock just taken, so a reused pid is not mistaken for it. */
+    private long own(long ticket) {
+        LONGS.setOpaque(buf, STARTED, STARTED_AT);
+        LONGS.setRelease(buf, OWNER, ticket);
+        return ticket;
+    }
+
+    /**
+     * True if no process has the owner's pid, or the one that does started at another time than
+     * the owner recorded. An owner that has not recorded its start time yet counts as alive.
+     */
+    private boolean ownerExited(long owner) {
+        Optional<ProcessHandle> process = ProcessHandle.of(owner >>> 32).filter(ProcessHandle::isAlive);
+        if (process.isEmpty()) return true;
+        if ((long) LONGS.getAcquire(buf, OWNER) != owner) return false;
+        long started = (long) LONGS.getOpaque(buf, STARTED);
+        long current = startOf(process.get());
+        return started != 0 && current != 0 && started != current;
+    }
+
+    private static long startOf(ProcessHandle process) {
+        return process.info().startInstant().map(Instant::toEpochMilli).orElse(0L);
+    }
+
+    private void minus(long[] counts, Map<Integer, Integer> take) {
+        for (Map.Entry<Integer, Integer> e : take.entrySet()) {
+            if (e.getValue() < 0) throw new IllegalArgumentException("Negative remove");
+        }
+        for (Map.Entry<Integer, Integer> e : take.entrySet()) {
+            if (e.getValue() == 0) continue;
+            int slot = slotOf(e.getKey());
+            if (slot < 0 || counts[slot] < e.getValue()) throw new IllegalStateException("Not enough " + e.getKey() + " notes");
+        }
+        take.forEach((d,c) -> { if (c > 0) counts[slotOf(d)] -= c; });
+    }
+
+    private void checkBalance(long[] counts) {
+        for (long c : counts) {
+            if (c > Integer.MAX_VALUE) throw new ArithmeticException("Count overflow");
+        }
+        if (balanceOf(counts) > Integer.MAX_VALUE) throw new ArithmeticException("Balance overflow");
+    }
+
+    private long balanceOf(long[] counts) {
+        long total = 0;
+        for (int i = 0; i < denoms.length; i++) total += denoms[i] * counts[i];
+        return total;
+    }
+
+    private Map<Integer, Integer> toMap(long[] counts) {
+        Map<Integer, Integer> copy = new HashMap<>();
+        for (int i = 0; i < denoms.length; i++) {
+            if (counts[i] > 0) copy.put(denoms[i], (int) counts[i]);
+        }
+        return copy;
+    }
+
+    private int slotOf(int denomination) {
+        for (int i = 0; i < denoms.length; i++) {
+            if (denoms[i] == denomination) return i;
+        }
+        return -1;
+    }
+}
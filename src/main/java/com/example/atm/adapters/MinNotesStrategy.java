@@ -17,7 +17,7 @@ public final class MinNotesStrategy implements DispenseStrategy {
     @Override
     public Optional<DispensePlan> plan(int amount, Map<Integer, Integer> inventory) {
 
-        logger.info("requested amount is "+amount);
+        logger.debug("requested amount is {}", amount);
 
         if (amount <= 0) return Optional.empty();
 
@@ -0,0 +1,331 @@
+package com.example.atm.adapters;
+
+import com.example.atm.domain.Cassette;
+import com.example.atm.domain.DispensePlan;
+import com.example.atm.domain.InventoryChange;
+import com.example.atm.domain.InventoryState;
+import com.example.atm.errors.Errors;
+import com.example.atm.ports.DispenseStrategy;
+import com.example.atm.ports.Inventory;
+import com.example.atm.ports.Subscription;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Notes of several currencies held in physical cassettes, several of which may carry the same
+ * denomination.
+ *
+ * Each currency is a separate {@link Inventory} ({@link #inventory(String)}) with its own lock,
+ * version and change events, so operations in different currencies never contend. Within a
+ * currency the view aggregates cassettes by denomination, so existing strategies, policies and
+ * {@code CashMachine} work on it unchanged.
+ *
+ * Removals spread wear: each denomination's notes come from the least-worn cassette holding
+ * any, moving to the next least-worn only if it runs out. Deposits top up the emptiest cassette
+ * first. Cassettes, and with them currencies and denominations, are fixed at construction;
+ * a deposit with no cassette for the denomination throws IllegalArgumentException and one that
+ * exceeds the free capacity throws IllegalStateException.
+ */
+public final class MultiCurrencyInventory {
+    private final Map<String, CurrencyInventory> currencies;
+
+    public MultiCurrencyInventory(Collection<Cassette> cassettes) {
+        Objects.requireNonNull(cassettes, "cassettes");
+        if (cassettes.isEmpty()) throw new IllegalArgumentException("No cassettes");
+        Set<String> ids = new HashSet<>();
+        Map<String, List<Slot>> byCurrency = new TreeMap<>();
+        for (Cassette c : cassettes) {
+            if (!ids.add(c.id())) throw new IllegalArgumentException("Duplicate cassette id: " + c.id());
+            byCurrency.computeIfAbsent(c.currency(), k -> new ArrayList<>()).add(new Slot(c));
+        }
+        Map<String, CurrencyInventory> result = new LinkedHashMap<>();
+        byCurrency.forEach((currency, slots) -> result.put(currency, new CurrencyInventory(currency, slots)));
+        this.currencies = Collections.unmodifiableMap(result);
+    }
+
+    /** Currencies held, sorted. */
+    public Set<String> currencies() { return currencies.keySet(); }
+
+    /** The inventory of one currency; throws IllegalArgumentException if no cassette holds it. */
+    public Inventory inventory(String currency) {
+        return currency(currency);
+    }
+
+    /** Current state of every cassette of a currency. */
+    public List<Cassette> cassettes(String currency) {
+        return currency(currency).cassettes();
+    }
+
+    /** Current state of every cassette, each currency read under its own lock. */
+    public List<Cassette> cassettes() {
+        List<Cassette> all = new ArrayList<>();
+        for (CurrencyInventory inventory : currencies.values()) all.addAll(inventory.cassettes());
+        return all;
+    }
+
+    private CurrencyInventory currency(String currency) {
+        CurrencyInventory inventory = currencies.get(Objects.requireNonNull(currency, "currency"));
+        if (inventory == null) throw new IllegalArgumentException("Unknown currency: " + currency);
+        return inventory;
+    }
+
+    /** Mutable cassette state, guarded by its currency's lock. */
+    private static final class Slot {
+        final Cassette config;
+        int count;
+        long wear;
+
+        Slot(Cassette config) {
+            this.config = config;
+            this.count = config.count();
+            this.wear = config.wear();
+        }
+
+        int denomination() { return config.denomination(); }
+
+        Cassette snapshot() {
+            return new Cassette(config.id(), config.currency(), config.denomination(), count, config.capacity(), wear);
+        }
+    }
+
+    private static final class CurrencyInventory implements Inventory {
+        private final String currency;
+        private final Map<Integer, List<Slot>> slots = new TreeMap<>(Comparator.reverseOrder()); // denomination -> cassettes
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ChangePublisher events = new ChangePublisher(this::state);
+        private volatile long version; // written under lock
+        private InventoryState published; // guarded by lock: new state for subscribers, if any
+
+        CurrencyInventory(String currency, List<Slot> cassettes) {
+            this.currency = currency;
+            for (Slot s : cassettes) slots.computeIfAbsent(s.denomination(), k -> new ArrayList<>()).add(s);
+            balanceOf(countsLocked()); // rejects stock whose balance overflows
+        }
+
+        @Override public Map<Integer, Integer> snapshot() {
+            lock.lock();
+            try {
+                return countsLocked();
+            } finally { lock.unlock(); }
+        }
+
+        @Override public void add(Map<Integer, Integer> deposit) {
+            Objects.requireNonNull(deposit, "deposit");
+            lock.lock();
+            try {
+                addLocked(deposit);
+                bumpLocked();
+            } finally {
+                unlockAndPublish();
+            }
+        }
+
+        @Override public void remove(Map<Integer, Integer> take) {
+            Objects.requireNonNull(take, "take");
+            lock.lock();
+            try {
+                removeLocked(take);
+                bumpLocked();
+            } finally {
+                unlockAndPublish();
+            }
+        }
+
+        @Override public Optional<DispensePlan> dispense(int amount, DispenseStrategy strategy) {
+            Objects.requireNonNull(strategy, "strategy");
+            lock.lock();
+            try {
+                Map<Integer, Integer> counts = countsLocked();
+                if (balanceOf(counts) < amount) {
+                    throw new Errors.InsufficientFundsException("ATM balance is insufficient");
+                }
+                var planOpt = strategy.plan(amount, counts);
+                if (planOpt.isPresent()) {
+                    removeLocked(planOpt.get().notes().asMap());
+                    bumpLocked();
+                }
+                return planOpt;
+            } finally {
+                unlockAndPublish();
+            }
+        }
+
+        /** Applies the difference to the cassettes: decreases spread wear, increases fill the emptiest. */
+        @Override public <T> T transact(Function<Map<Integer, Integer>, T> mutation) {
+            Objects.requireNonNull(mutation, "mutation");
+            lock.lock();
+            try {
+                Map<Integer, Integer> before = countsLocked();
+                Map<Integer, Integer> working = new HashMap<>(before);
+                T result = mutation.apply(working);
+                Map<Integer, Integer> take = new HashMap<>();
+                Map<Integer, Integer> deposit = new HashMap<>();
+                working.forEach((d,c) -> {
+                    if (d == null || d <= 0) throw new IllegalArgumentException("Invalid denom: " + d);
+                    if (c == null || c < 0) throw new IllegalArgumentException("Negative count for denom: " + d);
+                    int delta = c - before.getOrDefault(d, 0);
+                    if (delta > 0) deposit.put(d, delta); else if (delta < 0) take.put(d, -delta);
+                });
+                before.forEach((d,c) -> { if (!working.containsKey(d)) take.put(d, c); });
+                checkDeposit(deposit);
+                checkRemoval(take);
+                removeLocked(take);
+                addLocked(deposit);
+                bumpLocked();
+                return result;
+            } finally {
+                unlockAndPublish();
+            }
+        }
+
+        @Override public Set<Integer> denominations() {
+            lock.lock();
+            try {
+                return new LinkedHashSet<>(countsLocked().keySet());
+            } finally { lock.unlock(); }
+        }
+
+        @Override public int count(int denomination) {
+            lock.lock();
+            try {
+                return countLocked(denomination);
+            } finally { lock.unlock(); }
+        }
+
+        @Override public int balance() {
+            lock.lock();
+            try {
+                return balanceOf(countsLocked());
+            } finally { lock.unlock(); }
+        }
+
+        @Override public long version() {
+            return version;
+        }
+
+        /** Bumps the version and, if anyone is subscribed, captures the new state to publish. */
+        private void bumpLocked() {
+            version++;
+            if (events.active()) published = InventoryState.of(version, countsLocked());
+        }
+
+        /** Unlocks, then hands subscribers the state captured under the lock. */
+        private void unlockAndPublish() {
+            InventoryState changed = published;
+            published = null;
+            lock.unlock();
+            events.changed(changed);
+        }
+
+        @Override public InventoryState state() {
+            lock.lock();
+            try {
+                return InventoryState.of(version, countsLocked());
+            } finally { lock.unlock(); }
+        }
+
+        @Override public Subscription subscribe(Consumer<InventoryChange> subscriber) {
+            return events.subscribe(subscriber);
+        }
+
+        List<Cassette> cassettes() {
+            lock.lock();
+            try {
+                List<Cassette> result = new ArrayList<>();
+                for (List<Slot> list : slots.values()) {
+                    for (Slot s : list) result.add(s.snapshot());
+                }
+                return result;
+            } finally { lock.unlock(); }
+        }
+
+        private void addLocked(Map<Integer, Integer> deposit) {
+            checkDeposit(deposit);
+            deposit.forEach((d,c) -> {
+                for (int left = c; left > 0; ) {
+                    Slot emptiest = null;
+                    for (Slot s : slots.get(d)) {
+                        if (s.count < s.config.capacity() && (emptiest == null || s.count < emptiest.count)) emptiest = s;
+                    }
+                    int next = Integer.MAX_VALUE; // fill only up to the next-emptiest, so the cassettes level out
+                    for (Slot s : slots.get(d)) {
+                        if (s != emptiest && s.count < s.config.capacity() && s.count >= emptiest.count) next = Math.min(next, s.count);
+                    }
+                    int step = next == Integer.MAX_VALUE ? left : Math.max(1, next - emptiest.count);
+                    int put = Math.min(Math.min(left, step), emptiest.config.capacity() - emptiest.count);
+                    emptiest.count += put;
+                    left -= put;
+                }
+            });
+        }
+
+        private void checkDeposit(Map<Integer, Integer> deposit) {
+            long balance = balanceOf(countsLocked());
+            for (Map.Entry<Integer, Integer> e : deposit.entrySet()) {
+                Integer d = e.getKey(), c = e.getValue();
+                if (d == null || d <= 0) throw new IllegalArgumentException("Invalid denom: " + d);
+                if (c == null || c < 0) throw new IllegalArgumentException("Negative deposit for denom: " + d);
+                if (c == 0) continue;
+                List<Slot> list = slots.get(d);
+                if (list == null) throw new IllegalArgumentException("No " + currency + " cassette for denom: " + d);
+                long free = 0;
+                for (Slot s : list) free += s.config.capacity() - s.count;
+                if (c > free) throw new IllegalStateException("No room for " + c + " more " + currency + ' ' + d + " notes");
+                balance += (long) d * c;
+            }
+            if (balance > Integer.MAX_VALUE) throw new ArithmeticException("Balance overflow");
+        }
+
+        private void removeLocked(Map<Integer, Integer> take) {
+            checkRemoval(take);
+            take.forEach((d,c) -> {
+                for (int left = c; left > 0; ) {
+                    Slot leastWorn = null;
+                    for (Slot s : slots.get(d)) {
+                        if (s.count > 0 && (leastWorn == null || s.wear < leastWorn.wear)) leastWorn = s;
+                    }
+                    int pick = Math.min(left, leastWorn.count);
+                    leastWorn.count -= pick;
+                    leastWorn.wear += pick;
+                    left -= pick;
+                }
+            });
+        }
+
+        private void checkRemoval(Map<Integer, Integer> take) {
+            for (Map.Entry<Integer, Integer> e : take.entrySet()) {
+                if (e.getValue() < 0) throw new IllegalArgumentException("Negative remove");
+                if (e.getValue() > countLocked(e.getKey())) throw new IllegalStateException("Not enough " + e.getKey() + " notes");
+            }
+        }
+
+        private int countLocked(int denomination) {
+            List<Slot> list = slots.get(denomination);
+            if (list == null) return 0;
+            int total = 0;
+            for (Slot s : list) total += s.count;
+            return total;
+        }
+
+        /** Denomination -> notes across its cassettes, largest first; empty denominations are left out. */
+        private Map<Integer, Integer> countsLocked() {
+            Map<Integer, Integer> counts = new LinkedHashMap<>();
+            for (Integer d : slots.keySet()) {
+                int c = countLocked(d);
+                if (c > 0) counts.put(d, c);
+            }
+            return counts;
+        }
+
+        private static int balanceOf(Map<Integer, Integer> counts) {
+            int total = 0;
+            for (Map.Entry<Integer, Integer> e : counts.entrySet()) {
+                total = Math.addExact(total, Math.multiplyExact(e.getKey(), e.getValue()));
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.atm.adapters;
+
+
+
+import com.example.atm.domain.DispensePlan;
+import com.example.atm.domain.Money;
+import com.example.atm.ports.DispenseStrategy;
+
+import java.util.*;
+
+/**
+ * Exact bounded minimum-notes strategy.
+ *
+ * Runs greedy first and keeps its answer when it is provably optimal: either the stocked
+ * denominations form a divisibility chain (each divides the next larger one), where greedy
+ * is optimal and complete even with limited stock, or greedy already meets the lower bound
+ * {@code ceil(amount / largest)}. Otherwise solves bounded coin change with a DP over
+ * {@code amount / gcd}, one sliding-window-minimum pass per denomination.
+ *
+ * The DP table holds {@code k * (amount / gcd + 1)} ints. Above {@value #MAX_TABLE_CELLS} cells
+ * the amount is planned by {@link BranchAndBoundStrategy} instead, which is exact unless its time
+ * budget runs out. DP buffers are per-thread and reused, so a typical call allocates nothing
+ * beyond the returned plan; buffers above {@value #RETAINED_CELLS} cells are dropped after the
+ * call rather than pinned to the thread.
+ */
+public final class OptimalNotesStrategy implements DispenseStrategy {
+    private static final int INF = Integer.MAX_VALUE / 2;
+    static final int MAX_TABLE_CELLS = 1 << 24;  // 64 MB of ints
+    static final int RETAINED_CELLS = 1 << 20;   // 4 MB of ints
+
+    private static final DispenseStrategy LARGE_AMOUNTS = new BranchAndBoundStrategy();
+
+    private final ThreadLocal<Workspace> workspace = ThreadLocal.withInitial(Workspace::new);
+
+    @Override
+    public Optional<DispensePlan> plan(int amount, Map<Integer, Integer> inventory) {
+        if (amount <= 0) return Optional.empty();
+
+        Workspace ws = workspace.get();
+        int k = ws.load(inventory, amount);
+        if (k == 0) return Optional.empty();
+
+        int[] denoms = ws.denoms;
+        int[] stock = ws.stock;
+        int[] use = ws.use;
+
+        // Greedy pass (DESC order)
+        int remaining = amount;
+        int notes = 0;
+        for (int i = 0; i < k; i++) {
+            int take = Math.min(remaining / denoms[i], stock[i]);
+            use[i] = take;
+            remaining -= take * denoms[i];
+            notes += take;
+        }
+        if (remaining == 0 && (isDivisibilityChain(denoms, k) || notes == ceilDiv(amount, denoms[0]))) {
+            return Optional.of(toPlan(denoms, use, k));
+        }
+        if (remaining != 0 && isDivisibilityChain(denoms, k)) {
+            // Greedy is complete for divisibility chains: nothing else can succeed either
+            return Optional.empty();
+        }
+
+        int g = 0;
+        for (int i = 0; i < k; i++) g = gcd(g, denoms[i]);
+        if (amount % g != 0) return Optional.empty();
+        int n = amount / g;
+        if ((long) k * (n + 1) > MAX_TABLE_CELLS) return LARGE_AMOUNTS.plan(amount, inventory);
+        try {
+            return solve(ws, n, g, k) ? Optional.of(toPlan(denoms, use, k)) : Optional.empty();
+        } finally {
+            ws.trim();
+        }
+    }
+
+    /** Bounded coin change over {@code n = amount / g}; fills {@code ws.use} on success. */
+    private static boolean solve(Workspace ws, int n, int g, int k) {
+        ws.ensureCapacity(n, k);
+        int[] dp = ws.dp;
+        int[] take = ws.take;
+        int[] qIdx = ws.queueIndex;
+        int[] qKey = ws.queueKey;
+
+        Arrays.fill(dp, 0, n + 1, INF);
+        dp[0] = 0;
+
+        for (int i = 0; i < k; i++) {
+            int d = ws.denoms[i] / g;
+            int c = ws.stock[i];
+            int row = i * (n + 1);
+            // dp'[r + j*d] = min over t in [0, c] of dp[r + (j - t)*d] + t, per residue r.
+            // Keyed as dp[r + m*d] - m, this is a sliding-window minimum over m in [j - c, j].
+            for (int r = 0; r < d && r <= n; r++) {
+                int head = 0, tail = 0;
+                for (int j = 0, a = r; a <= n; j++, a += d) {
+                    if (dp[a] < INF) {
+                        int key = dp[a] - j;
+                        while (tail > head && qKey[tail - 1] >= key) tail--;
+                        qIdx[tail] = j;
+                        qKey[tail++] = key;
+                    }
+                    while (tail > head && qIdx[head] < j - c) head++;
+                    if (tail > head) {
+                        dp[a] = qKey[head] + j;
+                        take[row + a] = j - qIdx[head];
+                    } else {
+                        dp[a] = INF;
+                        take[row + a] = 0;
+                    }
+                }
+            }
+        }
+        if (dp[n] >= INF) return false;
+
+        for (int i = k - 1, a = n; i >= 0; i--) {
+            int t = take[i * (n + 1) + a];
+            ws.use[i] = t;
+            a -= t * (ws.denoms[i] / g);
+        }
+        return true;
+    }
+
+    private static boolean isDivisibilityChain(int[] denoms, int k) {
+        for (int i = 0; i + 1 < k; i++) {
+            if (denoms[i] % denoms[i + 1] != 0) return false;
+        }
+        return true;
+    }
+
+    private static DispensePlan toPlan(int[] denoms, int[] use, int k) {
+        Map<Integer, Integer> notes = new LinkedHashMap<>();
+        for (int i = 0; i < k; i++) {
+            if (use[i] > 0) notes.put(denoms[i], use[i]);
+        }
+        return new DispensePlan(new Money(notes));
+    }
+
+    private static int ceilDiv(int a, int b) { return (a + b - 1) / b; }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) { int t = a % b; a = b; b = t; }
+        return a;
+    }
+
+    /** Reusable per-thread buffers. */
+    private static final class Workspace {
+        int[] denoms = new int[8];
+        int[] stock = new int[8];
+        int[] use = new int[8];
+        int[] dp = new int[0];
+        int[] take = new int[0];
+        int[] queueIndex = new int[0];
+        int[] queueKey = new int[0];
+
+        /** Loads usable denominations (count > 0, d <= amount) in DESC order; returns how many. */
+        int load(Map<Integer, Integer> inventory, int amount) {
+            if (denoms.length < inventory.size()) {
+                denoms = new int[inventory.size()];
+                stock = new int[inventory.size()];
+                use = new int[inventory.size()];
+            }
+            int k = 0;
+            for (Map.Entry<Integer, Integer> e : inventory.entrySet()) {
+                int d = e.getKey();
+                int c = e.getValue();
+                if (c <= 0 || d > amount) continue;
+                // insertion sort keeps the table DESC without boxing a list
+                int pos = k++;
+                while (pos > 0 && denoms[pos - 1] < d) {
+                    denoms[pos] = denoms[pos - 1];
+                    stock[pos] = stock[pos - 1];
+                    pos--;
+                }
+                denoms[pos] = d;
+                stock[pos] = Math.min(c, amount / d);
+            }
+            return k;
+        }
+
+        void ensureCapacity(int n, int k) {
+            if (dp.length < n + 1) {
+                dp = new int[n + 1];
+                queueIndex = new int[n + 1];
+                queueKey = new int[n + 1];
+            }
+            int cells = Math.multiplyExact(k, n + 1);
+            if (take.length < cells) take = new int[cells];
+        }
+
+        /** Drops buffers sized for an unusually large amount so the thread does not keep them. */
+        void trim() {
+            if (take.length > RETAINED_CELLS) take = new int[0];
+            if (dp.length > RETAINED_CELLS) {
+                dp = new int[0];
+                queueIndex = new int[0];
+                queueKey = new int[0];
+            }
+        }
+    }
+}
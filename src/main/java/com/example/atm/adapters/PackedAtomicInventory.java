@@ -0,0 +1,302 @@
+package com.example.atm.adapters;
+
+import com.example.atm.domain.DispensePlan;
+import com.example.atm.domain.InventoryChange;
+import com.example.atm.domain.InventoryState;
+import com.example.atm.errors.Errors;
+import com.example.atm.ports.DispenseStrategy;
+import com.example.atm.ports.Inventory;
+import com.example.atm.ports.Subscription;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Lock-free inventory for small, fixed denomination sets: every count lives in one {@code long},
+ * so {@code add}, {@code remove} and {@code dispense} are a compare-and-set of that word and a
+ * multi-denomination removal is all-or-nothing by construction. Readers decode one volatile read,
+ * so {@link #balance()} and {@link #snapshot()} are always consistent and never block.
+ *
+ * Layout: the low 52 bits hold one {@code min(31, 52 / k)}-bit field per denomination (largest first),
+ * bits 52-62 the version modulo 2048 and bit 63 a busy flag held by {@link #transact}. The field
+ * width caps each count at {@link #capacity()}: 8191 notes for four denominations, 131071 for
+ * three. A fifth denomination would leave 1023 notes, less than one full cassette, so at most
+ * {@link #MAX_DENOMINATIONS} are accepted. Denominations are fixed at construction; depositing
+ * another one throws IllegalArgumentException and exceeding the capacity throws
+ * IllegalStateException.
+ *
+ * {@link #transact} is the exception to lock-freedom: its mutation may have side effects and must
+ * run exactly once, so it holds the busy bit while the mutation runs and every other writer spins
+ * until it is cleared. Readers are never held up.
+ *
+ * The full version is rebuilt from the stamp and a counter bumped after each successful CAS,
+ * which stays within the stamp's range while fewer than 1024 threads are writing at once.
+ */
+public final class PackedAtomicInventory implements Inventory {
+    public static final int MAX_DENOMINATIONS = 4;
+
+    private static final int COUNT_BITS = 52;
+    private static final int STAMP_SHIFT = 52;
+    private static final long STAMP_MASK = 0x7FF;
+    private static final long HALF_STAMP_RANGE = (STAMP_MASK + 1) / 2;
+    private static final long BUSY = 1L << 63;
+    private static final VarHandle WORD;
+    static {
+        try {
+            WORD = MethodHandles.lookup().findVarHandle(PackedAtomicInventory.class, "word", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final ChangePublisher events = new ChangePublisher(this::state);
+    private final int[] denoms; // DESC, slot -> denomination
+    private final int bits;
+    private final long fieldMask;
+    private final AtomicLong committed = new AtomicLong(); // successful CASes; may trail the stamp
+    @SuppressWarnings("unused") // accessed through WORD
+    private volatile long word;
+
+    public PackedAtomicInventory(Map<Integer, Integer> initial) {
+        Objects.requireNonNull(initial, "initial");
+        initial.forEach((d,c) -> {
+            if (d == null || d <= 0) throw new IllegalArgumentException("Invalid denom: " + d);
+            if (c == null || c < 0) throw new IllegalArgumentException("Negative count for denom: " + d);
+        });
+        if (initial.size() > MAX_DENOMINATIONS) {
+            throw new IllegalArgumentException("At most " + MAX_DENOMINATIONS + " denominations, got " + initial.size());
+        }
+        this.denoms = initial.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        for (int i = 0, j = denoms.length - 1; i < j; i++, j--) {
+            int t = denoms[i]; denoms[i] = denoms[j]; denoms[j] = t;
+        }
+        this.bits = Math.min(Integer.SIZE - 1, COUNT_BITS / Math.max(1, denoms.length)); // counts are ints
+        this.fieldMask = (1L << bits) - 1;
+        long w = 0;
+        int balance = 0;
+        for (int i = 0; i < denoms.length; i++) {
+            int c = initial.get(denoms[i]);
+            if (c > fieldMask) throw new IllegalArgumentException("Count " + c + " exceeds capacity " + fieldMask + " for denom: " + denoms[i]);
+            balance = Math.addExact(balance, Math.multiplyExact(denoms[i], c));
+            w |= (long) c << shift(i);
+        }
+        this.word = w;
+    }
+
+    /** Most notes a single denomination can hold. */
+    public int capacity() { return (int) fieldMask; }
+
+    @Override public Map<Integer, Integer> snapshot() {
+        return toMap(read());
+    }
+
+    @Override public void add(Map<Integer, Integer> deposit) {
+        Objects.requireNonNull(deposit, "deposit");
+        deposit.forEach((d,c) -> {
+            if (d == null || d <= 0) throw new IllegalArgumentException("Invalid denom: " + d);
+            if (c == null || c < 0) throw new IllegalArgumentException("Negative deposit for denom: " + d);
+            if (c > 0 && slotOf(d) < 0) throw new IllegalArgumentException("Unsupported denom: " + d);
+        });
+        while (true) {
+            long w = awaitIdle();
+            long n = w;
+            long balance = balanceOf(w);
+            for (Map.Entry<Integer, Integer> e : deposit.entrySet()) {
+                int c = e.getValue();
+                if (c == 0) continue;
+                int slot = slotOf(e.getKey());
+                if (count(n, slot) + c > fieldMask) throw new IllegalStateException("No room for " + c + " more " + e.getKey() + " notes");
+                n += (long) c << shift(slot);
+                balance += (long) e.getKey() * c;
+            }
+            if (balance > Integer.MAX_VALUE) throw new ArithmeticException("Balance overflow");
+            if (commit(w, n)) return;
+        }
+    }
+
+    @Override public void remove(Map<Integer, Integer> take) {
+        Objects.requireNonNull(take, "take");
+        take.forEach((d,c) -> {
+            if (d == null || d <= 0) throw new IllegalArgumentException("Invalid denom: " + d);
+            if (c == null || c < 0) throw new IllegalArgumentException("Negative remove");
+        });
+        while (true) {
+            long w = awaitIdle();
+            if (commit(w, minus(w, take))) return;
+        }
+    }
+
+    @Override public Optional<DispensePlan> dispense(int amount, DispenseStrategy strategy) {
+        Objects.requireNonNull(strategy, "strategy");
+        while (true) {
+            long w = awaitIdle();
+            if (balanceOf(w) < amount) {
+                throw new Errors.InsufficientFundsException("ATM balance is insufficient");
+            }
+            var planOpt = strategy.plan(amount, toMap(w));
+            if (planOpt.isEmpty()) return planOpt;
+            if (commit(w, minus(w, planOpt.get().notes().asMap()))) return planOpt; // else replan on the new counts
+        }
+    }
+
+    /**
+     * Sets the busy bit for the duration of the mutation, so it runs exactly once; other writers
+     * spin until it is cleared, as on a spinlock, while readers carry on with the unchanged counts.
+     */
+    @Override public <T> T transact(Function<Map<Integer, Integer>, T> mutation) {
+        Objects.requireNonNull(mutation, "mutation");
+        long w;
+        do {
+            w = awaitIdle();
+        } while (!WORD.compareAndSet(this, w, w | BUSY));
+        long next = w;
+        try {
+            Map<Integer, Integer> working = toMap(w);
+            T result = mutation.apply(working);
+            long n = w & (STAMP_MASK << STAMP_SHIFT);
+            long total = 0;
+            for (Map.Entry<Integer, Integer> e : working.entrySet()) {
+                Integer d = e.getKey(), c = e.getValue();
+                if (d == null || d <= 0) throw new IllegalArgumentException("Invalid denom: " + d);
+                if (c == null || c < 0) throw new IllegalArgumentException("Negative count for denom: " + d);
+                if (c == 0) continue;
+                int slot = slotOf(d);
+                if (slot < 0) throw new IllegalArgumentException("Unsupported denom: " + d);
+                if (c > fieldMask) throw new IllegalStateException("No room for " + c + " " + d + " notes");
+                n |= (long) c << shift(slot);
+                total += (long) d * c;
+            }
+            if (total > Integer.MAX_VALUE) throw new ArithmeticException("Balance overflow");
+            next = bumpStamp(n);
+            return result;
+        } finally {
+            WORD.setVolatile(this, next);
+            if (next != w) {
+                committed.incrementAndGet();
+                events.changed();
+            }
+        }
+    }
+
+    @Override public Set<Integer> denominations() {
+        long w = read();
+        Set<Integer> result = new LinkedHashSet<>();
+        for (int i = 0; i < denoms.length; i++) {
+            if (count(w, i) > 0) result.add(denoms[i]);
+        }
+        return result;
+    }
+
+    @Override public int count(int denomination) {
+        int slot = slotOf(denomination);
+        return slot < 0 ? 0 : count(read(), slot);
+    }
+
+    @Override public int balance() {
+        return (int) balanceOf(read());
+    }
+
+    @Override public long version() {
+        while (true) {
+            long before = committed.get();
+            long w = read();
+            Long version = versionOf(w, before);
+            if (version != null) return version;
+        }
+    }
+
+    @Override public InventoryState state() {
+        while (true) {
+            long before = committed.get();
+            long w = read();
+            Long version = versionOf(w, before);
+            if (version != null) return InventoryState.of(version, toMap(w));
+        }
+    }
+
+    @Override public Subscription subscribe(Consumer<InventoryChange> subscriber) {
+        return events.subscribe(subscriber);
+    }
+
+    /** Full version of {@code w} given the counter read before it, or null if writers moved too far meanwhile. */
+    private Long versionOf(long w, long before) {
+        if (committed.get() - before >= HALF_STAMP_RANGE) return null;
+        return before + ((stampOf(w) - before) & STAMP_MASK);
+    }
+
+    private boolean commit(long expected, long next) {
+        if (!WORD.compareAndSet(this, expected, bumpStamp(next))) return false;
+        committed.incrementAndGet();
+        events.changed();
+        return true;
+    }
+
+    /** {@code w} with {@code take} removed; throws IllegalStateException if any denomination is short. */
+    private long minus(long w, Map<Integer, Integer> take) {
+        long n = w;
+        for (Map.Entry<Integer, Integer> e : take.entrySet()) {
+            int c = e.getValue();
+            if (c == 0) continue;
+            int slot = slotOf(e.getKey());
+            if (slot < 0 || count(n, slot) < c) throw new IllegalStateException("Not enough " + e.getKey() + " notes");
+            n -= (long) c << shift(slot);
+        }
+        return n;
+    }
+
+    private long awaitIdle() {
+        long w = read();
+        while ((w & BUSY) != 0) {
+            Thread.onSpinWait();
+            w = read();
+        }
+        return w;
+    }
+
+    private long read() {
+        return (long) WORD.getVolatile(this);
+    }
+
+    private Map<Integer, Integer> toMap(long w) {
+        Map<Integer, Integer> copy = new HashMap<>();
+        for (int i = 0; i < denoms.length; i++) {
+            int c = count(w, i);
+            if (c > 0) copy.put(denoms[i], c);
+        }
+        return copy;
+    }
+
+    private long balanceOf(long w) {
+        long total = 0;
+        for (int i = 0; i < denoms.length; i++) total += (long) denoms[i] * count(w, i);
+        return total;
+    }
+
+    private int count(long w, int slot) {
+        return (int) ((w >>> shift(slot)) & fieldMask);
+    }
+
+    private int shift(int slot) {
+        return slot * bits;
+    }
+
+    private int slotOf(int denomination) {
+        for (int i = 0; i < denoms.length; i++) {
+            if (denoms[i] == denomination) return i;
+        }
+        return -1;
+    }
+
+    private static long stampOf(long w) {
+        return (w >>> STAMP_SHIFT) & STAMP_MASK;
+    }
+
+    private static long bumpStamp(long w) {
+        long stamp = (stampOf(w) + 1) & STAMP_MASK;
+        return (w & ~(STAMP_MASK << STAMP_SHIFT) & ~BUSY) | (stamp << STAMP_SHIFT);
+    }
+}
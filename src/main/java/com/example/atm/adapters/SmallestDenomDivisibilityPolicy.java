@@ -1,50 +1,129 @@
 package com.example.atm.adapters;
 
+import com.example.atm.domain.InventoryChange;
+import com.example.atm.domain.InventoryState;
+import com.example.atm.domain.Outcome;
+import com.example.atm.domain.WithdrawResult;
 import com.example.atm.ports.AmountPolicy;
+import com.example.atm.ports.Inventory;
+import com.example.atm.ports.Subscription;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import static com.example.atm.errors.Errors.InvalidAmountException;
 
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 
 /**
- * Validates withdrawal amounts against the smallest available denomination and
+ * Validates withdrawal amounts against the smallest available denomination and, by default,
  * enforces that all supported denominations are multiples of 10 (×10 system).
  *
  * - Amount must be > 0
  * - Amount must be divisible by the smallest denomination
- * - All denominations must be positive and divisible by 10
+ * - All denominations must be positive and divisible by 10, unless built with
+ *   {@code multiplesOf10 = false} for currencies with 5s, 1s or coins
+ *
+ * Built from a set, the smallest denomination is fixed. Built from an {@link Inventory}, it
+ * follows the stock through change events: the smallest denomination currently held.
  */
-public final class SmallestDenomDivisibilityPolicy implements AmountPolicy {
+public final class SmallestDenomDivisibilityPolicy implements AmountPolicy, AutoCloseable {
     private static final Logger logger = LoggerFactory.getLogger(SmallestDenomDivisibilityPolicy.class);
-    private final int smallestDenom;
+    // Rejections are immutable, so they are built once
+    private static final Optional<WithdrawResult.Failure> NOT_POSITIVE =
+            Optional.of(WithdrawResult.failure(Outcome.INVALID_AMOUNT, "Amount must be positive"));
+
+    private volatile Smallest smallest;
+    private final Subscription subscription;
+    private final boolean multiplesOf10;
 
     public SmallestDenomDivisibilityPolicy(Set<Integer> denominations) {
-        logger.info("requested denominations are {} ",denominations);
+        this(denominations, true);
+    }
+
+    /** {@code multiplesOf10 = false} accepts any positive denominations. */
+    public SmallestDenomDivisibilityPolicy(Set<Integer> denominations, boolean multiplesOf10) {
+        logger.debug("requested denominations are {}", denominations);
         Objects.requireNonNull(denominations, "denominations");
         if (denominations.isEmpty()) throw new IllegalArgumentException("No denominations");
+        this.multiplesOf10 = multiplesOf10;
 
+        if (denominations.stream().anyMatch(d -> d == null || d <= 0)) {
+            throw new IllegalArgumentException("All denominations must be positive");
+        }
         // Enforce ×10 denominations (e.g., 10, 20, 50, 100, ...)
-        boolean hasNonMultipleOf10 = denominations.stream()
-                .anyMatch(d -> d == null || d <= 0 || d % 10 != 0);
-        if (hasNonMultipleOf10) {
+        if (multiplesOf10 && denominations.stream().anyMatch(d -> d % 10 != 0)) {
             throw new IllegalArgumentException("All denominations must be positive multiples of 10");
         }
 
-        this.smallestDenom = denominations.stream()
+        this.smallest = new Smallest(denominations.stream()
                 .mapToInt(Integer::intValue)
                 .min()
-                .orElseThrow();
+                .orElseThrow());
+        this.subscription = null;
     }
 
+    /** Tracks the smallest denomination {@code inventory} holds; close to stop following it. */
+    public SmallestDenomDivisibilityPolicy(Inventory inventory) {
+        this(inventory, true);
+    }
+
+    /** Follows {@code inventory}; {@code multiplesOf10 = false} accepts any positive denominations. */
+    public SmallestDenomDivisibilityPolicy(Inventory inventory, boolean multiplesOf10) {
+        Objects.requireNonNull(inventory, "inventory");
+        this.multiplesOf10 = multiplesOf10;
+        this.smallest = new SmallestDenomDivisibilityPolicy(inventory.denominations(), multiplesOf10).smallest;
+        this.subscription = inventory.subscribe(this::onChange);
+    }
+
+    /** Smallest denomination amounts must be a multiple of. */
+    public int smallestDenomination() { return smallest.denom; }
+
     @Override
     public void validate(int amount) {
-        logger.info("requested amount is {} ",amount);
-        if (amount <= 0) throw new InvalidAmountException("Amount must be positive");
-        if (amount % smallestDenom != 0) {
-            throw new InvalidAmountException("Amount must be a multiple of " + smallestDenom);
+        check(amount).ifPresent(failure -> { throw new InvalidAmountException(failure.message()); });
+    }
+
+    @Override
+    public Optional<WithdrawResult.Failure> check(int amount) {
+        logger.debug("requested amount is {}", amount);
+        if (amount <= 0) return NOT_POSITIVE;
+        Smallest s = smallest;
+        if (amount % s.denom != 0) return s.notMultiple;
+        return Optional.empty();
+    }
+
+    @Override public void close() {
+        if (subscription != null) subscription.close();
+    }
+
+    private void onChange(InventoryChange change) {
+        InventoryState state = change.state();
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < state.size(); i++) {
+            int d = state.denominationAt(i);
+            if (multiplesOf10 && d % 10 != 0) {
+                logger.warn("Ignoring denomination {}: not a multiple of 10", d);
+                continue;
+            }
+            min = Math.min(min, d);
+        }
+        // An empty cassette set keeps the last rule; the inventory reports insufficient funds anyway
+        if (min != Integer.MAX_VALUE && min != smallest.denom) {
+            logger.debug("Smallest denomination is now {}", min);
+            smallest = new Smallest(min);
+        }
+    }
+
+    /** Smallest denomination with its prebuilt rejection, swapped as one value. */
+    private static final class Smallest {
+        final int denom;
+        final Optional<WithdrawResult.Failure> notMultiple;
+
+        Smallest(int denom) {
+            this.denom = denom;
+            this.notMultiple = Optional.of(WithdrawResult.failure(Outcome.INVALID_AMOUNT, "Amount must be a multiple of " + denom));
         }
     }
 }
@@ -0,0 +1,11 @@
+package com.example.atm.adapters.journal;
+
+/** How long a journaled mutation waits before it returns to the caller. */
+public enum Durability {
+    /** Every record is written and fsynced before the mutation returns. */
+    PER_OP,
+    /** Concurrent mutations are batched into one write + fsync; each caller waits for its batch. */
+    GROUP,
+    /** Records are flushed in the background; a crash may lose the most recent mutations. */
+    ASYNC
+}
@@ -0,0 +1,273 @@
+package com.example.atm.adapters.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only binary write-ahead log of inventory mutations.
+ *
+ * Record layout (big-endian):
+ * <pre>
+ *   int  payloadLength
+ *   long seq | byte type | short n | n × (int denomination, int count)
+ *   int  crc32c(payload)
+ * </pre>
+ * Appends are encoded into an in-memory buffer. With {@link Durability#PER_OP} the appender
+ * writes and fsyncs inline; otherwise a committer thread swaps the buffer out and writes and
+ * fsyncs everything appended since its last round, so one fsync covers many mutations.
+ */
+public final class Journal implements Closeable {
+    public static final byte SNAPSHOT = 1;
+    public static final byte ADD = 2;
+    public static final byte REMOVE = 3;
+    /** Signed per-denomination changes applied as one mutation. */
+    public static final byte DELTA = 4;
+
+    private static final int INITIAL_BUFFER = 64 * 1024;
+
+    /** Receives records in log order during {@link #replay}. */
+    public interface Visitor {
+        void record(long seq, byte type, Map<Integer, Integer> notes);
+    }
+
+    private final FileChannel channel;
+    private final Durability durability;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition pending = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+    private final CRC32C crc = new CRC32C();
+    private final Thread committer;
+    private ByteBuffer active = ByteBuffer.allocateDirect(INITIAL_BUFFER);
+    private ByteBuffer flushing = ByteBuffer.allocateDirect(INITIAL_BUFFER);
+    private long lastSeq;
+    private long durableSeq;
+    private IOException failure;
+    private boolean closed;
+
+    /**
+     * Opens {@code file} for appending after {@code lastSeq}, which is what {@link #replay}
+     * returned for the same file.
+     */
+    public Journal(Path file, long lastSeq, Durability durability) {
+        this(openForAppend(file), lastSeq, durability);
+    }
+
+    /** Appends to an already open {@code channel}; lets tests substitute one that fails. */
+    Journal(FileChannel channel, long lastSeq, Durability durability) {
+        this.channel = Objects.requireNonNull(channel, "channel");
+        this.durability = Objects.requireNonNull(durability, "durability");
+        this.lastSeq = lastSeq;
+        this.durableSeq = lastSeq;
+        if (durability == Durability.PER_OP) {
+            this.committer = null;
+        } else {
+            this.committer = new Thread(this::commitLoop, "journal-committer");
+            this.committer.setDaemon(true);
+            this.committer.start();
+        }
+    }
+
+    /**
+     * Appends a record and returns its sequence number. Zero counts are skipped. The record is
+     * durable on return only for {@link Durability#PER_OP}; otherwise see {@link #awaitDurable}.
+     */
+    public long append(byte type, Map<Integer, Integer> notes) {
+        Objects.requireNonNull(notes, "notes");
+        lock.lock();
+        try {
+            if (closed) throw new IllegalStateException("Journal is closed");
+            if (failure != null) throw new UncheckedIOException("Journal write failed", failure);
+            long seq = lastSeq + 1;
+            encode(seq, type, notes);
+            lastSeq = seq;
+            if (durability == Durability.PER_OP) {
+                try {
+                    writeAndForce(active);
+                } catch (IOException e) {
+                    failure = e;
+                    throw new UncheckedIOException("Journal write failed", e);
+                }
+                durableSeq = seq;
+            } else {
+                pending.signal();
+            }
+            return seq;
+        } finally { lock.unlock(); }
+    }
+
+    /** Blocks until {@code seq} is on disk; returns immediately for {@link Durability#ASYNC}. */
+    public void awaitDurable(long seq) {
+        if (durability == Durability.ASYNC) return;
+        lock.lock();
+        try {
+            while (durableSeq < seq && failure == null) {
+                flushed.awaitUninterruptibly();
+            }
+            if (durableSeq < seq) throw new UncheckedIOException("Journal write failed", failure);
+        } finally { lock.unlock(); }
+    }
+
+    public long lastSeq() {
+        lock.lock();
+        try {
+            return lastSeq;
+        } finally { lock.unlock(); }
+    }
+
+    /**
+     * Flushes everything appended so far and closes the file. Throws if an earlier write failed,
+     * since some appended records are then not on disk.
+     */
+    @Override public void close() {
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+            pending.signal();
+        } finally { lock.unlock(); }
+        try (channel) {
+            if (committer != null) committer.join(); // its last write happens-before this returns
+            if (failure == null) channel.force(false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot close journal", e);
+        }
+        if (failure != null) throw new UncheckedIOException("Journal write failed", failure);
+    }
+
+    /**
+     * Reads every intact record in {@code file} in order and returns the last sequence number
+     * (0 for a missing or empty file). A torn or corrupt tail, left by a crash mid-write, is
+     * truncated so appends continue from the last good record.
+     */
+    public static long replay(Path file, Visitor visitor) {
+        Objects.requireNonNull(visitor, "visitor");
+        if (!Files.exists(file)) return 0;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buf = ByteBuffer.allocate((int) ch.size());
+            while (buf.hasRemaining() && ch.read(buf) >= 0) { /* read fully */ }
+            buf.flip();
+            CRC32C check = new CRC32C();
+            long seq = 0;
+            int good = 0;
+            while (buf.remaining() >= 4) {
+                int len = buf.getInt(buf.position());
+                if (len < 11 || len > buf.remaining() - 8) break;
+                ByteBuffer payload = buf.slice(buf.position() + 4, len);
+                check.reset();
+                check.update(payload.duplicate());
+                if ((int) check.getValue() != buf.getInt(buf.position() + 4 + len)) break;
+
+                long recordSeq = payload.getLong();
+                byte type = payload.get();
+                int n = payload.getShort();
+                if (len != 11 + n * 8) break;
+                seq = recordSeq;
+                Map<Integer, Integer> notes = new LinkedHashMap<>();
+                for (int i = 0; i < n; i++) notes.put(payload.getInt(), payload.getInt());
+                visitor.record(seq, type, notes);
+
+                buf.position(buf.position() + 4 + len + 4);
+                good = buf.position();
+            }
+            if (good < ch.size()) ch.truncate(good);
+            return seq;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot replay journal " + file, e);
+        }
+    }
+
+    private void encode(long seq, byte type, Map<Integer, Integer> notes) {
+        ensureCapacity(recordSize(notes));
+        encode(active, crc, seq, type, notes);
+    }
+
+    /** Bytes needed to encode a record with these notes. */
+    static int recordSize(Map<Integer, Integer> notes) {
+        int n = 0;
+        for (int c : notes.values()) if (c != 0) n++;
+        return 4 + 11 + n * 8 + 4;
+    }
+
+    /** Encodes one record at the buffer's position; zero counts are skipped. */
+    static void encode(ByteBuffer buf, CRC32C crc, long seq, byte type, Map<Integer, Integer> notes) {
+        int n = 0;
+        for (int c : notes.values()) if (c != 0) n++;
+        int len = 8 + 1 + 2 + n * 8;
+        buf.putInt(len);
+        int start = buf.position();
+        buf.putLong(seq).put(type).putShort((short) n);
+        notes.forEach((d,c) -> { if (c != 0) buf.putInt(d).putInt(c); });
+        crc.reset();
+        crc.update(buf.duplicate().position(start).limit(start + len));
+        buf.putInt((int) crc.getValue());
+    }
+
+    private static FileChannel openForAppend(Path file) {
+        Objects.requireNonNull(file, "file");
+        try {
+            return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open journal " + file, e);
+        }
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (active.remaining() >= bytes) return;
+        ByteBuffer bigger = ByteBuffer.allocateDirect(Math.max(active.capacity() * 2, active.position() + bytes));
+        active.flip();
+        bigger.put(active);
+        active = bigger;
+    }
+
+    /** Writes the buffered records and fsyncs; callers hold the lock or own the buffer. */
+    private void writeAndForce(ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) channel.write(buf);
+        buf.clear();
+        channel.force(false);
+    }
+
+    private void commitLoop() {
+        while (true) {
+            ByteBuffer batch;
+            long target;
+            lock.lock();
+            try {
+                while (active.position() == 0 && !closed) pending.awaitUninterruptibly();
+                if (active.position() == 0) return; // closed and drained
+                batch = active;
+                active = flushing;
+                flushing = batch;
+                target = lastSeq;
+            } finally { lock.unlock(); }
+
+            IOException error = null;
+            try {
+                writeAndForce(batch);
+            } catch (IOException e) {
+                error = e;
+            }
+
+            lock.lock();
+            try {
+                if (error != null) failure = error; else durableSeq = target;
+                flushed.signalAll();
+                if (error != null) return;
+            } finally { lock.unlock(); }
+        }
+    }
+}
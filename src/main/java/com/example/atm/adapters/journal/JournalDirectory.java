@@ -0,0 +1,113 @@
+package com.example.atm.adapters.journal;
+
+import com.example.atm.domain.InventoryState;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * On-disk layout of a journaled inventory:
+ * <pre>
+ *   checkpoint-&lt;seq&gt;.bin        full counts as of journal sequence seq (one SNAPSHOT record)
+ *   journal-&lt;firstSeq&gt;.log     segment holding records firstSeq, firstSeq + 1, ...
+ * </pre>
+ * Startup loads the newest checkpoint and replays only segment records after it.
+ */
+final class JournalDirectory {
+    private static final String CHECKPOINT_PREFIX = "checkpoint-";
+    private static final String CHECKPOINT_SUFFIX = ".bin";
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path dir;
+
+    JournalDirectory(Path dir) {
+        this.dir = dir;
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create journal directory " + dir, e);
+        }
+    }
+
+    Path segment(long firstSeq) {
+        return dir.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSeq, SEGMENT_SUFFIX));
+    }
+
+    /** Segments ordered by first sequence number. */
+    List<Path> segments() {
+        return list(SEGMENT_PREFIX, SEGMENT_SUFFIX, Comparator.naturalOrder());
+    }
+
+    /** Newest readable checkpoint, or null if there is none. */
+    InventoryState latestCheckpoint() {
+        for (Path file : list(CHECKPOINT_PREFIX, CHECKPOINT_SUFFIX, Comparator.reverseOrder())) {
+            InventoryState[] state = { null };
+            Journal.replay(file, (seq, type, notes) -> state[0] = InventoryState.of(seq, notes));
+            if (state[0] != null) return state[0];
+        }
+        return null;
+    }
+
+    /** Writes a checkpoint via temp file + fsync + atomic rename, so readers never see a partial one. */
+    void writeCheckpoint(long seq, Map<Integer, Integer> counts) {
+        Path target = dir.resolve(String.format("%s%020d%s", CHECKPOINT_PREFIX, seq, CHECKPOINT_SUFFIX));
+        Path tmp = dir.resolve(target.getFileName() + ".tmp");
+        ByteBuffer buf = ByteBuffer.allocate(Journal.recordSize(counts));
+        Journal.encode(buf, new CRC32C(), seq, Journal.SNAPSHOT, counts);
+        buf.flip();
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buf.hasRemaining()) ch.write(buf);
+            ch.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write checkpoint " + tmp, e);
+        }
+        try {
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot publish checkpoint " + target, e);
+        }
+    }
+
+    /** Deletes checkpoints older than {@code checkpointSeq} and segments before {@code activeSegment}. */
+    void deleteObsolete(long checkpointSeq, long activeSegment) {
+        try {
+            for (Path p : list(CHECKPOINT_PREFIX, CHECKPOINT_SUFFIX, Comparator.naturalOrder())) {
+                if (seqOf(p, CHECKPOINT_PREFIX, CHECKPOINT_SUFFIX) < checkpointSeq) Files.deleteIfExists(p);
+            }
+            for (Path p : segments()) {
+                if (seqOf(p, SEGMENT_PREFIX, SEGMENT_SUFFIX) < activeSegment) Files.deleteIfExists(p);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot delete obsolete journal files in " + dir, e);
+        }
+    }
+
+    /** Zero-padded names sort in sequence order. */
+    private List<Path> list(String prefix, String suffix, Comparator<Path> order) {
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> result = new ArrayList<>();
+            files.filter(p -> {
+                String name = p.getFileName().toString();
+                return name.startsWith(prefix) && name.endsWith(suffix);
+            }).sorted(order).forEach(result::add);
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list " + dir, e);
+        }
+    }
+
+    private static long seqOf(Path p, String prefix, String suffix) {
+        String name = p.getFileName().toString();
+        return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+    }
+}
@@ -0,0 +1,347 @@
+package com.example.atm.adapters.journal;
+
+
+
+import com.example.atm.adapters.ChangePublisher;
+import com.example.atm.domain.DispensePlan;
+import com.example.atm.domain.InventoryChange;
+import com.example.atm.domain.InventoryState;
+import com.example.atm.errors.Errors;
+import com.example.atm.ports.DispenseStrategy;
+import com.example.atm.ports.Inventory;
+import com.example.atm.ports.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Durable inventory: every add/remove is appended to a {@link Journal} before it is acknowledged.
+ *
+ * Writers serialise on a lock only long enough to validate, append the record to the journal
+ * buffer and publish the new {@link InventoryState}; waiting for the fsync happens after the
+ * lock is released, so concurrent mutations share group commits. Reads are lock-free as in
+ * {@code CopyOnWriteInventory}. The state's version equals the journal sequence number.
+ *
+ * Every {@code checkpointEvery} records a background thread rolls the journal to a new segment,
+ * writes the state as a checkpoint and deletes the segments it covers. Startup loads the newest
+ * checkpoint and replays only the tail, so restart time is bounded by the checkpoint interval.
+ * {@code initial} seeds a new directory and is ignored when one already exists.
+ *
+ * A change is published before it is durable. If the journal then fails to write it, the
+ * inventory is marked failed: the caller gets the UncheckedIOException and every later read,
+ * write or checkpoint throws too, so nothing reports or persists state that is not on disk.
+ * Reopen the directory to recover the last durable state.
+ */
+public final class JournaledInventory implements Inventory, Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(JournaledInventory.class);
+    public static final int DEFAULT_CHECKPOINT_EVERY = 10_000;
+
+    /** Creates the journal for a new segment; tests substitute one whose writes fail. */
+    interface JournalFactory {
+        Journal open(Path segment, long lastSeq, Durability durability);
+    }
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ReentrantLock checkpointLock = new ReentrantLock();
+    private final JournalDirectory files;
+    private final Durability durability;
+    private final int checkpointEvery;
+    private final ExecutorService checkpointer;
+    private final JournalFactory journals;
+    private Journal journal;            // guarded by writeLock
+    private int recordsSinceCheckpoint; // guarded by writeLock
+    private boolean checkpointScheduled; // guarded by writeLock
+    private volatile InventoryState current;
+    private volatile UncheckedIOException failure; // a published change that did not reach disk
+    private final ChangePublisher events = new ChangePublisher(() -> current);
+
+    private JournaledInventory(JournalDirectory files, Durability durability, int checkpointEvery,
+                               JournalFactory journals, Journal journal, InventoryState state) {
+        this.files = files;
+        this.journals = journals;
+        this.durability = durability;
+        this.checkpointEvery = checkpointEvery;
+        this.journal = journal;
+        this.current = state;
+        this.checkpointer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "journal-checkpointer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public static JournaledInventory open(Path directory, Map<Integer, Integer> initial, Durability durability) {
+        return open(directory, initial, durability, DEFAULT_CHECKPOINT_EVERY);
+    }
+
+    /** Opens (or creates) the journal directory and rebuilds the inventory from checkpoint + tail. */
+    public static JournaledInventory open(Path directory, Map<Integer, Integer> initial, Durability durability, int checkpointEvery) {
+        return open(directory, initial, durability, checkpointEvery, Journal::new);
+    }
+
+    static JournaledInventory open(Path directory, Map<Integer, Integer> initial, Durability durability, int checkpointEvery,
+                                   JournalFactory journals) {
+        Objects.requireNonNull(initial, "initial");
+        Objects.requireNonNull(durability, "durability");
+        if (checkpointEvery <= 0) throw new IllegalArgumentException("checkpointEvery must be positive");
+        JournalDirectory files = new JournalDirectory(directory);
+
+        InventoryState checkpoint = files.latestCheckpoint();
+        InventoryState[] state = { checkpoint };
+        int replayed = 0;
+        for (Path segment : files.segments()) {
+            int[] count = { 0 };
+            Journal.replay(segment, (seq, type, notes) -> {
+                if (state[0] != null && seq <= state[0].version()) return; // covered by the checkpoint
+                state[0] = apply(state[0], seq, type, notes);
+                count[0]++;
+            });
+            replayed += count[0];
+        }
+        if (state[0] == null) {
+            state[0] = InventoryState.of(0, initial);
+            files.writeCheckpoint(0, initial);
+        }
+        long lastSeq = state[0].version();
+        logger.info("Recovered inventory at seq {} ({} records replayed after checkpoint)", lastSeq, replayed);
+
+        Journal journal = journals.open(files.segment(lastSeq + 1), lastSeq, durability);
+        var inventory = new JournaledInventory(files, durability, checkpointEvery, journals, journal, state[0]);
+        inventory.recordsSinceCheckpoint = replayed;
+        return inventory;
+    }
+
+    static InventoryState apply(InventoryState state, long seq, byte type, Map<Integer, Integer> notes) {
+        switch (type) {
+            case Journal.SNAPSHOT: return InventoryState.of(seq, notes);
+            case Journal.ADD: return requireBase(state, seq).plus(notes);
+            case Journal.REMOVE: return requireBase(state, seq).minus(notes);
+            case Journal.DELTA: {
+                Map<Integer, Integer> counts = new HashMap<>(requireBase(state, seq).asMap());
+                notes.forEach((d,c) -> counts.merge(d, c, Math::addExact));
+                return InventoryState.of(seq, counts);
+            }
+            default: throw new IllegalStateException("Unknown journal record type " + type);
+        }
+    }
+
+    /** Records must follow on without gaps; a missing record means the log cannot be trusted. */
+    private static InventoryState requireBase(InventoryState state, long seq) {
+        if (state == null) throw new IllegalStateException("Journal has no checkpoint to replay onto");
+        if (seq != state.version() + 1) {
+            throw new IllegalStateException("Journal gap: expected seq " + (state.version() + 1) + " but found " + seq);
+        }
+        return state;
+    }
+
+    @Override public Map<Integer, Integer> snapshot() {
+        return new HashMap<>(current().asMap());
+    }
+
+    @Override public void add(Map<Integer, Integer> deposit) {
+        Objects.requireNonNull(deposit, "deposit");
+        Journal j;
+        long seq;
+        writeLock.lock();
+        try {
+            InventoryState next = current().plus(deposit);
+            j = journal;
+            seq = j.append(Journal.ADD, deposit);
+            publishLocked(next);
+        } finally { writeLock.unlock(); }
+        awaitDurable(j, seq);
+        events.changed();
+    }
+
+    @Override public void remove(Map<Integer, Integer> take) {
+        Objects.requireNonNull(take, "take");
+        Journal j;
+        long seq;
+        writeLock.lock();
+        try {
+            InventoryState next = current().minus(take);
+            j = journal;
+            seq = j.append(Journal.REMOVE, take);
+            publishLocked(next);
+        } finally { writeLock.unlock(); }
+        awaitDurable(j, seq);
+        events.changed();
+    }
+
+    @Override public Optional<DispensePlan> dispense(int amount, DispenseStrategy strategy) {
+        Objects.requireNonNull(strategy, "strategy");
+        Optional<DispensePlan> planOpt;
+        Journal j;
+        long seq;
+        writeLock.lock();
+        try {
+            InventoryState state = current();
+            if (state.balance() < amount) {
+                throw new Errors.InsufficientFundsException("ATM balance is insufficient");
+            }
+            planOpt = strategy.plan(amount, state.asMap());
+            if (planOpt.isEmpty()) return planOpt;
+            Map<Integer, Integer> notes = planOpt.get().notes().asMap();
+            InventoryState next = state.minus(notes);
+            j = journal;
+            seq = j.append(Journal.REMOVE, notes);
+            publishLocked(next);
+        } finally { writeLock.unlock(); }
+        awaitDurable(j, seq);
+        events.changed();
+        return planOpt;
+    }
+
+    /** Logged as a single DELTA record, so a crash can never apply half of the mutation. */
+    @Override public <T> T transact(Function<Map<Integer, Integer>, T> mutation) {
+        Objects.requireNonNull(mutation, "mutation");
+        T result;
+        Journal j;
+        long seq;
+        writeLock.lock();
+        try {
+            InventoryState state = current();
+            Map<Integer, Integer> working = new HashMap<>(state.asMap());
+            result = mutation.apply(working);
+            InventoryState next = InventoryState.of(state.version() + 1, working);
+            Map<Integer, Integer> delta = new LinkedHashMap<>();
+            for (int i = 0; i < next.size(); i++) {
+                int d = next.denominationAt(i);
+                delta.put(d, next.countAt(i) - state.count(d));
+            }
+            for (int i = 0; i < state.size(); i++) {
+                delta.putIfAbsent(state.denominationAt(i), -state.countAt(i));
+            }
+            j = journal;
+            seq = j.append(Journal.DELTA, delta);
+            publishLocked(next);
+        } finally { writeLock.unlock(); }
+        awaitDurable(j, seq);
+        events.changed();
+        return result;
+    }
+
+    @Override public Set<Integer> denominations() {
+        return current().denominations();
+    }
+
+    @Override public int count(int denomination) {
+        return current().count(denomination);
+    }
+
+    @Override public int balance() {
+        return current().balance();
+    }
+
+    /** Events are signalled once the change is durable (per the configured {@link Durability}). */
+    @Override public Subscription subscribe(Consumer<InventoryChange> subscriber) {
+        return events.subscribe(subscriber);
+    }
+
+    @Override public long version() {
+        return current().version();
+    }
+
+    @Override public InventoryState state() {
+        return current();
+    }
+
+    /**
+     * Writes a checkpoint now. Withdrawals are blocked only while the old segment is flushed and
+     * the journal rolls to a new one, so no record in the new segment can reach disk ahead of
+     * the old segment's tail. The checkpoint itself is written from the immutable state outside
+     * the lock.
+     */
+    public void checkpoint() {
+        checkpointLock.lock();
+        try {
+            InventoryState state;
+            writeLock.lock();
+            try {
+                state = current();
+                closeJournal();
+                journal = journals.open(files.segment(state.version() + 1), state.version(), durability);
+                recordsSinceCheckpoint = 0;
+                checkpointScheduled = false;
+            } finally { writeLock.unlock(); }
+
+            files.writeCheckpoint(state.version(), state.asMap());
+            files.deleteObsolete(state.version(), state.version() + 1);
+        } finally { checkpointLock.unlock(); }
+    }
+
+    /** Stops background checkpointing, flushes pending records and closes the journal. */
+    @Override public void close() {
+        checkpointer.shutdown();
+        try {
+            checkpointer.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writeLock.lock();
+        try {
+            closeJournal();
+        } finally { writeLock.unlock(); }
+    }
+
+    /** The published state, unless a change in it failed to reach disk. */
+    private InventoryState current() {
+        UncheckedIOException f = failure;
+        if (f != null) throw new UncheckedIOException("Journal failed; reopen to recover the durable state", f.getCause());
+        return current;
+    }
+
+    private void awaitDurable(Journal j, long seq) {
+        try {
+            j.awaitDurable(seq);
+        } catch (UncheckedIOException e) {
+            failure = e;
+            throw e;
+        }
+    }
+
+    /** Closes the current segment, marking the inventory failed if a buffered record was lost. */
+    private void closeJournal() {
+        try {
+            journal.close();
+        } catch (UncheckedIOException e) {
+            failure = e;
+            throw e;
+        }
+    }
+
+    private void publishLocked(InventoryState next) {
+        current = next;
+        if (++recordsSinceCheckpoint >= checkpointEvery && !checkpointScheduled && !checkpointer.isShutdown()) {
+            checkpointScheduled = true;
+            try {
+                checkpointer.execute(this::backgroundCheckpoint);
+            } catch (RejectedExecutionException e) {
+                checkpointScheduled = false; // closing
+            }
+        }
+    }
+
+    private void backgroundCheckpoint() {
+        try {
+            checkpoint();
+        } catch (RuntimeException e) {
+            logger.warn("Background checkpoint failed; will retry after more records", e);
+            writeLock.lock();
+            try {
+                checkpointScheduled = false;
+            } finally { writeLock.unlock(); }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.atm.audit;
+
+import com.example.atm.domain.Money;
+import com.example.atm.domain.Outcome;
+import com.example.atm.ports.OperationListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Audit trail of every CashMachine operation, written off the request path.
+ *
+ * The calling thread claims a slot in a preallocated ring of fixed-size binary records
+ * (op, outcome, amount, timestamp, latency, inventory version and up to {@value #MAX_NOTES}
+ * denomination/count pairs, plus how many further pairs were cut off) and publishes it with a
+ * release store; nothing is allocated or formatted there. A single background thread drains
+ * the ring in sequence order into rolling text files, one line per operation:
+ * <pre>
+ *   2026-10-18T09:15:02.123456789Z WITHDRAW SUCCESS amount=130 version=7 latencyNs=5100 notes=50x2,20x1,10x1
+ * </pre>
+ * When the ring is full a caller waits at most {@value #FULL_WAIT_NANOS}ns for the drainer, then
+ * drops its record and counts it in {@link #dropped()}, so a stalled disk never stalls a
+ * withdrawal. If the file cannot be written the drainer keeps running and discards records.
+ */
+public final class AuditTrail implements OperationListener, Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(AuditTrail.class);
+
+    public static final int DEFAULT_CAPACITY = 8192;
+    public static final long DEFAULT_MAX_FILE_BYTES = 16L << 20;
+    public static final int DEFAULT_MAX_FILES = 10;
+
+    static final int MAX_NOTES = 24;
+    static final long FULL_WAIT_NANOS = 1_000_000;
+    private static final long CLOSED = Long.MIN_VALUE; // high bit of claimed
+    private static final int HEADER = 0, TIMESTAMP = 1, VERSION = 2, LATENCY = 3, NOTES = 4;
+    private static final int RECORD_LONGS = NOTES + MAX_NOTES;
+    private static final int WITHDRAW = 0, DEPOSIT = 1;
+    private static final Outcome[] OUTCOMES = Outcome.values();
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final long[] records;
+    private final AtomicLongArray published; // slot -> sequence + 1 of the record it holds
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong(); // next sequence, | CLOSED once closed
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long drained;
+
+    private final long epochNanosBase = epochNanos(Instant.now());
+    private final long nanoTimeBase = System.nanoTime();
+
+    private final RollingAuditFile file;
+    private final Thread drainer;
+    private final StringBuilder line = new StringBuilder(160); // drainer only
+
+    public AuditTrail(Path directory) {
+        this(directory, DEFAULT_CAPACITY, DEFAULT_MAX_FILE_BYTES, DEFAULT_MAX_FILES);
+    }
+
+    /** {@code capacity} is rounded up to a power of two. */
+    public AuditTrail(Path directory, int capacity, long maxFileBytes, int maxFiles) {
+        if (capacity <= 0 || capacity > 1 << 24) throw new IllegalArgumentException("capacity must be in 1.." + (1 << 24));
+        int slots = Integer.highestOneBit(capacity);
+        if (slots < capacity) slots <<= 1;
+        this.file = new RollingAuditFile(directory, maxFileBytes, maxFiles);
+        this.records = new long[slots * RECORD_LONGS];
+        this.published = new AtomicLongArray(slots);
+        this.mask = slots - 1;
+        this.drainer = new Thread(this::drainLoop, "audit-drainer");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+    }
+
+    @Override public void withdrawn(int amount, Money notes, Outcome outcome, long startNanos, long endNanos, long version) {
+        append(WITHDRAW, amount, notes, outcome, startNanos, endNanos, version);
+    }
+
+    @Override public void deposited(Money money, Outcome outcome, long startNanos, long endNanos, long version) {
+        append(DEPOSIT, money.total(), money, outcome, startNanos, endNanos, version);
+    }
+
+    /** Records accepted so far. */
+    public long claimed() { return claimed.get() & ~CLOSED; }
+
+    /** Records handed to the file so far. */
+    public long drained() { return drained; }
+
+    /** Records dropped because the ring stayed full. */
+    public long dropped() { return dropped.get(); }
+
+    /** Drains everything already recorded, flushes and closes the file; later records are ignored. */
+    @Override public void close() {
+        if (claimed.getAndUpdate(c -> c | CLOSED) < 0) return;
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void append(int op, int amount, Money notes, Outcome outcome, long startNanos, long endNanos, long version) {
+        long seq = claim();
+        if (seq < 0) return;
+        int base = (int) (seq & mask) * RECORD_LONGS;
+        int pairs = 0, truncated = 0;
+        if (notes != null) {
+            for (int n = Math.min(notes.size(), MAX_NOTES); pairs < n; pairs++) {
+                records[base + NOTES + pairs] = (long) notes.denominationAt(pairs) << 32 | (notes.countAt(pairs) & 0xFFFFFFFFL);
+            }
+            truncated = Math.min(notes.size() - pairs, 0xFF);
+        }
+        records[base + HEADER] = (long) op << 56 | (long) outcome.ordinal() << 48 | (long) pairs << 40
+                | (long) truncated << 32 | (amount & 0xFFFFFFFFL);
+        records[base + TIMESTAMP] = epochNanosBase + (endNanos - nanoTimeBase);
+        records[base + VERSION] = version;
+        records[base + LATENCY] = endNanos - startNanos;
+        published.setRelease((int) (seq & mask), seq + 1);
+    }
+
+    /**
+     * Claims the next free slot, or returns -1 if closed or if the ring stayed full for
+     * {@value #FULL_WAIT_NANOS}ns. Claiming fails once {@link #close} has set the closed bit, so
+     * the drainer never exits with a claimed record still to come.
+     */
+    private long claim() {
+        long deadline = 0;
+        while (true) {
+            long seq = claimed.get();
+            if (seq < 0) return -1;
+            if (seq - drained <= mask) {
+                if (claimed.compareAndSet(seq, seq + 1)) return seq;
+                continue;
+            }
+            long now = System.nanoTime();
+            if (deadline == 0) {
+                deadline = now + FULL_WAIT_NANOS;
+            } else if (now - deadline >= 0) {
+                dropped.incrementAndGet();
+                return -1;
+            }
+            LockSupport.unpark(drainer);
+            Thread.onSpinWait();
+        }
+    }
+
+    private void drainLoop() {
+        boolean failed = false;
+        while (true) {
+            long seq = drained;
+            int slot = (int) (seq & mask);
+            if (published.getAcquire(slot) == seq + 1) {
+                if (!failed) {
+                    try {
+                        file.write(format(slot * RECORD_LONGS));
+                    } catch (IOException | RuntimeException e) {
+                        logger.error("Audit file write failed; further audit records are discarded", e);
+                        failed = true;
+                    }
+                }
+                drained = seq + 1;
+                continue;
+            }
+            if (!failed) {
+                try {
+                    file.flush();
+                } catch (IOException | RuntimeException e) {
+                    logger.error("Audit file flush failed; further audit records are discarded", e);
+                    failed = true;
+                }
+            }
+            if (claimed.get() == (seq | CLOSED)) break;
+            LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        }
+        if (dropped.get() > 0) logger.warn("{} audit records were dropped because the ring was full", dropped.get());
+        try {
+            file.close();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Cannot close audit file", e);
+        }
+    }
+
+    private CharSequence format(int base) {
+        long header = records[base + HEADER];
+        int pairs = (int) (header >>> 40) & 0xFF;
+        int truncated = (int) (header >>> 32) & 0xFF;
+        long ts = records[base + TIMESTAMP];
+        line.setLength(0);
+        line.append(Instant.ofEpochSecond(Math.floorDiv(ts, 1_000_000_000L), Math.floorMod(ts, 1_000_000_000L)))
+            .append(' ').append((header >>> 56) == WITHDRAW ? "WITHDRAW" : "DEPOSIT")
+            .append(' ').append(OUTCOMES[(int) (header >>> 48) & 0xFF])
+            .append(" amount=").append((int) header)
+            .append(" version=").append(records[base + VERSION])
+            .append(" latencyNs=").append(records[base + LATENCY]);
+        if (pairs > 0) {
+            line.append(" notes=");
+            for (int i = 0; i < pairs; i++) {
+                long p = records[base + NOTES + i];
+                if (i > 0) line.append(',');
+                line.append((int) (p >>> 32)).append('x').append((int) p);
+            }
+        }
+        if (truncated > 0) line.append(" notesTruncated=").append(truncated);
+        return line.append('\n');
+    }
+
+    private static long epochNanos(Instant t) {
+        return t.getEpochSecond() * 1_000_000_000L + t.getNano();
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.atm.audit;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Text files {@code audit-<n>.log} in one directory; a new file is started once the current one
+ * would exceed {@code maxBytes}, and only the newest {@code maxFiles} are kept. Numbering
+ * continues after existing files, so a restart never overwrites earlier audit data.
+ * Not thread-safe: only the drainer thread writes.
+ */
+final class RollingAuditFile {
+    private static final String PREFIX = "audit-";
+    private static final String SUFFIX = ".log";
+
+    private final Path dir;
+    private final long maxBytes;
+    private final int maxFiles;
+    private BufferedWriter out;
+    private long index;
+    private long bytes;
+
+    RollingAuditFile(Path dir, long maxBytes, int maxFiles) {
+        if (maxBytes <= 0) throw new IllegalArgumentException("maxBytes must be positive");
+        if (maxFiles <= 0) throw new IllegalArgumentException("maxFiles must be positive");
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        this.maxFiles = maxFiles;
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create audit directory " + dir, e);
+        }
+        List<Long> existing = indexes();
+        this.index = existing.isEmpty() ? 0 : existing.get(existing.size() - 1);
+        open();
+    }
+
+    Path file(long index) {
+        return dir.resolve(String.format("%s%06d%s", PREFIX, index, SUFFIX));
+    }
+
+    /** Appends one line ({@code line} must be ASCII and end with a newline). */
+    void write(CharSequence line) throws IOException {
+        if (bytes > 0 && bytes + line.length() > maxBytes) roll();
+        out.append(line);
+        bytes += line.length();
+    }
+
+    void flush() throws IOException {
+        out.flush();
+    }
+
+    void close() throws IOException {
+        out.close();
+    }
+
+    private void roll() throws IOException {
+        out.close();
+        open();
+        List<Long> all = indexes();
+        for (int i = 0; i < all.size() - maxFiles; i++) Files.deleteIfExists(file(all.get(i)));
+    }
+
+    private void open() {
+        index++;
+        Path f = file(index);
+        try {
+            out = Files.newBufferedWriter(f, StandardCharsets.US_ASCII, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            bytes = Files.size(f);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open audit file " + f, e);
+        }
+    }
+
+    private List<Long> indexes() {
+        List<Long> result = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.map(p -> p.getFileName().toString())
+                 .filter(n -> n.startsWith(PREFIX) && n.endsWith(SUFFIX))
+                 .forEach(n -> {
+                     try {
+                         result.add(Long.parseLong(n.substring(PREFIX.length(), n.length() - SUFFIX.length())));
+                     } catch (NumberFormatException ignored) {
+                         // not ours
+                     }
+                 });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list audit directory " + dir, e);
+        }
+        result.sort(null);
+        return result;
+    }
+}
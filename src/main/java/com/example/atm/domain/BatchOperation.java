@@ -0,0 +1,35 @@
+package com.example.atm.domain;
+
+import java.util.Objects;
+
+/** One entry of a batch: a withdrawal of an amount or a deposit of notes. */
+public final class BatchOperation {
+    public enum Type { WITHDRAW, DEPOSIT }
+
+    private final Type type;
+    private final int amount;
+    private final Money deposit;
+
+    private BatchOperation(Type type, int amount, Money deposit) {
+        this.type = type;
+        this.amount = amount;
+        this.deposit = deposit;
+    }
+
+    public static BatchOperation withdraw(int amount) {
+        return new BatchOperation(Type.WITHDRAW, amount, null);
+    }
+
+    public static BatchOperation deposit(Money money) {
+        Objects.requireNonNull(money, "money");
+        return new BatchOperation(Type.DEPOSIT, money.total(), money);
+    }
+
+    public Type type() { return type; }
+    /** Requested amount for withdrawals, deposited total for deposits. */
+    public int amount() { return amount; }
+    /** Deposited notes; null for withdrawals. */
+    public Money deposit() { return deposit; }
+
+    @Override public String toString() { return "BatchOperation{" + type + ", amount=" + amount + '}'; }
+}
@@ -0,0 +1,35 @@
+package com.example.atm.domain;
+
+import java.util.Objects;
+
+/**
+ * Outcome of one batch entry: the dispensed (or deposited) notes, or the domain error
+ * ({@code Errors.*}) the same call would have thrown on its own.
+ */
+public final class BatchResult {
+    private final Money money;
+    private final RuntimeException error;
+
+    private BatchResult(Money money, RuntimeException error) {
+        this.money = money;
+        this.error = error;
+    }
+
+    public static BatchResult success(Money money) {
+        return new BatchResult(Objects.requireNonNull(money, "money"), null);
+    }
+
+    public static BatchResult failure(RuntimeException error) {
+        return new BatchResult(null, Objects.requireNonNull(error, "error"));
+    }
+
+    public boolean isSuccess() { return error == null; }
+    /** Dispensed notes for withdrawals, deposited notes for deposits; null on failure. */
+    public Money money() { return money; }
+    /** The domain error; null on success. */
+    public RuntimeException error() { return error; }
+
+    @Override public String toString() {
+        return isSuccess() ? "BatchResult{ok, " + money + '}' : "BatchResult{failed, " + error + '}';
+    }
+}
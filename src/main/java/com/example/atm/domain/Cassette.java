@@ -0,0 +1,54 @@
+package com.example.atm.domain;
+
+import java.util.Objects;
+
+/**
+ * One physical cassette: notes of a single currency and denomination, up to {@code capacity}.
+ * {@code wear} counts the notes picked from it so far. Used both to configure a
+ * {@code MultiCurrencyInventory} and as its read-only snapshot of each cassette.
+ */
+public final class Cassette {
+    private final String id;
+    private final String currency;
+    private final int denomination;
+    private final int count;
+    private final int capacity;
+    private final long wear;
+
+    public Cassette(String id, String currency, int denomination, int count, int capacity) {
+        this(id, currency, denomination, count, capacity, 0);
+    }
+
+    public Cassette(String id, String currency, int denomination, int count, int capacity, long wear) {
+        this.id = Objects.requireNonNull(id, "id");
+        this.currency = Objects.requireNonNull(currency, "currency");
+        if (denomination <= 0) throw new IllegalArgumentException("Invalid denom: " + denomination);
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive: " + id);
+        if (count < 0 || count > capacity) throw new IllegalArgumentException("Count " + count + " outside 0.." + capacity + ": " + id);
+        if (wear < 0) throw new IllegalArgumentException("Negative wear: " + id);
+        this.denomination = denomination;
+        this.count = count;
+        this.capacity = capacity;
+        this.wear = wear;
+    }
+
+    public String id() { return id; }
+    public String currency() { return currency; }
+    public int denomination() { return denomination; }
+    public int count() { return count; }
+    public int capacity() { return capacity; }
+    public long wear() { return wear; }
+
+    @Override public boolean equals(Object o) {
+        if (!(o instanceof Cassette)) return false;
+        Cassette c = (Cassette) o;
+        return id.equals(c.id) && currency.equals(c.currency) && denomination == c.denomination
+                && count == c.count && capacity == c.capacity && wear == c.wear;
+    }
+
+    @Override public int hashCode() { return Objects.hash(id, currency, denomination, count, capacity, wear); }
+
+    @Override public String toString() {
+        return "Cassette{" + id + ", " + currency + ' ' + denomination + " x" + count + '/' + capacity + ", wear=" + wear + '}';
+    }
+}
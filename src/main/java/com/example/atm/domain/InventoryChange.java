@@ -0,0 +1,59 @@
+package com.example.atm.domain;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * What changed in an inventory between two versions. Coalesced deliveries span several
+ * mutations, so {@code version() - previousVersion()} may be more than one.
+ */
+public final class InventoryChange {
+    private final InventoryState before;
+    private final InventoryState after;
+    private Map<Integer, Integer> deltas; // built lazily; racing builds produce equal maps
+
+    public InventoryChange(InventoryState before, InventoryState after) {
+        this.before = Objects.requireNonNull(before, "before");
+        this.after = Objects.requireNonNull(after, "after");
+    }
+
+    public long previousVersion() { return before.version(); }
+    public long version() { return after.version(); }
+
+    /** Counts as of {@link #version()}. */
+    public InventoryState state() { return after; }
+
+    /** Net change in notes of a denomination (negative for removals). */
+    public int delta(int denomination) {
+        return after.count(denomination) - before.count(denomination);
+    }
+
+    /** Non-zero net changes by denomination, largest denomination first. */
+    public Map<Integer, Integer> deltas() {
+        Map<Integer, Integer> d = deltas;
+        if (d == null) {
+            Map<Integer, Integer> m = new LinkedHashMap<>();
+            int i = 0, j = 0;
+            while (i < before.size() || j < after.size()) {
+                int a = i < before.size() ? before.denominationAt(i) : 0;
+                int b = j < after.size() ? after.denominationAt(j) : 0;
+                if (a == b) {
+                    int delta = after.countAt(j++) - before.countAt(i++);
+                    if (delta != 0) m.put(a, delta);
+                } else if (a > b) {
+                    m.put(a, -before.countAt(i++));
+                } else {
+                    m.put(b, after.countAt(j++));
+                }
+            }
+            deltas = d = Collections.unmodifiableMap(m);
+        }
+        return d;
+    }
+
+    @Override public String toString() {
+        return "InventoryChange{" + previousVersion() + "->" + version() + ", " + deltas() + '}';
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.atm.domain;
+
+import java.util.*;
+
+/**
+ * Immutable, versioned view of an inventory: counts per denomination (DESC) with a precomputed
+ * balance. A new state is derived for every mutation, so a reader holding one never sees a
+ * half-applied change. Versions increase by one per mutation and can be used for cache validation.
+ */
+public final class InventoryState {
+    private final long version;
+    private final int[] denoms; // DESC, only denominations with count > 0
+    private final int[] counts;
+    private final int balance;
+    private Map<Integer, Integer> view; // built lazily; racing builds produce equal maps
+
+    private InventoryState(long version, int[] denoms, int[] counts) {
+        this.version = version;
+        this.denoms = denoms;
+        this.counts = counts;
+        int total = 0;
+        for (int i = 0; i < denoms.length; i++) {
+            total = Math.addExact(total, Math.multiplyExact(denoms[i], counts[i]));
+        }
+        this.balance = total;
+    }
+
+    /** Builds a state from a denomination → count map; zero counts are dropped. */
+    public static InventoryState of(long version, Map<Integer, Integer> counts) {
+        Objects.requireNonNull(counts, "counts");
+        NavigableMap<Integer, Integer> sorted = new TreeMap<>(Comparator.reverseOrder());
+        counts.forEach((d,c) -> {
+            if (d == null || d <= 0) throw new IllegalArgumentException("Invalid denom: " + d);
+            if (c == null || c < 0) throw new IllegalArgumentException("Negative count for denom: " + d);
+            if (c > 0) sorted.put(d, c);
+        });
+        return fromSorted(version, sorted);
+    }
+
+    public long version() { return version; }
+    public int balance() { return balance; }
+
+    /** Number of stocked denominations. */
+    public int size() { return denoms.length; }
+    /** i-th stocked denomination, largest first. */
+    public int denominationAt(int i) { return denoms[i]; }
+    /** Count for the i-th stocked denomination. */
+    public int countAt(int i) { return counts[i]; }
+
+    /** Notes held for a denomination (0 if none). */
+    public int count(int denomination) {
+        for (int i = 0; i < denoms.length; i++) {
+            if (denoms[i] == denomination) return counts[i];
+        }
+        return 0;
+    }
+
+    /** Stocked denominations, largest first. */
+    public Set<Integer> denominations() {
+        Set<Integer> result = new LinkedHashSet<>();
+        for (int d : denoms) result.add(d);
+        return result;
+    }
+
+    /** Unmodifiable denomination → count view. */
+    public Map<Integer, Integer> asMap() {
+        Map<Integer, Integer> v = view;
+        if (v == null) {
+            Map<Integer, Integer> m = new LinkedHashMap<>();
+            for (int i = 0; i < denoms.length; i++) m.put(denoms[i], counts[i]);
+            view = v = Collections.unmodifiableMap(m);
+        }
+        return v;
+    }
+
+    /** Next state with the deposit applied. */
+    public InventoryState plus(Map<Integer, Integer> deposit) {
+        Objects.requireNonNull(deposit, "deposit");
+        NavigableMap<Integer, Integer> next = toSortedMap();
+        deposit.forEach((d,c) -> {
+            if (d == null || d <= 0) throw new IllegalArgumentException("Invalid denom: " + d);
+            if (c == null || c < 0) throw new IllegalArgumentException("Negative deposit for denom: " + d);
+            if (c > 0) next.merge(d, c, Math::addExact);
+        });
+        return fromSorted(version + 1, next);
+    }
+
+    /** Next state with the notes taken out; throws IllegalStateException if any denomination is short. */
+    public InventoryState minus(Map<Integer, Integer> take) {
+        Objects.requireNonNull(take, "take");
+        NavigableMap<Integer, Integer> next = toSortedMap();
+        for (Map.Entry<Integer, Integer> e : take.entrySet()) {
+            if (e.getValue() < 0) throw new IllegalArgumentException("Negative remove");
+            if (e.getValue() > next.getOrDefault(e.getKey(), 0)) throw new IllegalStateException("Not enough " + e.getKey() + " notes");
+        }
+        take.forEach((d,c) -> {
+            if (c == 0) return;
+            int remaining = next.get(d) - c;
+            if (remaining == 0) next.remove(d); else next.put(d, remaining);
+        });
+        return fromSorted(version + 1, next);
+    }
+
+    private NavigableMap<Integer, Integer> toSortedMap() {
+        NavigableMap<Integer, Integer> m = new TreeMap<>(Comparator.reverseOrder());
+        for (int i = 0; i < denoms.length; i++) m.put(denoms[i], counts[i]);
+        return m;
+    }
+
+    private static InventoryState fromSorted(long version, NavigableMap<Integer, Integer> sorted) {
+        int[] d = new int[sorted.size()];
+        int[] c = new int[sorted.size()];
+        int i = 0;
+        for (Map.Entry<Integer, Integer> e : sorted.entrySet()) {
+            d[i] = e.getKey();
+            c[i++] = e.getValue();
+        }
+        return new InventoryState(version, d, c);
+    }
+
+    @Override public String toString() { return "InventoryState{version=" + version + ", balance=" + balance + ", notes=" + asMap() + '}'; }
+}
@@ -1,33 +1,173 @@
 package com.example.atm.domain;
 
+import com.example.atm.ports.Inventory;
+
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
 
-
+/**
+ * Immutable bundle of notes: denominations (DESC) and counts in two primitive arrays, with the
+ * total computed once. Zero counts are dropped, so equal bundles are {@code equals} regardless
+ * of how they were built. {@link #asMap()} is a lazily built compatibility view.
+ */
 public final class Money {
-    private final Map<Integer, Integer> notes; // immutable
+    private static final int[] NONE = new int[0];
+    private static final Money EMPTY = new Money(NONE, NONE);
+
+    private final int[] denoms; // DESC, only denominations with count > 0
+    private final int[] counts;
+    private final int total;
+    private Map<Integer, Integer> view; // built lazily; racing builds produce equal maps
 
     public Money(Map<Integer, Integer> notes) {
         Objects.requireNonNull(notes, "notes");
+        int[] d = new int[notes.size()];
+        int[] c = new int[notes.size()];
+        int n = 0;
+        for (Map.Entry<Integer, Integer> e : notes.entrySet()) {
+            if (e.getKey() == null || e.getKey() <= 0) throw new IllegalArgumentException("Invalid denom: " + e.getKey());
+            if (e.getValue() == null || e.getValue() < 0) throw new IllegalArgumentException("Negative count for denom: " + e.getKey());
+            if (e.getValue() == 0) continue;
+            // insertion sort: note sets are small
+            int i = n++;
+            while (i > 0 && d[i - 1] < e.getKey()) {
+                d[i] = d[i - 1];
+                c[i] = c[i - 1];
+                i--;
+            }
+            d[i] = e.getKey();
+            c[i] = e.getValue();
+        }
+        this.denoms = n == d.length ? d : Arrays.copyOf(d, n);
+        this.counts = n == c.length ? c : Arrays.copyOf(c, n);
+        this.total = sum(denoms, counts);
+    }
+
+    /** Trusted arrays: DESC, no zero counts, not shared. */
+    private Money(int[] denoms, int[] counts) {
+        this.denoms = denoms;
+        this.counts = counts;
+        this.total = sum(denoms, counts);
+    }
 
-        this.notes = Collections.unmodifiableMap(notes.entrySet().stream()
-                .peek(e -> {
-                    if (e.getKey() == null || e.getKey() <= 0) throw new IllegalArgumentException("Invalid denom: " + e.getKey());
-                    if (e.getValue() == null || e.getValue() < 0) throw new IllegalArgumentException("Negative count for denom: " + e.getKey());
-                })
-                .collect(java.util.stream.Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)));
+    public static Money empty() { return EMPTY; }
+
+    /** {@code count} notes of one denomination. */
+    public static Money of(int denomination, int count) {
+        if (denomination <= 0) throw new IllegalArgumentException("Invalid denom: " + denomination);
+        if (count < 0) throw new IllegalArgumentException("Negative count for denom: " + denomination);
+        return count == 0 ? EMPTY : new Money(new int[] { denomination }, new int[] { count });
     }
 
+    /** Unmodifiable denomination → count view, largest denomination first. */
     public Map<Integer, Integer> asMap() {
-        return notes;
+        Map<Integer, Integer> v = view;
+        if (v == null) {
+            Map<Integer, Integer> m = new LinkedHashMap<>();
+            for (int i = 0; i < denoms.length; i++) m.put(denoms[i], counts[i]);
+            view = v = Collections.unmodifiableMap(m);
+        }
+        return v;
     }
 
     /** Calculates the total amount. */
     public int total() {
-        return notes.entrySet().stream().mapToInt(e -> e.getKey() * e.getValue()).sum();
+        return total;
     }
 
-    @Override public String toString() { return "Money" + notes; }
-}
+    /** Number of distinct denominations. */
+    public int size() { return denoms.length; }
+    /** i-th denomination, largest first. */
+    public int denominationAt(int i) { return denoms[i]; }
+    /** Count for the i-th denomination. */
+    public int countAt(int i) { return counts[i]; }
+
+    /** Notes of a denomination (0 if none). */
+    public int count(int denomination) {
+        for (int i = 0; i < denoms.length; i++) {
+            if (denoms[i] == denomination) return counts[i];
+        }
+        return 0;
+    }
+
+    public boolean isEmpty() { return denoms.length == 0; }
+
+    /** Both bundles together. */
+    public Money plus(Money other) {
+        Objects.requireNonNull(other, "other");
+        if (other.isEmpty()) return this;
+        if (isEmpty()) return other;
+        int[] d = new int[denoms.length + other.denoms.length];
+        int[] c = new int[d.length];
+        int i = 0, j = 0, n = 0;
+        while (i < denoms.length || j < other.denoms.length) {
+            int a = i < denoms.length ? denoms[i] : 0;
+            int b = j < other.denoms.length ? other.denoms[j] : 0;
+            if (a == b) {
+                d[n] = a;
+                c[n++] = Math.addExact(counts[i++], other.counts[j++]);
+            } else if (a > b) {
+                d[n] = a;
+                c[n++] = counts[i++];
+            } else {
+                d[n] = b;
+                c[n++] = other.counts[j++];
+            }
+        }
+        return new Money(n == d.length ? d : Arrays.copyOf(d, n), n == c.length ? c : Arrays.copyOf(c, n));
+    }
+
+    /** This bundle without {@code other}; throws IllegalArgumentException if a denomination is short. */
+    public Money minus(Money other) {
+        Objects.requireNonNull(other, "other");
+        if (other.isEmpty()) return this;
+        int[] d = new int[denoms.length];
+        int[] c = new int[denoms.length];
+        int j = 0, n = 0;
+        for (int i = 0; i < denoms.length; i++) {
+            int left = counts[i];
+            if (j < other.denoms.length && other.denoms[j] == denoms[i]) left -= other.counts[j++];
+            else if (j < other.denoms.length && other.denoms[j] > denoms[i]) break;
+            if (left < 0) throw new IllegalArgumentException("Not enough " + denoms[i] + " notes");
+            if (left > 0) {
+                d[n] = denoms[i];
+                c[n++] = left;
+            }
+        }
+        if (j < other.denoms.length) throw new IllegalArgumentException("Not enough " + other.denoms[j] + " notes");
+        return new Money(Arrays.copyOf(d, n), Arrays.copyOf(c, n));
+    }
+
+    /** True if {@code inventory} currently holds at least these notes. */
+    public boolean fitsIn(Inventory inventory) {
+        Objects.requireNonNull(inventory, "inventory");
+        for (int i = 0; i < denoms.length; i++) {
+            if (inventory.count(denoms[i]) < counts[i]) return false;
+        }
+        return true;
+    }
+
+    @Override public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Money)) return false;
+        Money other = (Money) o;
+        return total == other.total && Arrays.equals(denoms, other.denoms) && Arrays.equals(counts, other.counts);
+    }
+
+    @Override public int hashCode() {
+        return 31 * Arrays.hashCode(denoms) + Arrays.hashCode(counts);
+    }
 
+    @Override public String toString() { return "Money" + asMap(); }
+
+    private static int sum(int[] denoms, int[] counts) {
+        int total = 0;
+        for (int i = 0; i < denoms.length; i++) {
+            total = Math.addExact(total, Math.multiplyExact(denoms[i], counts[i]));
+        }
+        return total;
+    }
+}
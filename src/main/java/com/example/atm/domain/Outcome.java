@@ -0,0 +1,25 @@
+package com.example.atm.domain;
+
+import com.example.atm.errors.Errors;
+
+/** How a CashMachine operation ended. */
+public enum Outcome {
+    SUCCESS,
+    INVALID_AMOUNT,
+    INSUFFICIENT_FUNDS,
+    UNAVAILABLE_DENOMINATIONS,
+    /** Inventory changed under a non-atomic dispense; the caller may retry. */
+    CONCURRENT_CHANGE,
+    /** Anything else, e.g. an I/O failure in a persistent inventory. */
+    ERROR;
+
+    /** Classifies an exception thrown by a CashMachine operation. */
+    public static Outcome of(Throwable error) {
+        if (error == null) return SUCCESS;
+        if (error instanceof Errors.InvalidAmountException) return INVALID_AMOUNT;
+        if (error instanceof Errors.InsufficientFundsException) return INSUFFICIENT_FUNDS;
+        if (error instanceof Errors.InventoryChangedException) return CONCURRENT_CHANGE;
+        if (error instanceof Errors.UnavailableDenominationsException) return UNAVAILABLE_DENOMINATIONS;
+        return ERROR;
+    }
+}
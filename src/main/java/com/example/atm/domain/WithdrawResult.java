@@ -0,0 +1,97 @@
+package com.example.atm.domain;
+
+import com.example.atm.errors.Errors;
+
+import java.util.Objects;
+
+/**
+ * Result of a withdrawal attempt without exceptions: either the dispensed notes or the reason
+ * it was rejected. Rejections are plain values, so high-rejection traffic pays no stack-trace
+ * cost; {@link Failure#toException()} converts to the matching {@code Errors} type when needed.
+ */
+public sealed interface WithdrawResult permits WithdrawResult.Success, WithdrawResult.Failure {
+
+    Failure INSUFFICIENT_FUNDS = new Failure(Outcome.INSUFFICIENT_FUNDS, "ATM balance is insufficient");
+    Failure INVENTORY_CHANGED = new Failure(Outcome.CONCURRENT_CHANGE, "Inventory changed; please try again");
+
+    static Success success(Money notes) {
+        return new Success(notes);
+    }
+
+    /** {@code reason} is one of the rejection outcomes (anything but SUCCESS and ERROR). */
+    static Failure failure(Outcome reason, String message) {
+        return new Failure(reason, message);
+    }
+
+    static Failure unavailable(int amount) {
+        return new Failure(Outcome.UNAVAILABLE_DENOMINATIONS, "Cannot form " + amount + " with available notes");
+    }
+
+    boolean isSuccess();
+
+    Outcome outcome();
+
+    /** The dispensed notes, or the failure as its {@code Errors} exception. */
+    Money orElseThrow();
+
+    final class Success implements WithdrawResult {
+        private final Money notes;
+
+        private Success(Money notes) {
+            this.notes = Objects.requireNonNull(notes, "notes");
+        }
+
+        public Money notes() { return notes; }
+
+        @Override public boolean isSuccess() { return true; }
+        @Override public Outcome outcome() { return Outcome.SUCCESS; }
+        @Override public Money orElseThrow() { return notes; }
+
+        @Override public boolean equals(Object o) {
+            return o instanceof Success && notes.equals(((Success) o).notes);
+        }
+
+        @Override public int hashCode() { return notes.hashCode(); }
+
+        @Override public String toString() { return "Success{" + notes + '}'; }
+    }
+
+    final class Failure implements WithdrawResult {
+        private final Outcome reason;
+        private final String message;
+
+        private Failure(Outcome reason, String message) {
+            Objects.requireNonNull(reason, "reason");
+            if (reason == Outcome.SUCCESS || reason == Outcome.ERROR) {
+                throw new IllegalArgumentException("Not a rejection outcome: " + reason);
+            }
+            this.reason = reason;
+            this.message = Objects.requireNonNull(message, "message");
+        }
+
+        public Outcome reason() { return reason; }
+        public String message() { return message; }
+
+        @Override public boolean isSuccess() { return false; }
+        @Override public Outcome outcome() { return reason; }
+        @Override public Money orElseThrow() { throw toException(); }
+
+        /** The exception the throwing API raises for this rejection. */
+        public RuntimeException toException() {
+            switch (reason) {
+                case INVALID_AMOUNT: return new Errors.InvalidAmountException(message);
+                case INSUFFICIENT_FUNDS: return new Errors.InsufficientFundsException(message);
+                case CONCURRENT_CHANGE: return new Errors.InventoryChangedException(message);
+                default: return new Errors.UnavailableDenominationsException(message);
+            }
+        }
+
+        @Override public boolean equals(Object o) {
+            return o instanceof Failure && reason == ((Failure) o).reason && message.equals(((Failure) o).message);
+        }
+
+        @Override public int hashCode() { return 31 * reason.hashCode() + message.hashCode(); }
+
+        @Override public String toString() { return "Failure{" + reason + ", " + message + '}'; }
+    }
+}
@@ -14,5 +14,8 @@ public final class Errors {
     public static class UnavailableDenominationsException extends RuntimeException {
         public UnavailableDenominationsException(String msg) { super(msg); }
     }
+    /** The inventory changed between planning and removal; retrying may succeed. */
+    public static class InventoryChangedException extends UnavailableDenominationsException {
+        public InventoryChangedException(String msg) { super(msg); }
+    }
 }
-
@@ -0,0 +1,103 @@
+package com.example.atm.fleet;
+
+import com.example.atm.domain.InventoryState;
+import com.example.atm.domain.Money;
+import com.example.atm.domain.WithdrawResult;
+import com.example.atm.service.CashMachine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A fleet of cash machines keyed by ATM id.
+ *
+ * Each machine keeps its own inventory lock, and the registry is a {@link ConcurrentHashMap},
+ * so operations on different machines never contend. Fleet-wide aggregates use the map's
+ * parallel bulk operations, which split the table across the common fork-join pool once it
+ * holds more than {@link #PARALLELISM_THRESHOLD} machines. Each machine contributes one
+ * consistent reading, but machines are read at slightly different moments.
+ */
+public final class Fleet {
+    /** Fleets smaller than this are aggregated on the calling thread. */
+    public static final long PARALLELISM_THRESHOLD = 256;
+
+    private final ConcurrentHashMap<String, CashMachine> machines = new ConcurrentHashMap<>();
+
+    /** Adds a machine; throws if the id is already taken. */
+    public void register(String atmId, CashMachine machine) {
+        Objects.requireNonNull(atmId, "atmId");
+        Objects.requireNonNull(machine, "machine");
+        if (machines.putIfAbsent(atmId, machine) != null) {
+            throw new IllegalArgumentException("ATM already registered: " + atmId);
+        }
+    }
+
+    /** Removes a machine; returns it, or null if unknown. */
+    public CashMachine deregister(String atmId) {
+        return machines.remove(atmId);
+    }
+
+    /** The machine for an id; throws IllegalArgumentException if unknown. */
+    public CashMachine machine(String atmId) {
+        CashMachine machine = machines.get(atmId);
+        if (machine == null) throw new IllegalArgumentException("Unknown ATM: " + atmId);
+        return machine;
+    }
+
+    public WithdrawResult withdraw(String atmId, int amount) {
+        return machine(atmId).tryWithdraw(amount);
+    }
+
+    public void deposit(String atmId, Money money) {
+        machine(atmId).deposit(money);
+    }
+
+    public int size() { return machines.size(); }
+
+    public Set<String> atmIds() { return Collections.unmodifiableSet(machines.keySet()); }
+
+    /** Cash across the fleet. */
+    public long totalCash() {
+        return machines.reduceValuesToLong(PARALLELISM_THRESHOLD, CashMachine::balance, 0L, Long::sum);
+    }
+
+    /** Notes held across the fleet per denomination, smallest denomination first. */
+    public Map<Integer, Long> denominationTotals() {
+        Map<Integer, Long> totals = machines.reduceValues(PARALLELISM_THRESHOLD, Fleet::counts, Fleet::merge);
+        return totals == null ? Map.of() : Collections.unmodifiableMap(new TreeMap<>(totals));
+    }
+
+    /** Ids of machines whose balance is below {@code threshold}, sorted. */
+    public List<String> belowThreshold(int threshold) {
+        ConcurrentLinkedQueue<String> hits = new ConcurrentLinkedQueue<>();
+        machines.forEach(PARALLELISM_THRESHOLD, (id, machine) -> {
+            if (machine.balance() < threshold) hits.add(id);
+        });
+        List<String> result = new ArrayList<>(hits);
+        Collections.sort(result);
+        return result;
+    }
+
+    private static Map<Integer, Long> counts(CashMachine machine) {
+        InventoryState state = machine.inventoryState();
+        Map<Integer, Long> counts = new HashMap<>();
+        for (int i = 0; i < state.size(); i++) counts.put(state.denominationAt(i), (long) state.countAt(i));
+        return counts;
+    }
+
+    /** Merges the smaller map into the larger; both are private to this reduction. */
+    private static Map<Integer, Long> merge(Map<Integer, Long> a, Map<Integer, Long> b) {
+        Map<Integer, Long> into = a.size() >= b.size() ? a : b;
+        Map<Integer, Long> from = into == a ? b : a;
+        from.forEach((d, c) -> into.merge(d, c, Long::sum));
+        return into;
+    }
+}
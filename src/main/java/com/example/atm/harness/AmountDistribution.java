@@ -0,0 +1,45 @@
+package com.example.atm.harness;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/** Source of synthetic withdrawal amounts. */
+public interface AmountDistribution {
+    int next(Random random);
+
+    /** Uniform over {@code min, min + step, ..., max}. */
+    static AmountDistribution uniform(int min, int max, int step) {
+        if (step <= 0 || min > max) throw new IllegalArgumentException("Need step > 0 and min <= max");
+        int buckets = (max - min) / step + 1;
+        return random -> min + step * random.nextInt(buckets);
+    }
+
+    /** One of {@code amounts}, picked with probability proportional to its weight. */
+    static AmountDistribution weighted(int[] amounts, double[] weights) {
+        if (amounts.length == 0 || amounts.length != weights.length) {
+            throw new IllegalArgumentException("Need one weight per amount");
+        }
+        int[] values = amounts.clone();
+        double[] cumulative = new double[weights.length];
+        double sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] < 0) throw new IllegalArgumentException("Negative weight for " + amounts[i]);
+            cumulative[i] = sum += weights[i];
+        }
+        double total = sum;
+        return random -> {
+            int i = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+            return values[Math.min(i < 0 ? -i - 1 : i, values.length - 1)];
+        };
+    }
+
+    /** Log-normal (many small, few large withdrawals) rounded to {@code step} and capped at {@code max}. */
+    static AmountDistribution logNormal(double median, double sigma, int step, int max) {
+        if (median <= 0 || sigma < 0 || step <= 0 || max < step) throw new IllegalArgumentException("Bad log-normal parameters");
+        double mu = Math.log(median);
+        return random -> {
+            long v = Math.round(Math.exp(mu + sigma * random.nextGaussian()) / step) * step;
+            return (int) Math.max(step, Math.min(max, v));
+        };
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.atm.harness;
+
+import com.example.atm.adapters.InMemoryInventory;
+import com.example.atm.adapters.MinNotesStrategy;
+import com.example.atm.adapters.SmallestDenomDivisibilityPolicy;
+import com.example.atm.service.CashMachine;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line replay:
+ * <pre>
+ *   java -cp ... com.example.atm.harness.HarnessMain &lt;trace.csv | synthetic:N&gt; [ORIGINAL|SCALED|MAX] [speed] [threads]
+ * </pre>
+ * {@code synthetic:N} generates N events (log-normal amounts around 80, 10% deposits, 1000/s).
+ */
+public final class HarnessMain {
+    private HarnessMain() {}
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("usage: HarnessMain <trace.csv | synthetic:N> [ORIGINAL|SCALED|MAX] [speed] [threads]");
+            System.exit(2);
+        }
+        List<TraceEvent> trace = args[0].startsWith("synthetic:")
+                ? new TraceGenerator(1_000, 0.1, AmountDistribution.logNormal(80, 0.8, 10, 1_000), 10, 20, 50, 100)
+                        .generate(Integer.parseInt(args[0].substring("synthetic:".length())), 1)
+                : Traces.readCsv(Path.of(args[0]));
+        Pacing pacing = args.length > 1 ? Pacing.valueOf(args[1]) : Pacing.MAX;
+        double speed = args.length > 2 ? Double.parseDouble(args[2]) : 1.0;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        var inventory = new InMemoryInventory(Map.of(100, 2_000, 50, 2_000, 20, 5_000, 10, 5_000));
+        var atm = new CashMachine(inventory, new MinNotesStrategy(), new SmallestDenomDivisibilityPolicy(inventory.denominations()));
+        System.out.print(new ReplayHarness(atm, threads).replay(trace, pacing, speed));
+    }
+}
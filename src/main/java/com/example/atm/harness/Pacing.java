@@ -0,0 +1,11 @@
+package com.example.atm.harness;
+
+/** How fast a trace is replayed. */
+public enum Pacing {
+    /** At the recorded offsets. */
+    ORIGINAL,
+    /** At the recorded offsets divided by a speed factor. */
+    SCALED,
+    /** As fast as the threads can go; offsets are ignored. */
+    MAX
+}
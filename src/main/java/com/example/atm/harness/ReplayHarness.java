@@ -0,0 +1,110 @@
+package com.example.atm.harness;
+
+import com.example.atm.domain.BatchOperation;
+import com.example.atm.domain.Outcome;
+import com.example.atm.metrics.LatencyHistogram;
+import com.example.atm.service.CashMachine;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a trace against a {@link CashMachine} on {@code threads} threads and reports
+ * throughput, latency percentiles and the outcome breakdown.
+ *
+ * Event i runs on thread {@code i % threads}, so each thread keeps the trace order of its share.
+ * Withdrawals go through {@link CashMachine#tryWithdraw}; deposits through {@code deposit}.
+ */
+public final class ReplayHarness {
+    private final CashMachine machine;
+    private final int threads;
+
+    public ReplayHarness(CashMachine machine, int threads) {
+        this.machine = Objects.requireNonNull(machine, "machine");
+        if (threads <= 0) throw new IllegalArgumentException("threads must be positive");
+        this.threads = threads;
+    }
+
+    /** {@code speed} is only used with SCALED pacing (2.0 = twice as fast as recorded). */
+    public ReplayReport replay(List<TraceEvent> trace, Pacing pacing, double speed) {
+        Objects.requireNonNull(trace, "trace");
+        Objects.requireNonNull(pacing, "pacing");
+        if (pacing == Pacing.SCALED && !(speed > 0)) throw new IllegalArgumentException("speed must be positive");
+        double scale = pacing == Pacing.SCALED ? speed : 1.0;
+
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder[] outcomes = new LongAdder[Outcome.values().length];
+        for (int i = 0; i < outcomes.length; i++) outcomes[i] = new LongAdder();
+
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        long[] startNanos = new long[1];
+        for (int t = 0; t < threads; t++) {
+            int first = t;
+            workers[t] = new Thread(() -> {
+                ready.countDown();
+                awaitQuietly(go);
+                long start = startNanos[0];
+                for (int i = first; i < trace.size(); i += threads) {
+                    TraceEvent event = trace.get(i);
+                    long scheduled = pacing == Pacing.MAX ? System.nanoTime() : start + (long) (event.offsetMicros() * 1_000 / scale);
+                    for (long wait; (wait = scheduled - System.nanoTime()) > 0; ) LockSupport.parkNanos(wait);
+                    Outcome outcome = run(event.operation());
+                    latency.record(System.nanoTime() - scheduled);
+                    outcomes[outcome.ordinal()].increment();
+                }
+            }, "replay-" + t);
+            workers[t].start();
+        }
+        awaitQuietly(ready);
+        startNanos[0] = System.nanoTime();
+        go.countDown(); // happens-before every worker's read of startNanos
+        for (Thread w : workers) {
+            try {
+                w.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while replaying", e);
+            }
+        }
+        long elapsed = System.nanoTime() - startNanos[0];
+
+        Map<Outcome, Long> counts = new EnumMap<>(Outcome.class);
+        for (Outcome o : Outcome.values()) {
+            long n = outcomes[o.ordinal()].sum();
+            if (n > 0) counts.put(o, n);
+        }
+        return new ReplayReport(trace.size(), elapsed, latency.snapshot(), counts);
+    }
+
+    private Outcome run(BatchOperation op) {
+        if (op.type() == BatchOperation.Type.WITHDRAW) {
+            try {
+                return machine.tryWithdraw(op.amount()).outcome();
+            } catch (RuntimeException e) {
+                return Outcome.ERROR;
+            }
+        }
+        try {
+            machine.deposit(op.deposit());
+            return Outcome.SUCCESS;
+        } catch (RuntimeException e) {
+            return Outcome.of(e);
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while replaying", e);
+        }
+    }
+}
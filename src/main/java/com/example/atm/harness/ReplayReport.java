@@ -0,0 +1,48 @@
+package com.example.atm.harness;
+
+import com.example.atm.domain.Outcome;
+import com.example.atm.metrics.LatencyHistogram;
+
+import java.util.Map;
+
+/** Result of one replay: throughput, latency distribution and outcome breakdown. */
+public final class ReplayReport {
+    private final long operations;
+    private final long elapsedNanos;
+    private final LatencyHistogram.Snapshot latency;
+    private final Map<Outcome, Long> outcomes;
+
+    ReplayReport(long operations, long elapsedNanos, LatencyHistogram.Snapshot latency, Map<Outcome, Long> outcomes) {
+        this.operations = operations;
+        this.elapsedNanos = elapsedNanos;
+        this.latency = latency;
+        this.outcomes = outcomes;
+    }
+
+    public long operations() { return operations; }
+    public long elapsedNanos() { return elapsedNanos; }
+
+    /** Operations per second over the whole run. */
+    public double throughput() {
+        return elapsedNanos == 0 ? 0 : operations * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Latency per operation. With ORIGINAL/SCALED pacing it is measured from the scheduled
+     * start, so time spent queued behind a slow operation counts (no coordinated omission).
+     */
+    public LatencyHistogram.Snapshot latency() { return latency; }
+
+    /** Operations by outcome; rejections map to the {@code Errors} type the throwing API raises. */
+    public Map<Outcome, Long> outcomes() { return outcomes; }
+
+    public long count(Outcome outcome) { return outcomes.getOrDefault(outcome, 0L); }
+
+    @Override public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("operations: %d in %.3fs (%.0f ops/s)%n", operations, elapsedNanos / 1e9, throughput()));
+        sb.append("latency: ").append(latency).append('\n');
+        outcomes.forEach((o, n) -> sb.append(String.format("%-26s %d%n", o.name().toLowerCase() + ':', n)));
+        return sb.toString();
+    }
+}
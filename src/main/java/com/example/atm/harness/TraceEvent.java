@@ -0,0 +1,23 @@
+package com.example.atm.harness;
+
+import com.example.atm.domain.BatchOperation;
+
+import java.util.Objects;
+
+/** One recorded operation: when it happened (relative to the start of the trace) and what it was. */
+public final class TraceEvent {
+    private final long offsetMicros;
+    private final BatchOperation operation;
+
+    public TraceEvent(long offsetMicros, BatchOperation operation) {
+        if (offsetMicros < 0) throw new IllegalArgumentException("Negative offset: " + offsetMicros);
+        this.offsetMicros = offsetMicros;
+        this.operation = Objects.requireNonNull(operation, "operation");
+    }
+
+    /** Microseconds since the first event of the trace. */
+    public long offsetMicros() { return offsetMicros; }
+    public BatchOperation operation() { return operation; }
+
+    @Override public String toString() { return "TraceEvent{+" + offsetMicros + "us, " + operation + '}'; }
+}
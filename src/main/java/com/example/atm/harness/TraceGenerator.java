@@ -0,0 +1,50 @@
+package com.example.atm.harness;
+
+import com.example.atm.domain.BatchOperation;
+import com.example.atm.domain.Money;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Synthetic traces: Poisson arrivals at {@code ratePerSecond}, a share of deposits, and
+ * withdrawal amounts from an {@link AmountDistribution}. Deposits are 1-5 notes of one
+ * denomination. The same seed always yields the same trace, so strategies and inventories can
+ * be compared on identical workloads.
+ */
+public final class TraceGenerator {
+    private final double ratePerSecond;
+    private final double depositShare;
+    private final AmountDistribution amounts;
+    private final int[] depositDenominations;
+
+    public TraceGenerator(double ratePerSecond, double depositShare, AmountDistribution amounts, int... depositDenominations) {
+        if (ratePerSecond <= 0) throw new IllegalArgumentException("ratePerSecond must be positive");
+        if (depositShare < 0 || depositShare > 1) throw new IllegalArgumentException("depositShare must be in [0, 1]");
+        if (depositShare > 0 && depositDenominations.length == 0) throw new IllegalArgumentException("No deposit denominations");
+        this.ratePerSecond = ratePerSecond;
+        this.depositShare = depositShare;
+        this.amounts = Objects.requireNonNull(amounts, "amounts");
+        this.depositDenominations = depositDenominations.clone();
+    }
+
+    public List<TraceEvent> generate(int events, long seed) {
+        Random random = new Random(seed);
+        List<TraceEvent> trace = new ArrayList<>(events);
+        double offsetMicros = 0;
+        for (int i = 0; i < events; i++) {
+            BatchOperation op;
+            if (random.nextDouble() < depositShare) {
+                int d = depositDenominations[random.nextInt(depositDenominations.length)];
+                op = BatchOperation.deposit(Money.of(d, 1 + random.nextInt(5)));
+            } else {
+                op = BatchOperation.withdraw(amounts.next(random));
+            }
+            trace.add(new TraceEvent((long) offsetMicros, op));
+            offsetMicros += -Math.log(1 - random.nextDouble()) / ratePerSecond * 1_000_000;
+        }
+        return trace;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.atm.harness;
+
+import com.example.atm.domain.BatchOperation;
+import com.example.atm.domain.Money;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CSV trace format, one operation per line:
+ * <pre>
+ *   # offset_us,op,amount_or_notes
+ *   0,W,130
+ *   1500,D,50x2;20x1
+ * </pre>
+ * {@code W} lines carry the requested amount, {@code D} lines the deposited notes. Blank lines
+ * and lines starting with {@code #} are ignored; offsets must not decrease.
+ */
+public final class Traces {
+    private Traces() {}
+
+    public static List<TraceEvent> readCsv(Path file) {
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return readCsv(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read trace " + file, e);
+        }
+    }
+
+    public static List<TraceEvent> readCsv(BufferedReader in) throws IOException {
+        List<TraceEvent> events = new ArrayList<>();
+        long previous = 0;
+        int lineNo = 0;
+        for (String line; (line = in.readLine()) != null; ) {
+            lineNo++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] f = line.split(",", -1);
+            if (f.length != 3) throw new IllegalArgumentException("Line " + lineNo + ": expected 3 fields: " + line);
+            try {
+                long offset = Long.parseLong(f[0].trim());
+                if (offset < previous) throw new IllegalArgumentException("Line " + lineNo + ": offset goes backwards");
+                previous = offset;
+                events.add(new TraceEvent(offset, operation(f[1].trim(), f[2].trim())));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Line " + lineNo + ": bad number in " + line, e);
+            }
+        }
+        return events;
+    }
+
+    public static void writeCsv(Path file, List<TraceEvent> events) {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("# offset_us,op,amount_or_notes\n");
+            for (TraceEvent e : events) {
+                BatchOperation op = e.operation();
+                out.write(Long.toString(e.offsetMicros()));
+                if (op.type() == BatchOperation.Type.WITHDRAW) {
+                    out.write(",W," + op.amount());
+                } else {
+                    out.write(",D,");
+                    Money notes = op.deposit();
+                    for (int i = 0; i < notes.size(); i++) {
+                        if (i > 0) out.write(';');
+                        out.write(notes.denominationAt(i) + "x" + notes.countAt(i));
+                    }
+                }
+                out.write('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write trace " + file, e);
+        }
+    }
+
+    private static BatchOperation operation(String op, String value) {
+        switch (op) {
+            case "W": return BatchOperation.withdraw(Integer.parseInt(value));
+            case "D": {
+                Map<Integer, Integer> notes = new LinkedHashMap<>();
+                for (String pair : value.split(";")) {
+                    int x = pair.indexOf('x');
+                    if (x <= 0) throw new IllegalArgumentException("Bad notes entry: " + pair);
+                    notes.merge(Integer.parseInt(pair.substring(0, x)), Integer.parseInt(pair.substring(x + 1)), Integer::sum);
+                }
+                return BatchOperation.deposit(new Money(notes));
+            }
+            default: throw new IllegalArgumentException("Unknown op: " + op);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.atm.metrics;
+
+import com.example.atm.domain.Money;
+import com.example.atm.domain.Outcome;
+import com.example.atm.ports.OperationListener;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process metrics for a cash machine: latency histograms for withdraw, deposit, plan and
+ * remove, lock wait/hold times, and withdrawal outcome counters. Wire it in as the machine's
+ * {@link OperationListener}, as the {@link InventoryTimings} of {@code InMemoryInventory} and
+ * around the strategy with {@link TimedDispenseStrategy}. Recording never allocates.
+ */
+public final class CashMachineMetrics implements OperationListener, InventoryTimings {
+    private final LatencyHistogram withdraw = new LatencyHistogram();
+    private final LatencyHistogram deposit = new LatencyHistogram();
+    private final LatencyHistogram plan = new LatencyHistogram();
+    private final LatencyHistogram remove = new LatencyHistogram();
+    private final LatencyHistogram lockWait = new LatencyHistogram();
+    private final LatencyHistogram lockHold = new LatencyHistogram();
+    private final LongAdder[] outcomes = new LongAdder[Outcome.values().length];
+
+    public CashMachineMetrics() {
+        for (int i = 0; i < outcomes.length; i++) outcomes[i] = new LongAdder();
+    }
+
+    @Override public void withdrawn(int amount, Money notes, Outcome outcome, long startNanos, long endNanos, long version) {
+        withdraw.record(endNanos - startNanos);
+        outcomes[outcome.ordinal()].increment();
+    }
+
+    @Override public void deposited(Money money, Outcome outcome, long startNanos, long endNanos, long version) {
+        deposit.record(endNanos - startNanos);
+    }
+
+    @Override public void lockWait(long nanos) { lockWait.record(nanos); }
+    @Override public void lockHold(long nanos) { lockHold.record(nanos); }
+    @Override public void removed(long nanos) { remove.record(nanos); }
+
+    /** Called by {@link TimedDispenseStrategy}. */
+    public void planned(long nanos) { plan.record(nanos); }
+
+    /** Point-in-time copy of everything recorded so far. */
+    public Snapshot snapshot() {
+        Map<String, LatencyHistogram.Snapshot> latencies = new LinkedHashMap<>();
+        latencies.put("withdraw", withdraw.snapshot());
+        latencies.put("deposit", deposit.snapshot());
+        latencies.put("plan", plan.snapshot());
+        latencies.put("remove", remove.snapshot());
+        latencies.put("lock.wait", lockWait.snapshot());
+        latencies.put("lock.hold", lockHold.snapshot());
+        Map<Outcome, Long> counts = new EnumMap<>(Outcome.class);
+        for (Outcome o : Outcome.values()) counts.put(o, outcomes[o.ordinal()].sum());
+        return new Snapshot(latencies, counts);
+    }
+
+    /** Exported metrics: latency histograms by name and withdrawal counts by outcome. */
+    public static final class Snapshot {
+        private final Map<String, LatencyHistogram.Snapshot> latencies;
+        private final Map<Outcome, Long> withdrawals;
+
+        Snapshot(Map<String, LatencyHistogram.Snapshot> latencies, Map<Outcome, Long> withdrawals) {
+            this.latencies = latencies;
+            this.withdrawals = withdrawals;
+        }
+
+        public Map<String, LatencyHistogram.Snapshot> latencies() { return latencies; }
+        public LatencyHistogram.Snapshot latency(String name) { return latencies.get(name); }
+        public Map<Outcome, Long> withdrawals() { return withdrawals; }
+
+        /** One line per metric, e.g. for a health endpoint or a log line. */
+        @Override public String toString() {
+            StringBuilder sb = new StringBuilder();
+            latencies.forEach((name, h) -> sb.append(name).append(": ").append(h).append('\n'));
+            withdrawals.forEach((o, n) -> sb.append("withdraw.").append(o.name().toLowerCase()).append(": ").append(n).append('\n'));
+            return sb.toString();
+        }
+    }
+}
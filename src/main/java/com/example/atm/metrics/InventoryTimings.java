@@ -0,0 +1,19 @@
+package com.example.atm.metrics;
+
+/** Hooks an inventory calls around its lock and removals; all values in nanoseconds. */
+public interface InventoryTimings {
+    InventoryTimings NONE = new InventoryTimings() {
+        @Override public void lockWait(long nanos) {}
+        @Override public void lockHold(long nanos) {}
+        @Override public void removed(long nanos) {}
+    };
+
+    /** Time spent waiting to acquire the lock. */
+    void lockWait(long nanos);
+
+    /** Time the lock was held. */
+    void lockHold(long nanos);
+
+    /** Duration of a removal (including dispense's apply step), lock wait included. */
+    void removed(long nanos);
+}
@@ -0,0 +1,29 @@
+package com.example.atm.metrics;
+
+import com.example.atm.domain.DispensePlan;
+import com.example.atm.ports.DispenseStrategy;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/** Records the latency of every {@code plan} call of the wrapped strategy. */
+public final class TimedDispenseStrategy implements DispenseStrategy {
+    private final DispenseStrategy delegate;
+    private final CashMachineMetrics metrics;
+
+    public TimedDispenseStrategy(DispenseStrategy delegate, CashMachineMetrics metrics) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate");
+        this.metrics = Objects.requireNonNull(metrics, "metrics");
+    }
+
+    @Override
+    public Optional<DispensePlan> plan(int amount, Map<Integer, Integer> inventory) {
+        long start = System.nanoTime();
+        try {
+            return delegate.plan(amount, inventory);
+        } finally {
+            metrics.planned(System.nanoTime() - start);
+        }
+    }
+}
@@ -2,9 +2,27 @@ package com.example.atm.ports;
 
 
 
+import com.example.atm.domain.Outcome;
+import com.example.atm.domain.WithdrawResult;
+import com.example.atm.errors.Errors;
+
+import java.util.Optional;
+
 /** Rule set for validating requested amounts. */
 public interface AmountPolicy {
     /** Throws if invalid. */
     void validate(int amount);
-}
 
+    /**
+     * Non-throwing variant of {@link #validate}: the rejection, or empty if the amount is valid.
+     * Implementations on hot paths should override this rather than rely on the catch below.
+     */
+    default Optional<WithdrawResult.Failure> check(int amount) {
+        try {
+            validate(amount);
+            return Optional.empty();
+        } catch (Errors.InvalidAmountException e) {
+            return Optional.of(WithdrawResult.failure(Outcome.INVALID_AMOUNT, e.getMessage()));
+        }
+    }
+}
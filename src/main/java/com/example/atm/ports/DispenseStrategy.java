@@ -7,8 +7,10 @@ import com.example.atm.domain.DispensePlan;
 import java.util.Map;
 import java.util.Optional;
 
-/** Algorithm to produce a plan for dispensing an amount with limited inventory. */
+/**
+ * Algorithm to produce a plan for dispensing an amount with limited inventory.
+ * Already non-throwing: an amount that cannot be formed yields an empty plan.
+ */
 public interface DispenseStrategy {
     Optional<DispensePlan> plan(int amount, Map<Integer, Integer> inventory);
 }
-
@@ -1,8 +1,18 @@
 package com.example.atm.ports;
 
 
+import com.example.atm.domain.DispensePlan;
+import com.example.atm.domain.InventoryChange;
+import com.example.atm.domain.InventoryState;
+import com.example.atm.domain.WithdrawResult;
+import com.example.atm.errors.Errors;
+
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /** Abstraction for note storage. */
 public interface Inventory {
@@ -18,7 +28,100 @@ public interface Inventory {
     /** Supported denominations. */
     Set<Integer> denominations();
 
+    /** Notes held for a denomination (0 if none). */
+    default int count(int denomination) {
+        return snapshot().getOrDefault(denomination, 0);
+    }
+
     /** Total balance (sum(denom*count)). */
     int balance();
-}
 
+    /** Monotonically increasing version, bumped once per successful add/remove/dispense. */
+    long version();
+
+    /** Immutable, versioned view of the counts; version and counts are always consistent. */
+    InventoryState state();
+
+    /**
+     * Registers {@code subscriber} for change events. Delivery is asynchronous and serial per
+     * subscriber; a subscriber that falls behind gets one event covering several mutations.
+     * Throws UnsupportedOperationException if the inventory cannot publish changes.
+     */
+    default Subscription subscribe(Consumer<InventoryChange> subscriber) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not publish changes");
+    }
+
+    /**
+     * Compare-and-dispense: check the balance, plan against the live counts and remove the plan.
+     * Returns empty if the amount cannot be formed; throws InsufficientFundsException if the
+     * balance is too low. Implementations should do all three steps in one critical section;
+     * this default runs them back to back, so a concurrent change makes it throw
+     * InventoryChangedException.
+     */
+    default Optional<DispensePlan> dispense(int amount, DispenseStrategy strategy) {
+        if (balance() < amount) {
+            throw new Errors.InsufficientFundsException("ATM balance is insufficient");
+        }
+        long before = version();
+        var planOpt = strategy.plan(amount, snapshot());
+        planOpt.ifPresent(plan -> removeUnchanged(plan.notes().asMap(), before));
+        return planOpt;
+    }
+
+    /**
+     * Non-throwing {@link #dispense}: the dispensed notes, or why nothing was dispensed. The
+     * balance pre-check keeps the common insufficient-funds rejection free of exceptions; a
+     * concurrent withdrawal slipping past it is still reported as a failure.
+     */
+    default WithdrawResult tryDispense(int amount, DispenseStrategy strategy) {
+        if (balance() < amount) return WithdrawResult.INSUFFICIENT_FUNDS;
+        Optional<DispensePlan> planOpt;
+        try {
+            planOpt = dispense(amount, strategy);
+        } catch (Errors.InsufficientFundsException e) {
+            return WithdrawResult.INSUFFICIENT_FUNDS;
+        } catch (Errors.InventoryChangedException e) {
+            return WithdrawResult.INVENTORY_CHANGED;
+        }
+        return planOpt.<WithdrawResult>map(plan -> WithdrawResult.success(plan.notes()))
+                .orElseGet(() -> WithdrawResult.unavailable(amount));
+    }
+
+    /**
+     * Runs {@code mutation} against a mutable working copy of the counts and then makes the
+     * working copy the new inventory, all in one critical section; returns the mutation's result.
+     * If the mutation throws, nothing changes. This default applies the difference with
+     * {@link #remove} then {@link #add}, which is not atomic: a concurrent change that leaves
+     * too few notes throws InventoryChangedException before anything is applied.
+     */
+    default <T> T transact(Function<Map<Integer, Integer>, T> mutation) {
+        long version = version();
+        Map<Integer, Integer> before = snapshot();
+        Map<Integer, Integer> working = new HashMap<>(before);
+        T result = mutation.apply(working);
+        Map<Integer, Integer> take = new HashMap<>();
+        Map<Integer, Integer> deposit = new HashMap<>();
+        working.forEach((d,c) -> {
+            if (c == null || c < 0) throw new IllegalArgumentException("Negative count for denom: " + d);
+            int delta = c - before.getOrDefault(d, 0);
+            if (delta > 0) deposit.put(d, delta); else if (delta < 0) take.put(d, -delta);
+        });
+        before.forEach((d,c) -> { if (!working.containsKey(d)) take.put(d, c); });
+        if (!take.isEmpty()) removeUnchanged(take, version);
+        if (!deposit.isEmpty()) add(deposit);
+        return result;
+    }
+
+    /**
+     * {@link #remove} for the non-atomic defaults: a shortfall after the version moved past
+     * {@code planned} is a concurrent change; anything else propagates unchanged.
+     */
+    private void removeUnchanged(Map<Integer, Integer> take, long planned) {
+        try {
+            remove(take);
+        } catch (IllegalStateException e) {
+            if (version() == planned) throw e;
+            throw new Errors.InventoryChangedException("Inventory changed; please try again");
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.atm.ports;
+
+import com.example.atm.domain.Money;
+import com.example.atm.domain.Outcome;
+
+import java.util.Objects;
+
+/**
+ * Observes completed CashMachine operations (metrics, audit). Called on the caller's thread
+ * after the operation, so implementations must be cheap and must not throw.
+ */
+public interface OperationListener {
+    OperationListener NONE = new OperationListener() {};
+
+    /**
+     * {@code notes} is null unless the outcome is SUCCESS. Times are {@code System.nanoTime()};
+     * {@code version} is the inventory version observed right after the operation.
+     */
+    default void withdrawn(int amount, Money notes, Outcome outcome, long startNanos, long endNanos, long version) {}
+
+    default void deposited(Money money, Outcome outcome, long startNanos, long endNanos, long version) {}
+
+    /** Notifies {@code first}, then {@code second}. */
+    static OperationListener both(OperationListener first, OperationListener second) {
+        Objects.requireNonNull(first, "first");
+        Objects.requireNonNull(second, "second");
+        return new OperationListener() {
+            @Override public void withdrawn(int amount, Money notes, Outcome outcome, long startNanos, long endNanos, long version) {
+                first.withdrawn(amount, notes, outcome, startNanos, endNanos, version);
+                second.withdrawn(amount, notes, outcome, startNanos, endNanos, version);
+            }
+
+            @Override public void deposited(Money money, Outcome outcome, long startNanos, long endNanos, long version) {
+                first.deposited(money, outcome, startNanos, endNanos, version);
+                second.deposited(money, outcome, startNanos, endNanos, version);
+            }
+        };
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.atm.ports;
+
+/** Handle for an {@link Inventory#subscribe} registration; closing it stops further deliveries. */
+public interface Subscription extends AutoCloseable {
+    @Override void close();
+}
@@ -0,0 +1,30 @@
+package com.example.atm.server;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Recycles fixed-size direct buffers so connections do not allocate off-heap memory on accept.
+ * Only used from the selector thread, so it is not thread-safe.
+ */
+final class BufferPool {
+    private final int bufferSize;
+    private final int maxPooled;
+    private final ArrayDeque<ByteBuffer> free = new ArrayDeque<>();
+
+    BufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    ByteBuffer acquire() {
+        ByteBuffer buf = free.poll();
+        return buf != null ? buf : ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    void release(ByteBuffer buf) {
+        if (free.size() < maxPooled) free.push(buf.clear());
+    }
+
+    int pooled() { return free.size(); }
+}
@@ -0,0 +1,167 @@
+package com.example.atm.server;
+
+import com.example.atm.domain.InventoryState;
+import com.example.atm.domain.Money;
+import com.example.atm.domain.Outcome;
+import com.example.atm.domain.WithdrawResult;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Blocking client for {@link CashMachineServer}; one instance per connection, not thread-safe.
+ * {@link #withdrawAll} pipelines: it sends up to {@value #PIPELINE_WINDOW} requests in one
+ * write before reading their responses. Transport failures throw UncheckedIOException; server
+ * errors other than withdrawal rejections throw IllegalStateException.
+ */
+public final class CashMachineClient implements Closeable {
+    static final int PIPELINE_WINDOW = 256;
+
+    private final SocketChannel channel;
+    private final ByteBuffer out = ByteBuffer.allocate(CashMachineServer.BUFFER_SIZE);
+    private final ByteBuffer in = ByteBuffer.allocate(CashMachineServer.BUFFER_SIZE).flip(); // read mode
+    private int nextId;
+
+    public CashMachineClient(InetSocketAddress address) {
+        Objects.requireNonNull(address, "address");
+        try {
+            this.channel = SocketChannel.open(address);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot connect to " + address, e);
+        }
+    }
+
+    public WithdrawResult withdraw(int amount) {
+        return withdrawAll(amount).get(0);
+    }
+
+    /**
+     * Withdraws each amount in order, pipelined; one result per amount. On a server error the
+     * rest of the window is still read, so the connection stays usable, and later windows are
+     * not sent.
+     */
+    public List<WithdrawResult> withdrawAll(int... amounts) {
+        List<WithdrawResult> results = new ArrayList<>(amounts.length);
+        String error = null;
+        for (int from = 0; from < amounts.length && error == null; from += PIPELINE_WINDOW) {
+            int to = Math.min(amounts.length, from + PIPELINE_WINDOW);
+            int firstId = nextId;
+            for (int i = from; i < to; i++) {
+                int start = begin(Protocol.WITHDRAW);
+                out.putInt(amounts[i]);
+                end(start);
+            }
+            send();
+            for (int i = from; i < to; i++) {
+                ByteBuffer frame = receive(Protocol.WITHDRAW, firstId + i - from);
+                Outcome outcome = Protocol.outcome(frame.get());
+                if (outcome == Outcome.SUCCESS) {
+                    results.add(WithdrawResult.success(new Money(Protocol.getNotes(frame))));
+                } else if (outcome == Outcome.ERROR) {
+                    if (error == null) error = Protocol.getMessage(frame);
+                } else {
+                    results.add(WithdrawResult.failure(outcome, Protocol.getMessage(frame)));
+                }
+            }
+        }
+        if (error != null) throw new IllegalStateException("Server error: " + error);
+        return results;
+    }
+
+    public void deposit(Money money) {
+        Objects.requireNonNull(money, "money");
+        int start = begin(Protocol.DEPOSIT);
+        Protocol.putNotes(out, money);
+        end(start);
+        send();
+        expectSuccess(receive(Protocol.DEPOSIT, nextId - 1));
+    }
+
+    public int balance() {
+        end(begin(Protocol.BALANCE));
+        send();
+        ByteBuffer frame = receive(Protocol.BALANCE, nextId - 1);
+        expectSuccess(frame);
+        return frame.getInt();
+    }
+
+    /** Counts and version as one consistent reading. */
+    public InventoryState snapshot() {
+        end(begin(Protocol.SNAPSHOT));
+        send();
+        ByteBuffer frame = receive(Protocol.SNAPSHOT, nextId - 1);
+        expectSuccess(frame);
+        long version = frame.getLong();
+        return InventoryState.of(version, Protocol.getNotes(frame));
+    }
+
+    @Override public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int begin(byte op) {
+        int start = out.position();
+        out.position(start + Protocol.LENGTH_BYTES);
+        out.put(op).putInt(nextId++);
+        return start;
+    }
+
+    private void end(int start) {
+        out.putInt(start, out.position() - start - Protocol.LENGTH_BYTES);
+    }
+
+    private void send() {
+        out.flip();
+        try {
+            while (out.hasRemaining()) channel.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Send failed", e);
+        } finally {
+            out.clear();
+        }
+    }
+
+    /** The next response body, positioned at its status byte. */
+    private ByteBuffer receive(byte op, int id) {
+        fill(Protocol.LENGTH_BYTES);
+        int length = in.getInt();
+        if (length <= 0 || length > Protocol.MAX_FRAME) throw new IllegalStateException("Bad frame length " + length);
+        fill(length);
+        ByteBuffer frame = in.slice(in.position(), length);
+        in.position(in.position() + length);
+        if (frame.get() != op || frame.getInt() != id) throw new IllegalStateException("Response out of order");
+        return frame;
+    }
+
+    private void fill(int bytes) {
+        try {
+            while (in.remaining() < bytes) {
+                in.compact();
+                int read = channel.read(in);
+                in.flip();
+                if (read < 0) throw new EOFException("Server closed the connection");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Receive failed", e);
+        }
+    }
+
+    private static void expectSuccess(ByteBuffer frame) {
+        Outcome outcome = Protocol.outcome(frame.get());
+        if (outcome != Outcome.SUCCESS) throw new IllegalStateException(outcome + ": " + Protocol.getMessage(frame));
+    }
+}
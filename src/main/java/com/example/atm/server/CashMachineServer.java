@@ -0,0 +1,303 @@
+package com.example.atm.server;
+
+import com.example.atm.domain.InventoryState;
+import com.example.atm.domain.Money;
+import com.example.atm.domain.Outcome;
+import com.example.atm.domain.WithdrawResult;
+import com.example.atm.service.CashMachine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves a {@link CashMachine} over TCP using the {@link Protocol} frames, on one selector
+ * thread and non-blocking channels.
+ *
+ * Each readable event reads whatever the socket holds, handles every complete frame in it and
+ * then writes all of their responses with one {@code write}, so pipelined requests are answered
+ * in batches rather than one syscall per response. Machine operations take microseconds and run
+ * on the selector thread. A client that sends faster than it reads is throttled: once its
+ * pending responses fill the output buffer the server stops reading from it until they drain.
+ * Connection buffers are direct and recycled through a {@link BufferPool}.
+ */
+public final class CashMachineServer implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(CashMachineServer.class);
+
+    static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_POOLED_BUFFERS = 256;
+    private static final int MAX_RESPONSE = Protocol.LENGTH_BYTES + Protocol.MAX_FRAME;
+    private static final long ACCEPT_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long ACCEPT_WARN_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final CashMachine machine;
+    private final Selector selector;
+    private final ServerSocketChannel acceptor;
+    private final SelectionKey acceptKey;
+    private final BufferPool buffers = new BufferPool(BUFFER_SIZE, MAX_POOLED_BUFFERS);
+    private final Thread loop;
+    private volatile boolean closed;
+    // Selector thread only: accept back-off after a failure, and the rate limit on its warning
+    private long acceptPausedUntil;
+    private boolean acceptPaused;
+    private long nextAcceptWarning = System.nanoTime();
+    private int acceptFailures;
+
+    /** Binds {@code address} (port 0 picks a free port) and starts serving. */
+    public CashMachineServer(CashMachine machine, InetSocketAddress address) {
+        this.machine = Objects.requireNonNull(machine, "machine");
+        Objects.requireNonNull(address, "address");
+        try {
+            this.selector = Selector.open();
+            this.acceptor = ServerSocketChannel.open();
+            acceptor.bind(address);
+            acceptor.configureBlocking(false);
+            this.acceptKey = acceptor.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot listen on " + address, e);
+        }
+        this.loop = new Thread(this::run, "atm-server");
+        loop.start();
+        logger.info("Cash machine server listening on {}", acceptor.socket().getLocalSocketAddress());
+    }
+
+    public int port() { return acceptor.socket().getLocalPort(); }
+
+    /** Stops accepting, closes every connection and waits for the selector thread to exit. */
+    @Override public void close() {
+        closed = true;
+        selector.wakeup();
+        try {
+            loop.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                long pause = resumeAcceptingIfDue();
+                if (pause > 0) selector.select(TimeUnit.NANOSECONDS.toMillis(pause) + 1);
+                else selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isReadable()) connection.onReadable();
+                        if (key.isValid() && key.isWritable()) connection.onWritable();
+                    } catch (IOException | RuntimeException e) {
+                        logger.debug("Closing connection {}: {}", connection, e.toString());
+                        connection.close();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Server loop failed", e);
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof Connection) ((Connection) key.attachment()).close();
+            }
+            closeQuietly(acceptor);
+            closeQuietly(selector);
+        }
+    }
+
+    /**
+     * Accepts pending connections. A failure affects only the connection being set up. If accept
+     * itself fails (e.g. out of file descriptors) the pending connections stay ready, so accepting
+     * pauses for 100 ms instead of spinning the selector on them.
+     */
+    private void accept() {
+        while (true) {
+            SocketChannel channel;
+            try {
+                channel = acceptor.accept();
+            } catch (IOException e) {
+                pauseAccepting(e);
+                return;
+            }
+            if (channel == null) return;
+            try {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true); // responses are batched here
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                key.attach(new Connection(channel, key));
+            } catch (IOException | RuntimeException e) {
+                logger.debug("Dropping connection during setup: {}", e.toString());
+                closeQuietly(channel);
+            }
+        }
+    }
+
+    private void pauseAccepting(IOException e) {
+        long now = System.nanoTime();
+        acceptKey.interestOps(0);
+        acceptPaused = true;
+        acceptPausedUntil = now + ACCEPT_BACKOFF_NANOS;
+        acceptFailures++;
+        if (now - nextAcceptWarning >= 0) {
+            logger.warn("Accept failed {} time(s), pausing accepts: {}", acceptFailures, e.toString());
+            acceptFailures = 0;
+            nextAcceptWarning = now + ACCEPT_WARN_INTERVAL_NANOS;
+        }
+    }
+
+    /** Re-enables accepting once the back-off has passed; returns the nanos left, or 0 if accepting. */
+    private long resumeAcceptingIfDue() {
+        if (!acceptPaused) return 0;
+        long left = acceptPausedUntil - System.nanoTime();
+        if (left > 0) return left;
+        acceptPaused = false;
+        acceptKey.interestOps(SelectionKey.OP_ACCEPT);
+        return 0;
+    }
+
+    /** Appends the response to one request frame; {@code in} is limited to the frame body. */
+    private void handle(ByteBuffer in, ByteBuffer out) {
+        byte op = in.get();
+        int id = in.getInt();
+        int start = out.position();
+        out.position(start + Protocol.LENGTH_BYTES);
+        out.put(op).putInt(id);
+        int statusAt = out.position();
+        try {
+            switch (op) {
+                case Protocol.WITHDRAW: {
+                    WithdrawResult result = machine.tryWithdraw(in.getInt());
+                    out.put(Protocol.status(result.outcome()));
+                    if (result.isSuccess()) Protocol.putNotes(out, ((WithdrawResult.Success) result).notes());
+                    else Protocol.putMessage(out, ((WithdrawResult.Failure) result).message());
+                    break;
+                }
+                case Protocol.DEPOSIT:
+                    machine.deposit(new Money(Protocol.getNotes(in)));
+                    out.put(Protocol.status(Outcome.SUCCESS));
+                    break;
+                case Protocol.BALANCE:
+                    out.put(Protocol.status(Outcome.SUCCESS)).putInt(machine.balance());
+                    break;
+                case Protocol.SNAPSHOT: {
+                    InventoryState state = machine.inventoryState();
+                    out.put(Protocol.status(Outcome.SUCCESS)).putLong(state.version());
+                    Protocol.putNotes(out, state);
+                    break;
+                }
+                default:
+                    throw new IllegalArgumentException("Unknown op: " + op);
+            }
+        } catch (RuntimeException e) {
+            out.position(statusAt);
+            out.put(Protocol.status(Outcome.of(e)));
+            Protocol.putMessage(out, e.getMessage());
+        }
+        out.putInt(start, out.position() - start - Protocol.LENGTH_BYTES);
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            logger.debug("Close failed: {}", e.toString());
+        }
+    }
+
+    private final class Connection {
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private ByteBuffer in = buffers.acquire();  // unread request bytes, write mode
+        private ByteBuffer out = buffers.acquire(); // unsent response bytes, write mode
+
+        Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+
+        void onReadable() throws IOException {
+            if (channel.read(in) < 0) {
+                close();
+                return;
+            }
+            process();
+            updateInterest();
+        }
+
+        void onWritable() throws IOException {
+            write();
+            process(); // frames held back by a full output buffer
+            updateInterest();
+        }
+
+        /**
+         * Handles complete frames until input runs out. Responses accumulate in {@code out} and
+         * go out in one write at the end, or earlier if {@code out} fills; if the socket cannot
+         * take them, the remaining frames wait in {@code in} for the next writable event.
+         */
+        private void process() throws IOException {
+            in.flip();
+            while (in.remaining() >= Protocol.LENGTH_BYTES) {
+                int length = in.getInt(in.position());
+                if (length <= 0 || length > Protocol.MAX_FRAME) throw new IllegalStateException("Bad frame length " + length);
+                if (in.remaining() < Protocol.LENGTH_BYTES + length) break;
+                if (out.remaining() < MAX_RESPONSE) {
+                    write();
+                    if (out.remaining() < MAX_RESPONSE) break;
+                }
+                int end = in.position() + Protocol.LENGTH_BYTES + length;
+                int limit = in.limit();
+                in.position(in.position() + Protocol.LENGTH_BYTES).limit(end);
+                handle(in, out);
+                in.limit(limit).position(end);
+            }
+            in.compact();
+            write();
+        }
+
+        private void write() throws IOException {
+            if (out.position() == 0) return;
+            out.flip();
+            channel.write(out);
+            out.compact();
+        }
+
+        /** Waits for writability while responses are pending and stops reading while they fill {@code out}. */
+        private void updateInterest() {
+            int ops = out.position() > 0 ? SelectionKey.OP_WRITE : 0;
+            if (out.remaining() >= MAX_RESPONSE) ops |= SelectionKey.OP_READ;
+            key.interestOps(ops);
+        }
+
+        void close() {
+            key.cancel();
+            closeQuietly(channel);
+            if (in != null) {
+                buffers.release(in);
+                buffers.release(out);
+                in = out = null;
+            }
+        }
+
+        @Override public String toString() {
+            return String.valueOf(channel.socket().getRemoteSocketAddress());
+        }
+    }
+}
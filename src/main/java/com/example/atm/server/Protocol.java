@@ -0,0 +1,79 @@
+package com.example.atm.server;
+
+import com.example.atm.domain.InventoryState;
+import com.example.atm.domain.Money;
+import com.example.atm.domain.Outcome;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Wire format shared by {@link CashMachineServer} and {@link CashMachineClient}. All integers
+ * are big-endian. Every frame is an {@code int} length followed by that many bytes:
+ * <pre>
+ *   request:  op:byte id:int payload
+ *   response: op:byte id:int status:byte payload
+ * </pre>
+ * Request payloads: WITHDRAW {@code amount:int}; DEPOSIT {@code notes}; BALANCE and SNAPSHOT none.
+ * {@code notes} is {@code n:short} followed by n {@code denomination:int count:int} pairs.
+ *
+ * Response status is the {@link Outcome} ordinal (0 = SUCCESS). On success WITHDRAW carries the
+ * dispensed {@code notes}, DEPOSIT nothing, BALANCE {@code balance:int} and SNAPSHOT
+ * {@code version:long notes}. Any other status carries {@code length:short} UTF-8 message bytes.
+ *
+ * Responses come back in request order on each connection, so clients may send many requests
+ * before reading; {@code id} is echoed for correlation.
+ */
+public final class Protocol {
+    public static final byte WITHDRAW = 1, DEPOSIT = 2, BALANCE = 3, SNAPSHOT = 4;
+
+    /** Largest frame body either side accepts; larger frames close the connection. */
+    public static final int MAX_FRAME = 16 * 1024;
+
+    static final int LENGTH_BYTES = 4;
+    private static final int MAX_MESSAGE = 1024;
+    private static final Outcome[] OUTCOMES = Outcome.values();
+
+    private Protocol() {}
+
+    static Outcome outcome(byte status) {
+        if (status < 0 || status >= OUTCOMES.length) throw new IllegalArgumentException("Unknown status: " + status);
+        return OUTCOMES[status];
+    }
+
+    static byte status(Outcome outcome) {
+        return (byte) outcome.ordinal();
+    }
+
+    static void putNotes(ByteBuffer buf, Money notes) {
+        buf.putShort((short) notes.size());
+        for (int i = 0; i < notes.size(); i++) buf.putInt(notes.denominationAt(i)).putInt(notes.countAt(i));
+    }
+
+    static void putNotes(ByteBuffer buf, InventoryState state) {
+        buf.putShort((short) state.size());
+        for (int i = 0; i < state.size(); i++) buf.putInt(state.denominationAt(i)).putInt(state.countAt(i));
+    }
+
+    static Map<Integer, Integer> getNotes(ByteBuffer buf) {
+        int n = buf.getShort();
+        if (n < 0) throw new IllegalArgumentException("Negative note count");
+        Map<Integer, Integer> notes = new HashMap<>();
+        for (int i = 0; i < n; i++) notes.merge(buf.getInt(), buf.getInt(), Integer::sum);
+        return notes;
+    }
+
+    static void putMessage(ByteBuffer buf, String message) {
+        byte[] bytes = String.valueOf(message).getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, MAX_MESSAGE);
+        buf.putShort((short) length).put(bytes, 0, length);
+    }
+
+    static String getMessage(ByteBuffer buf) {
+        byte[] bytes = new byte[buf.getShort()];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
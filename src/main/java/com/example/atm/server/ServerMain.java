@@ -0,0 +1,27 @@
+package com.example.atm.server;
+
+import com.example.atm.adapters.InMemoryInventory;
+import com.example.atm.adapters.MinNotesStrategy;
+import com.example.atm.adapters.SmallestDenomDivisibilityPolicy;
+import com.example.atm.service.CashMachine;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+
+/**
+ * Command line server:
+ * <pre>
+ *   java -cp ... com.example.atm.server.ServerMain [port]
+ * </pre>
+ * Serves a demo machine until the process is stopped.
+ */
+public final class ServerMain {
+    private ServerMain() {}
+
+    public static void main(String[] args) {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7070;
+        var inventory = new InMemoryInventory(Map.of(100, 2_000, 50, 2_000, 20, 5_000, 10, 5_000));
+        var atm = new CashMachine(inventory, new MinNotesStrategy(), new SmallestDenomDivisibilityPolicy(inventory.denominations()));
+        new CashMachineServer(atm, new InetSocketAddress(port));
+    }
+}
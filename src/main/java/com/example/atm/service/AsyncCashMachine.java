@@ -0,0 +1,175 @@
+package com.example.atm.service;
+
+
+
+import com.example.atm.domain.BatchOperation;
+import com.example.atm.domain.BatchResult;
+import com.example.atm.domain.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous front end over {@link CashMachine}: callers enqueue withdrawals and deposits on a
+ * bounded queue and get a {@link CompletableFuture}; one writer thread applies them in arrival
+ * order, so the inventory lock is never contended. With {@code maxBatch > 1} the writer drains
+ * whatever has queued up and applies it through {@link CashMachine#process} in one critical
+ * section. Outcomes are the same as calling the machine directly; failures complete the future
+ * exceptionally with the same {@code Errors} type.
+ *
+ * When the queue is full, {@link #withdraw}/{@link #deposit} block (backpressure). The queue
+ * only uses j.u.c locks, so blocked callers park cleanly on platform or virtual threads.
+ * Futures are completed on the writer thread; chain heavy work with the {@code *Async} stages.
+ * Every returned future completes: requests that reach the queue after the writer has stopped
+ * (closed or interrupted) fail with IllegalStateException.
+ */
+public final class AsyncCashMachine implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncCashMachine.class);
+    private static final Request SHUTDOWN = new Request(null, null);
+
+    private final CashMachine machine;
+    private final BlockingQueue<Request> queue;
+    private final int maxBatch;
+    private final Thread writer;
+    private volatile boolean closed;
+    private volatile boolean stopped; // set by the writer before its final drain
+
+    public AsyncCashMachine(CashMachine machine, int queueCapacity, int maxBatch) {
+        this.machine = Objects.requireNonNull(machine, "machine");
+        if (queueCapacity <= 0) throw new IllegalArgumentException("queueCapacity must be positive");
+        if (maxBatch <= 0) throw new IllegalArgumentException("maxBatch must be positive");
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatch = maxBatch;
+        this.writer = new Thread(this::writeLoop, "cash-machine-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /** Queues a withdrawal; blocks while the queue is full. */
+    public CompletableFuture<Money> withdraw(int amount) {
+        return enqueue(BatchOperation.withdraw(amount));
+    }
+
+    /** Queues a deposit; completes with the deposited notes. Blocks while the queue is full. */
+    public CompletableFuture<Money> deposit(Money money) {
+        return enqueue(BatchOperation.deposit(money));
+    }
+
+    /** Reads bypass the queue. */
+    public int balance() { return machine.balance(); }
+
+    /** Requests currently waiting for the writer. */
+    public int pending() { return queue.size(); }
+
+    /** Stops accepting requests, completes everything already queued and stops the writer. */
+    @Override public void close() throws InterruptedException {
+        if (closed) return;
+        closed = true;
+        if (!stopped) queue.put(SHUTDOWN);
+        writer.join();
+        failRemaining();
+    }
+
+    private CompletableFuture<Money> enqueue(BatchOperation op) {
+        if (closed) throw new IllegalStateException("AsyncCashMachine is closed");
+        var request = new Request(op, new CompletableFuture<>());
+        try {
+            queue.put(request);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            request.future.completeExceptionally(e);
+            return request.future;
+        }
+        // The writer sets stopped before its final drain, so a put it could have missed sees it here
+        if (stopped) failRemaining();
+        return request.future;
+    }
+
+    private void writeLoop() {
+        List<Request> batch = new ArrayList<>(maxBatch);
+        List<BatchOperation> ops = new ArrayList<>(maxBatch);
+        boolean running = true;
+        try {
+            while (running) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    logger.warn("Writer interrupted; failing queued requests and stopping");
+                    break;
+                }
+                queue.drainTo(batch, maxBatch - 1);
+                if (batch.remove(SHUTDOWN)) {
+                    running = false;
+                    queue.drainTo(batch); // late arrivals that raced with close()
+                    batch.remove(SHUTDOWN);
+                }
+                apply(batch, ops);
+                batch.clear();
+                ops.clear();
+            }
+        } finally {
+            closed = true;
+            stopped = true;
+            failRemaining();
+        }
+    }
+
+    /** Fails whatever is left in the queue; safe to call from any thread, each request is taken once. */
+    private void failRemaining() {
+        List<Request> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        for (Request r : rest) {
+            if (r != SHUTDOWN) r.future.completeExceptionally(new IllegalStateException("AsyncCashMachine is closed"));
+        }
+    }
+
+    private void apply(List<Request> batch, List<BatchOperation> ops) {
+        if (batch.isEmpty()) return;
+        if (batch.size() == 1) {
+            applyOne(batch.get(0));
+            return;
+        }
+        for (Request r : batch) ops.add(r.op);
+        List<BatchResult> results;
+        try {
+            results = machine.process(ops);
+        } catch (RuntimeException e) {
+            batch.forEach(r -> r.future.completeExceptionally(e));
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            BatchResult result = results.get(i);
+            if (result.isSuccess()) batch.get(i).future.complete(result.money());
+            else batch.get(i).future.completeExceptionally(result.error());
+        }
+    }
+
+    private void applyOne(Request r) {
+        try {
+            if (r.op.type() == BatchOperation.Type.WITHDRAW) {
+                r.future.complete(machine.withdraw(r.op.amount()));
+            } else {
+                machine.deposit(r.op.deposit());
+                r.future.complete(r.op.deposit());
+            }
+        } catch (RuntimeException e) {
+            r.future.completeExceptionally(e);
+        }
+    }
+
+    private static final class Request {
+        final BatchOperation op;
+        final CompletableFuture<Money> future;
+
+        Request(BatchOperation op, CompletableFuture<Money> future) {
+            this.op = op;
+            this.future = future;
+        }
+    }
+}
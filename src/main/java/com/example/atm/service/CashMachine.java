@@ -3,17 +3,24 @@ package com.example.atm.service;
 
 
 import com.example.atm.adapters.SmallestDenomDivisibilityPolicy;
-import com.example.atm.domain.DispensePlan;
+import com.example.atm.domain.BatchOperation;
+import com.example.atm.domain.BatchResult;
+import com.example.atm.domain.InventoryState;
 import com.example.atm.domain.Money;
+import com.example.atm.domain.Outcome;
+import com.example.atm.domain.WithdrawResult;
 import com.example.atm.errors.Errors;
 import com.example.atm.ports.AmountPolicy;
 import com.example.atm.ports.DispenseStrategy;
 import com.example.atm.ports.Inventory;
+import com.example.atm.ports.OperationListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 
 /** Public API that orchestrates validation, planning, and inventory updates. */
 public final class CashMachine {
@@ -21,45 +28,136 @@ public final class CashMachine {
     private final Inventory inventory;
     private final DispenseStrategy strategy;
     private final AmountPolicy amountPolicy;
+    private final OperationListener listener;
 
     public CashMachine(Inventory inventory, DispenseStrategy strategy, AmountPolicy amountPolicy) {
+        this(inventory, strategy, amountPolicy, OperationListener.NONE);
+    }
+
+    /** {@code listener} sees every withdraw/deposit with its outcome and timing (metrics, audit). */
+    public CashMachine(Inventory inventory, DispenseStrategy strategy, AmountPolicy amountPolicy, OperationListener listener) {
         this.inventory = Objects.requireNonNull(inventory);
         this.strategy = Objects.requireNonNull(strategy);
         this.amountPolicy = Objects.requireNonNull(amountPolicy);
+        this.listener = Objects.requireNonNull(listener);
     }
 
     /** Deposit notes back to inventory. */
     public void deposit(Money money) {
-        logger.info("Depositing money {}",money);
         Objects.requireNonNull(money, "money");
-        inventory.add(money.asMap());
+        logger.debug("Depositing money {}", money);
+        long start = System.nanoTime();
+        Outcome outcome = Outcome.ERROR;
+        try {
+            inventory.add(money.asMap());
+            outcome = Outcome.SUCCESS;
+        } finally {
+            listener.deposited(money, outcome, start, System.nanoTime(), inventory.version());
+        }
     }
 
     /** Attempt to withdraw the exact amount, returns the dispensed notes. */
     public Money withdraw(int amount) {
-        logger.info("Withdrawing amount {}",amount);
-        amountPolicy.validate(amount);
+        return tryWithdraw(amount).orElseThrow();
+    }
 
-        if (inventory.balance() < amount) {
-            throw new Errors.InsufficientFundsException("ATM balance is insufficient");
+    /**
+     * Like {@link #withdraw} but rejections (invalid amount, insufficient funds, unformable
+     * amount, concurrent change) are returned as a {@link WithdrawResult.Failure} instead of
+     * thrown. Only unexpected errors, e.g. I/O in a persistent inventory, still throw.
+     */
+    public WithdrawResult tryWithdraw(int amount) {
+        logger.debug("Withdrawing amount {}", amount);
+        long start = System.nanoTime();
+        WithdrawResult result = null;
+        try {
+            Optional<WithdrawResult.Failure> invalid = amountPolicy.check(amount);
+            // Balance check, planning and removal happen in one inventory critical section
+            result = invalid.isPresent() ? invalid.get() : inventory.tryDispense(amount, strategy);
+            return result;
+        } finally {
+            Money notes = result instanceof WithdrawResult.Success ? ((WithdrawResult.Success) result).notes() : null;
+            Outcome outcome = result == null ? Outcome.ERROR : result.outcome();
+            listener.withdrawn(amount, notes, outcome, start, System.nanoTime(), inventory.version());
         }
+    }
 
-        var planOpt = strategy.plan(amount, inventory.snapshot());
-        if (planOpt.isEmpty()) {
-            throw new Errors.UnavailableDenominationsException("Cannot form " + amount + " with available notes");
+    /**
+     * Applies a batch of withdrawals and deposits in order under a single inventory critical
+     * section. Amounts are validated up front; each withdrawal is then planned against the
+     * counts left by the entries before it. Returns one result per operation, failures carrying
+     * the same {@code Errors} type a single {@link #withdraw} would have thrown.
+     */
+    public List<BatchResult> process(List<BatchOperation> operations) {
+        Objects.requireNonNull(operations, "operations");
+        logger.debug("Processing batch of {} operations", operations.size());
+        long start = System.nanoTime();
+        BatchResult[] results = new BatchResult[operations.size()];
+        for (int i = 0; i < results.length; i++) {
+            BatchOperation op = Objects.requireNonNull(operations.get(i), "operation");
+            if (op.type() != BatchOperation.Type.WITHDRAW) continue;
+            // Only amount rules apply here: stock-based pre-checks would ignore earlier entries' effect
+            Optional<WithdrawResult.Failure> invalid = amountPolicy.check(op.amount());
+            if (invalid.isPresent() && invalid.get().reason() == Outcome.INVALID_AMOUNT) {
+                results[i] = BatchResult.failure(invalid.get().toException());
+            }
         }
 
-        DispensePlan plan = planOpt.get();
-        // Apply the plan atomically at the inventory layer
+        BatchResult[] rejected = results.clone(); // filled before the transaction
         try {
-            inventory.remove(plan.notes().asMap());
-        } catch (IllegalStateException e) {
-            // Inventory changed concurrently; surface a domain error
-            throw new Errors.UnavailableDenominationsException("Inventory changed; please try again");
+            inventory.transact(working -> {
+                int balance = working.entrySet().stream().mapToInt(e -> e.getKey() * e.getValue()).sum();
+                for (int i = 0; i < results.length; i++) {
+                    if (results[i] != null) continue;
+                    BatchOperation op = operations.get(i);
+                    if (op.type() == BatchOperation.Type.DEPOSIT) {
+                        Money deposit = op.deposit();
+                        for (int k = 0; k < deposit.size(); k++) working.merge(deposit.denominationAt(k), deposit.countAt(k), Integer::sum);
+                        balance += op.amount();
+                        results[i] = BatchResult.success(op.deposit());
+                    } else {
+                        results[i] = planAgainst(working, balance, op.amount());
+                        if (results[i].isSuccess()) balance -= op.amount();
+                    }
+                }
+                return null;
+            });
+        } catch (Errors.InventoryChangedException e) {
+            // Only non-atomic inventories get here; nothing was applied
+            for (int i = 0; i < results.length; i++) results[i] = rejected[i] != null ? rejected[i] : BatchResult.failure(e);
+        }
+        long end = System.nanoTime();
+        long version = inventory.version();
+        for (int i = 0; i < results.length; i++) {
+            BatchOperation op = operations.get(i);
+            Outcome outcome = Outcome.of(results[i].error());
+            if (op.type() == BatchOperation.Type.DEPOSIT) listener.deposited(op.deposit(), outcome, start, end, version);
+            else listener.withdrawn(op.amount(), results[i].money(), outcome, start, end, version);
+        }
+        return List.of(results);
+    }
+
+    /** Plans one batch withdrawal and takes its notes out of the working counts. */
+    private BatchResult planAgainst(Map<Integer, Integer> working, int balance, int amount) {
+        if (balance < amount) {
+            return BatchResult.failure(new Errors.InsufficientFundsException("ATM balance is insufficient"));
+        }
+        var planOpt = strategy.plan(amount, working);
+        if (planOpt.isEmpty()) {
+            return BatchResult.failure(new Errors.UnavailableDenominationsException("Cannot form " + amount + " with available notes"));
+        }
+        Map<Integer, Integer> notes = planOpt.get().notes().asMap();
+        for (Map.Entry<Integer, Integer> e : notes.entrySet()) {
+            if (e.getValue() > working.getOrDefault(e.getKey(), 0)) {
+                return BatchResult.failure(new Errors.UnavailableDenominationsException("Cannot form " + amount + " with available notes"));
+            }
         }
-        return plan.notes();
+        notes.forEach((d,c) -> working.merge(d, -c, (have, minus) -> have + minus == 0 ? null : have + minus));
+        return BatchResult.success(planOpt.get().notes());
     }
 
     public int balance() { return inventory.balance(); }
     public Map<Integer, Integer> inventorySnapshot() { return inventory.snapshot(); }
+    /** Immutable, versioned view of the inventory; compare {@code version()} to validate caches. */
+    public InventoryState inventoryState() { return inventory.state(); }
 }
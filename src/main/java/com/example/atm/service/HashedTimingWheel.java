@@ -0,0 +1,125 @@
+package com.example.atm.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Timer for many short-lived timeouts on one thread: a ring of {@code slots} buckets, one per
+ * tick. Scheduling is a lock-free enqueue that the worker moves into the bucket of its deadline
+ * on the next tick; timeouts further out than one revolution carry a round count. Cancelling
+ * only flips the timeout's state, and the worker drops it when its bucket comes round. Timeouts
+ * fire up to one tick late, never early. Tasks run on the worker thread and must be short.
+ */
+final class HashedTimingWheel implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(HashedTimingWheel.class);
+
+    private final long tickNanos;
+    private final List<Timeout>[] wheel;
+    private final int mask;
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final Thread worker;
+    private final long startNanos;
+    private volatile boolean closed;
+    private long tick; // worker only
+
+    @SuppressWarnings("unchecked")
+    HashedTimingWheel(long tickNanos, int slots, String name) {
+        if (tickNanos <= 0) throw new IllegalArgumentException("tickNanos must be positive");
+        if (slots <= 0 || Integer.bitCount(slots) != 1) throw new IllegalArgumentException("slots must be a power of two");
+        this.tickNanos = tickNanos;
+        this.wheel = new List[slots];
+        for (int i = 0; i < slots; i++) wheel[i] = new ArrayList<>();
+        this.mask = slots - 1;
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /** Runs {@code task} on the worker thread once {@code delayNanos} have passed. */
+    Timeout schedule(Runnable task, long delayNanos) {
+        if (closed) throw new IllegalStateException("Timer is closed");
+        Timeout timeout = new Timeout(task, System.nanoTime() + Math.max(0, delayNanos));
+        added.add(timeout);
+        return timeout;
+    }
+
+    /** Stops the worker; pending timeouts never fire. */
+    @Override public void close() {
+        closed = true;
+        LockSupport.unpark(worker);
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (!closed) {
+            long deadline = startNanos + (tick + 1) * tickNanos;
+            for (long wait; !closed && (wait = deadline - System.nanoTime()) > 0; ) LockSupport.parkNanos(this, wait);
+            if (closed) break;
+            transferAdded();
+            expire(wheel[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    private void transferAdded() {
+        for (Timeout t; (t = added.poll()) != null; ) {
+            if (t.state.get() != Timeout.PENDING) continue;
+            long due = Math.max((t.deadline - startNanos + tickNanos - 1) / tickNanos - 1, tick); // tick whose end is at or after the deadline
+            t.rounds = (due - tick) / wheel.length;
+            wheel[(int) (due & mask)].add(t);
+        }
+    }
+
+    private void expire(List<Timeout> bucket) {
+        int kept = 0;
+        for (int i = 0; i < bucket.size(); i++) {
+            Timeout t = bucket.get(i);
+            if (t.state.get() != Timeout.PENDING) continue;
+            if (t.rounds > 0) {
+                t.rounds--;
+                bucket.set(kept++, t);
+                continue;
+            }
+            if (t.state.compareAndSet(Timeout.PENDING, Timeout.EXPIRED)) {
+                try {
+                    t.task.run();
+                } catch (RuntimeException e) {
+                    logger.warn("Timeout task failed", e);
+                }
+            }
+        }
+        bucket.subList(kept, bucket.size()).clear();
+    }
+
+    /** Handle for a scheduled task. */
+    static final class Timeout {
+        static final int PENDING = 0, CANCELLED = 1, EXPIRED = 2;
+
+        final Runnable task;
+        final long deadline;
+        final AtomicInteger state = new AtomicInteger(PENDING);
+        long rounds; // worker only
+
+        Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /** True if this call prevented the task from running. */
+        boolean cancel() {
+            return state.compareAndSet(PENDING, CANCELLED);
+        }
+    }
+}
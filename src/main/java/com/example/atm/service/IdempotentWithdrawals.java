@@ -0,0 +1,169 @@
+package com.example.atm.service;
+
+import com.example.atm.domain.Money;
+import com.example.atm.domain.WithdrawResult;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Withdrawals keyed by a client request id, so a terminal that resends after a timeout gets
+ * the original result instead of a second dispense.
+ *
+ * The first request for an id runs {@link CashMachine#tryWithdraw} and caches its
+ * {@link WithdrawResult}, success or rejection; a retry returns the cached result with one hash
+ * lookup. A retry that arrives while the first is still running waits for it rather than
+ * dispensing again. Unexpected errors (e.g. I/O in a persistent inventory) are not cached, so
+ * the retry runs again.
+ *
+ * Entries expire after {@code ttl} and each shard keeps at most its share of {@code maxEntries},
+ * dropping the oldest first. A request still in flight is never evicted, since its retry would
+ * dispense again; a shard may exceed its bound while they finish. The cache is split into
+ * shards by request-id hash, each with its own lock held only for the map lookup, so it does
+ * not serialise unrelated requests.
+ */
+public final class IdempotentWithdrawals {
+    public static final int DEFAULT_SHARDS = 16;
+    public static final int DEFAULT_MAX_ENTRIES = 100_000;
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(10);
+
+    private final CashMachine machine;
+    private final Shard[] shards;
+    private final long ttlNanos;
+
+    public IdempotentWithdrawals(CashMachine machine) {
+        this(machine, DEFAULT_MAX_ENTRIES, DEFAULT_TTL, DEFAULT_SHARDS);
+    }
+
+    /** {@code shards} must be a power of two. */
+    public IdempotentWithdrawals(CashMachine machine, int maxEntries, Duration ttl, int shards) {
+        this.machine = Objects.requireNonNull(machine, "machine");
+        Objects.requireNonNull(ttl, "ttl");
+        if (maxEntries <= 0) throw new IllegalArgumentException("maxEntries must be positive");
+        if (ttl.isNegative() || ttl.isZero()) throw new IllegalArgumentException("ttl must be positive");
+        if (shards <= 0 || Integer.bitCount(shards) != 1) throw new IllegalArgumentException("shards must be a power of two");
+        this.ttlNanos = ttl.toNanos();
+        this.shards = new Shard[shards];
+        int perShard = (maxEntries + shards - 1) / shards;
+        for (int i = 0; i < shards; i++) this.shards[i] = new Shard(perShard);
+    }
+
+    /** Like {@link CashMachine#withdraw}, at most once per request id. */
+    public Money withdraw(String requestId, int amount) {
+        return tryWithdraw(requestId, amount).orElseThrow();
+    }
+
+    /**
+     * Like {@link CashMachine#tryWithdraw}, at most once per request id. Throws
+     * IllegalArgumentException if the id was already used for a different amount.
+     */
+    public WithdrawResult tryWithdraw(String requestId, int amount) {
+        Objects.requireNonNull(requestId, "requestId");
+        Shard shard = shardOf(requestId);
+        Entry mine = new Entry(amount, System.nanoTime());
+        Entry existing = shard.putIfAbsent(requestId, mine, ttlNanos);
+        if (existing != null) {
+            if (existing.amount != amount) {
+                throw new IllegalArgumentException("Request " + requestId + " was for " + existing.amount + ", not " + amount);
+            }
+            try {
+                return existing.result.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+                if (e.getCause() instanceof Error) throw (Error) e.getCause();
+                throw e;
+            }
+        }
+        try {
+            WithdrawResult result = machine.tryWithdraw(amount);
+            mine.result.complete(result);
+            return result;
+        } catch (Throwable e) {
+            shard.remove(requestId, mine);
+            mine.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /** Cached and in-flight requests, including expired ones not yet evicted. */
+    public int size() {
+        int total = 0;
+        for (Shard shard : shards) total += shard.size();
+        return total;
+    }
+
+    private Shard shardOf(String requestId) {
+        int h = requestId.hashCode();
+        return shards[(h ^ (h >>> 16)) & (shards.length - 1)];
+    }
+
+    private static final class Entry {
+        final int amount;
+        final long createdNanos;
+        final CompletableFuture<WithdrawResult> result = new CompletableFuture<>();
+
+        Entry(int amount, long createdNanos) {
+            this.amount = amount;
+            this.createdNanos = createdNanos;
+        }
+    }
+
+    /**
+     * Insertion order is expiry order, since every entry has the same TTL. Eviction skips
+     * entries whose withdrawal has not finished.
+     */
+    private static final class Shard {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+        private final int maxEntries;
+
+        Shard(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        /** The live entry for {@code id}, or null after inserting {@code entry}. */
+        Entry putIfAbsent(String id, Entry entry, long ttlNanos) {
+            lock.lock();
+            try {
+                Iterator<Entry> oldest = entries.values().iterator();
+                while (oldest.hasNext()) {
+                    Entry e = oldest.next();
+                    if (entry.createdNanos - e.createdNanos < ttlNanos) break;
+                    if (e.result.isDone()) oldest.remove();
+                }
+                Entry existing = entries.get(id);
+                if (existing != null) return existing;
+                if (entries.size() >= maxEntries) {
+                    for (oldest = entries.values().iterator(); oldest.hasNext(); ) {
+                        if (oldest.next().result.isDone()) {
+                            oldest.remove();
+                            break;
+                        }
+                    }
+                }
+                entries.put(id, entry);
+                return null;
+            } finally { lock.unlock(); }
+        }
+
+        void remove(String id, Entry entry) {
+            lock.lock();
+            try {
+                entries.remove(id, entry);
+            } finally { lock.unlock(); }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return entries.size();
+            } finally { lock.unlock(); }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.atm.service;
+
+import com.example.atm.adapters.MinNotesStrategy;
+import com.example.atm.adapters.MultiCurrencyInventory;
+import com.example.atm.adapters.SmallestDenomDivisibilityPolicy;
+import com.example.atm.domain.Money;
+import com.example.atm.domain.WithdrawResult;
+import com.example.atm.ports.AmountPolicy;
+import com.example.atm.ports.DispenseStrategy;
+import com.example.atm.ports.OperationListener;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Routes operations to one {@link CashMachine} per currency of a {@link MultiCurrencyInventory},
+ * each with its own strategy and amount policy. Currencies share nothing at runtime, so a EUR
+ * withdrawal never waits for a GBP one.
+ */
+public final class MultiCurrencyCashMachine {
+    private final Map<String, CashMachine> machines;
+
+    /**
+     * Greedy planning and a policy that follows each currency's smallest stocked denomination,
+     * without the ×10 rule so 5s and coins are accepted.
+     */
+    public MultiCurrencyCashMachine(MultiCurrencyInventory inventory) {
+        this(inventory, currency -> new MinNotesStrategy(),
+                currency -> new SmallestDenomDivisibilityPolicy(inventory.inventory(currency), false),
+                OperationListener.NONE);
+    }
+
+    public MultiCurrencyCashMachine(MultiCurrencyInventory inventory,
+                                    Function<String, DispenseStrategy> strategies,
+                                    Function<String, AmountPolicy> policies,
+                                    OperationListener listener) {
+        Objects.requireNonNull(inventory, "inventory");
+        Objects.requireNonNull(strategies, "strategies");
+        Objects.requireNonNull(policies, "policies");
+        Objects.requireNonNull(listener, "listener");
+        Map<String, CashMachine> result = new LinkedHashMap<>();
+        for (String currency : inventory.currencies()) {
+            result.put(currency, new CashMachine(inventory.inventory(currency),
+                    strategies.apply(currency), policies.apply(currency), listener));
+        }
+        this.machines = Collections.unmodifiableMap(result);
+    }
+
+    public Set<String> currencies() { return machines.keySet(); }
+
+    /** The machine for one currency; throws IllegalArgumentException if unknown. */
+    public CashMachine machine(String currency) {
+        CashMachine machine = machines.get(Objects.requireNonNull(currency, "currency"));
+        if (machine == null) throw new IllegalArgumentException("Unknown currency: " + currency);
+        return machine;
+    }
+
+    public Money withdraw(String currency, int amount) {
+        return machine(currency).withdraw(amount);
+    }
+
+    public WithdrawResult tryWithdraw(String currency, int amount) {
+        return machine(currency).tryWithdraw(amount);
+    }
+
+    public void deposit(String currency, Money money) {
+        machine(currency).deposit(money);
+    }
+
+    public int balance(String currency) {
+        return machine(currency).balance();
+    }
+}
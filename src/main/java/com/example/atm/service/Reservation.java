@@ -0,0 +1,84 @@
+package com.example.atm.service;
+
+import com.example.atm.domain.Money;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Notes held for one withdrawal while the dispenser works. They are already out of the
+ * inventory, so nobody else can plan them. {@link #commit()} finalizes the withdrawal.
+ * {@link #cancel()} or expiry returns the notes to stock. Exactly one of the three wins. If
+ * returning the notes fails, the reservation goes back to HELD so the release can be retried.
+ */
+public final class Reservation {
+    public enum Status { HELD, COMMITTED, CANCELLED, EXPIRED }
+
+    private final long id;
+    private final int amount;
+    private final Money notes;
+    private final AtomicReference<Status> status = new AtomicReference<>(Status.HELD);
+    private final Consumer<Reservation> release;   // returns the notes to stock
+    private final Consumer<Reservation> committed; // notes stay out
+    private volatile HashedTimingWheel.Timeout timeout; // set after creation, replaced on expiry retry
+
+    Reservation(long id, int amount, Money notes, Consumer<Reservation> release, Consumer<Reservation> committed) {
+        this.id = id;
+        this.amount = amount;
+        this.notes = notes;
+        this.release = release;
+        this.committed = committed;
+    }
+
+    public long id() { return id; }
+    public int amount() { return amount; }
+    public Money notes() { return notes; }
+    /** CANCELLED or EXPIRED shows as soon as the release starts, before the notes are back in stock. */
+    public Status status() { return status.get(); }
+
+    /** Finalizes the withdrawal; throws IllegalStateException if it was cancelled or expired. */
+    public Money commit() {
+        if (!status.compareAndSet(Status.HELD, Status.COMMITTED)) {
+            if (status.get() == Status.COMMITTED) return notes; // idempotent
+            throw new IllegalStateException("Reservation " + id + " is " + status.get());
+        }
+        timeout.cancel();
+        committed.accept(this);
+        return notes;
+    }
+
+    /**
+     * Returns the notes to stock; false if the reservation was no longer held. If the deposit
+     * throws, the reservation is HELD again and no longer expires, so the caller can retry.
+     */
+    public boolean cancel() {
+        if (!status.compareAndSet(Status.HELD, Status.CANCELLED)) return false;
+        timeout.cancel();
+        try {
+            release.accept(this);
+        } catch (RuntimeException e) {
+            status.set(Status.HELD);
+            throw e;
+        }
+        return true;
+    }
+
+    void armed(HashedTimingWheel.Timeout timeout) {
+        this.timeout = timeout;
+    }
+
+    /** Timer callback; on a failed deposit the reservation is HELD again and the exception propagates. */
+    void expire() {
+        if (!status.compareAndSet(Status.HELD, Status.EXPIRED)) return;
+        try {
+            release.accept(this);
+        } catch (RuntimeException e) {
+            status.set(Status.HELD);
+            throw e;
+        }
+    }
+
+    @Override public String toString() {
+        return "Reservation{" + id + ", " + status.get() + ", " + notes + '}';
+    }
+}
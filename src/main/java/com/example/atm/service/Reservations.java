@@ -0,0 +1,89 @@
+package com.example.atm.service;
+
+import com.example.atm.domain.Money;
+import com.example.atm.domain.WithdrawResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Two-phase withdrawals for slow dispensers: {@link #reserve} plans and removes the notes in
+ * the usual microsecond critical section and hands back a {@link Reservation}. The caller then
+ * commits once the hardware has dispensed or cancels if it failed. Reservations that are never
+ * resolved expire after their TTL and the notes are deposited back, driven by one
+ * {@link HashedTimingWheel} thread rather than a thread or scheduled task per hold.
+ *
+ * The machine's listener sees the withdrawal when notes are reserved and a deposit when they
+ * are returned. If returning expired notes fails, the expiry is retried a second later.
+ */
+public final class Reservations implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(Reservations.class);
+    private static final long DEFAULT_TICK_MILLIS = 10;
+    private static final int DEFAULT_SLOTS = 512;
+    private static final long EXPIRY_RETRY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final CashMachine machine;
+    private final HashedTimingWheel timer;
+    private final AtomicLong ids = new AtomicLong();
+    private final LongAdder held = new LongAdder();
+
+    /** 10 ms ticks; holds of any length are supported. */
+    public Reservations(CashMachine machine) {
+        this(machine, DEFAULT_TICK_MILLIS, DEFAULT_SLOTS);
+    }
+
+    /** {@code slots} must be a power of two; expiries fire up to one tick late. */
+    public Reservations(CashMachine machine, long tickMillis, int slots) {
+        this.machine = Objects.requireNonNull(machine, "machine");
+        this.timer = new HashedTimingWheel(TimeUnit.MILLISECONDS.toNanos(tickMillis), slots, "reservation-expiry");
+    }
+
+    /** Holds notes for {@code amount}; throws the same {@code Errors} types as {@link CashMachine#withdraw}. */
+    public Reservation reserve(int amount, Duration ttl) {
+        Objects.requireNonNull(ttl, "ttl");
+        if (ttl.isNegative() || ttl.isZero()) throw new IllegalArgumentException("ttl must be positive");
+        WithdrawResult result = machine.tryWithdraw(amount);
+        Money notes = result.orElseThrow();
+        var reservation = new Reservation(ids.incrementAndGet(), amount, notes, this::release, r -> held.decrement());
+        held.increment();
+        try {
+            reservation.armed(timer.schedule(() -> expire(reservation), ttl.toNanos()));
+        } catch (IllegalStateException e) {
+            release(reservation); // closed concurrently
+            throw e;
+        }
+        return reservation;
+    }
+
+    /** Reservations currently held. */
+    public long held() { return held.sum(); }
+
+    /** Stops the expiry timer. Held reservations can still be committed or cancelled but no longer expire. */
+    @Override public void close() {
+        timer.close();
+    }
+
+    private void expire(Reservation reservation) {
+        try {
+            reservation.expire();
+        } catch (RuntimeException e) {
+            logger.warn("Cannot return expired {}; retrying", reservation, e);
+            try {
+                reservation.armed(timer.schedule(() -> expire(reservation), EXPIRY_RETRY_NANOS));
+            } catch (IllegalStateException closed) {
+                // timer closed: the reservation stays held until cancelled
+            }
+        }
+    }
+
+    private void release(Reservation reservation) {
+        machine.deposit(reservation.notes());
+        held.decrement();
+        logger.debug("Released {}", reservation);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.atm.adapters;
+
+import com.example.atm.domain.Money;
+import com.example.atm.ports.Inventory;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArrayInventoryTest {
+
+    @Test
+    void addRemoveAndBalanceWork() {
+        Inventory inv = new ArrayInventory(Map.of(50, 2, 20, 1)); // 120
+        assertEquals(120, inv.balance());
+
+        inv.add(Map.of(10, 3)); // +30, new slot
+        assertEquals(150, inv.balance());
+
+        inv.remove(Map.of(50, 1, 10, 1)); // -60
+        assertEquals(90, inv.balance());
+        assertEquals(Map.of(50, 1, 20, 1, 10, 2), inv.snapshot());
+    }
+
+    @Test
+    void denominationsAreDescendingAndSkipEmptySlots() {
+        Inventory inv = new ArrayInventory(Map.of(10, 1, 50, 1, 20, 0));
+        inv.add(Map.of(100, 1));
+        assertEquals(List.of(100, 50, 10), List.copyOf(inv.denominations()));
+    }
+
+    @Test
+    void removeIsAllOrNothing() {
+        ArrayInventory inv = new ArrayInventory(Map.of(50, 1, 20, 1));
+        assertThrows(IllegalStateException.class, () -> inv.remove(Map.of(50, 1, 20, 2)));
+        assertThrows(IllegalStateException.class, () -> inv.remove(new int[]{50, 10}, new int[]{1, 1}));
+        assertThrows(IllegalStateException.class, () -> inv.remove(new int[]{50, 50}, new int[]{1, 1}));   // summed per slot
+        assertEquals(70, inv.balance());
+        assertEquals(1, inv.count(50));
+
+        inv.remove(new int[]{20, 50, 20}, new int[]{0, 1, 1});
+        assertEquals(0, inv.balance());
+    }
+
+    @Test
+    void overflowingDepositChangesNothing() {
+        ArrayInventory inv = new ArrayInventory(Map.of(50, 1));
+        long version = inv.version();
+        assertThrows(ArithmeticException.class, () -> inv.add(Map.of(10, 1, 100, Integer.MAX_VALUE / 100)));
+        assertEquals(Map.of(50, 1), inv.snapshot());
+        assertEquals(version, inv.version());
+    }
+
+    @Test
+    void dispensePlansAgainstLiveCounts() {
+        ArrayInventory inv = new ArrayInventory(Map.of(50, 2, 20, 0, 10, 3));
+        assertEquals(new Money(Map.of(50, 2, 10, 3)), inv.dispense(130, new MinNotesStrategy()).orElseThrow().notes());
+        assertEquals(0, inv.balance());
+        assertTrue(inv.dispense(0, (amount, stock) -> {
+            assertEquals(Map.of(), stock);
+            return Optional.empty();
+        }).isEmpty());
+    }
+
+    @Test
+    void primitiveOverloadsUpdateCountsAndBalance() {
+        ArrayInventory inv = new ArrayInventory(Map.of(20, 2));
+        inv.add(20, 3);
+        inv.remove(new int[]{20}, new int[]{4});
+        assertEquals(1, inv.count(20));
+        assertEquals(0, inv.count(50));
+        assertEquals(20, inv.balance());
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.atm.adapters;
+
+import com.example.atm.domain.InventoryState;
+import com.example.atm.ports.Inventory;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CopyOnWriteInventoryTest {
+
+    @Test
+    void everyMutationPublishesNewStateWithHigherVersion() {
+        Inventory inv = new CopyOnWriteInventory(Map.of(50, 2, 20, 1));
+        InventoryState before = inv.state();
+        assertEquals(120, before.balance());
+
+        inv.add(Map.of(10, 3));
+        inv.remove(Map.of(50, 1));
+        InventoryState after = inv.state();
+
+        assertEquals(before.version() + 2, after.version());
+        assertEquals(100, after.balance());
+        assertEquals(Map.of(50, 1, 20, 1, 10, 3), after.asMap());
+        // The earlier state is untouched
+        assertEquals(120, before.balance());
+        assertEquals(2, before.count(50));
+    }
+
+    @Test
+    void failedRemoveKeepsCurrentState() {
+        Inventory inv = new CopyOnWriteInventory(Map.of(20, 1));
+        long version = inv.version();
+        assertThrows(IllegalStateException.class, () -> inv.remove(Map.of(20, 2)));
+        assertEquals(version, inv.version());
+        assertEquals(20, inv.balance());
+    }
+
+    @Test
+    void snapshotIsIndependentCopy() {
+        Inventory inv = new CopyOnWriteInventory(Map.of(10, 2));
+        var snap = inv.snapshot();
+        snap.put(10, 999);
+        assertEquals(20, inv.balance());
+    }
+}
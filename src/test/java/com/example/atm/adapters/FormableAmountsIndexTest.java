@@ -0,0 +1,90 @@
+package com.example.atm.adapters;
+
+import com.example.atm.domain.Outcome;
+import com.example.atm.service.CashMachine;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FormableAmountsIndexTest {
+
+    @Test
+    void answersReachabilityForCurrentStock() {
+        var inventory = new InMemoryInventory(Map.of(50, 1, 20, 3));
+        var index = new FormableAmountsIndex(inventory, 1_000);
+
+        assertTrue(index.isFormable(60));   // 20×3: greedy would fail, the index does not care
+        assertTrue(index.isFormable(110));
+        assertFalse(index.isFormable(30));
+        assertFalse(index.isFormable(25));
+        assertFalse(index.isFormable(120)); // above the balance
+        assertEquals(OptionalInt.of(20), index.nearestBelow(30));
+        assertEquals(OptionalInt.of(40), index.nearestAbove(30));
+        assertEquals(OptionalInt.empty(), index.nearestAbove(111));
+    }
+
+    @Test
+    void followsAddsRemovesAndNewDenominations() {
+        var inventory = new InMemoryInventory(Map.of(50, 2));
+        var index = new FormableAmountsIndex(inventory, 1_000);
+        assertFalse(index.isFormable(70));
+
+        inventory.add(Map.of(20, 1));
+        assertTrue(index.isFormable(70));
+        inventory.remove(Map.of(50, 2));
+        assertFalse(index.isFormable(70));
+        assertTrue(index.isFormable(20));
+
+        inventory.add(Map.of(5, 1));         // finer grid than before
+        assertTrue(index.isFormable(25));
+        assertFalse(index.isFormable(15));
+    }
+
+    @Test
+    void matchesBruteForceAcrossRandomChanges() {
+        Random random = new Random(42);
+        int[] denoms = { 100, 50, 20, 10 };
+        var inventory = new InMemoryInventory(Map.of(100, 2, 50, 1, 20, 2, 10, 1));
+        var index = new FormableAmountsIndex(inventory, 600);
+        for (int step = 0; step < 200; step++) {
+            int d = denoms[random.nextInt(denoms.length)];
+            Map<Integer, Integer> snapshot = inventory.snapshot();
+            if (random.nextBoolean() || snapshot.getOrDefault(d, 0) == 0) inventory.add(Map.of(d, 1 + random.nextInt(2)));
+            else inventory.remove(Map.of(d, 1));
+
+            boolean[] expected = bruteForce(inventory.snapshot(), 600);
+            for (int amount = 0; amount <= 600; amount += 10) {
+                assertEquals(expected[amount], index.isFormable(amount), "step " + step + ", amount " + amount + ", " + inventory.snapshot());
+            }
+        }
+    }
+
+    @Test
+    void policyRejectsUnformableAmountsBeforePlanning() {
+        var inventory = new InMemoryInventory(Map.of(50, 1, 10, 1));
+        var policy = new FormableAmountPolicy(new SmallestDenomDivisibilityPolicy(inventory.denominations()),
+                new FormableAmountsIndex(inventory, 1_000));
+        var atm = new CashMachine(inventory, (amount, counts) -> fail("planning should not run"), policy);
+
+        assertEquals(Outcome.UNAVAILABLE_DENOMINATIONS, atm.tryWithdraw(40).outcome());
+        assertEquals(Outcome.INVALID_AMOUNT, atm.tryWithdraw(15).outcome());
+        assertEquals(Outcome.INSUFFICIENT_FUNDS, atm.tryWithdraw(100).outcome());
+        assertEquals(60, atm.balance());
+    }
+
+    private static boolean[] bruteForce(Map<Integer, Integer> counts, int max) {
+        boolean[] reachable = new boolean[max + 1];
+        reachable[0] = true;
+        for (Map.Entry<Integer, Integer> e : new HashMap<>(counts).entrySet()) {
+            for (int k = 0; k < e.getValue(); k++) {
+                for (int a = max; a >= e.getKey(); a--) reachable[a] |= reachable[a - e.getKey()];
+            }
+        }
+        return reachable;
+    }
+}
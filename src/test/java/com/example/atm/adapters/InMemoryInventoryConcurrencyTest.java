@@ -4,8 +4,9 @@ package com.example.atm.adapters;
 
 
 import com.example.atm.ports.Inventory;
-import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
 import java.util.Map;
 import java.util.concurrent.*;
@@ -15,10 +16,12 @@ import static org.junit.jupiter.api.Assertions.*;
 
 class InMemoryInventoryConcurrencyTest {
 
-    @Test
+    @ParameterizedTest
+    @ValueSource(strings = { "InMemory", "PackedAtomic" })
     @Timeout(10) //
-    void concurrentAddRemoveCompletesAndBalanceMatchesOperations() throws Exception {
-        Inventory inv = new InMemoryInventory(Map.of(10, 1000)); // start with 1,000 × £10 = £10,000
+    void concurrentAddRemoveCompletesAndBalanceMatchesOperations(String kind) throws Exception {
+        Map<Integer, Integer> initial = Map.of(10, 1000); // start with 1,000 × £10 = £10,000
+        Inventory inv = kind.equals("InMemory") ? new InMemoryInventory(initial) : new PackedAtomicInventory(initial);
 
         int iterations = 50_000;
         ExecutorService pool = Executors.newFixedThreadPool(4);
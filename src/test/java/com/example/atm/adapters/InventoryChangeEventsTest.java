@@ -0,0 +1,143 @@
+package com.example.atm.adapters;
+
+import com.example.atm.domain.InventoryChange;
+import com.example.atm.ports.Inventory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InventoryChangeEventsTest {
+
+    private static final Map<String, Function<Map<Integer, Integer>, Inventory>> KINDS = Map.of(
+            "InMemory", InMemoryInventory::new,
+            "Array", ArrayInventory::new,
+            "CopyOnWrite", CopyOnWriteInventory::new);
+
+    @ParameterizedTest
+    @ValueSource(strings = { "InMemory", "Array", "CopyOnWrite" })
+    void deliversDeltasAndVersions(String kind) throws InterruptedException {
+        Inventory inventory = KINDS.get(kind).apply(Map.of(50, 2, 20, 1));
+        var events = new LinkedBlockingQueue<InventoryChange>();
+        try (var subscription = inventory.subscribe(events::add)) {
+            inventory.add(Map.of(10, 3));
+            InventoryChange first = awaitVersion(events, inventory.version());
+            assertEquals(Map.of(10, 3), first.deltas());
+            assertEquals(3, first.delta(10));
+            assertEquals(0, first.delta(50));
+
+            inventory.transact(working -> working.remove(20));
+            InventoryChange second = awaitVersion(events, inventory.version());
+            assertEquals(Map.of(20, -1), second.deltas());
+            assertEquals(first.version(), second.previousVersion());
+            assertEquals(inventory.snapshot(), second.state().asMap());
+        }
+    }
+
+    @Test
+    void slowSubscribersSeeCoalescedBursts() throws InterruptedException {
+        var inventory = new InMemoryInventory(Map.of(10, 1));
+        var release = new CountDownLatch(1);
+        List<InventoryChange> received = new CopyOnWriteArrayList<>();
+        try (var subscription = inventory.subscribe(change -> {
+            received.add(change);
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        })) {
+            inventory.add(Map.of(10, 1));
+            while (received.isEmpty()) Thread.sleep(1);  // subscriber is now stuck on the first event
+            for (int i = 0; i < 100; i++) inventory.add(Map.of(20, 1));
+            release.countDown();
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (received.get(received.size() - 1).version() != inventory.version() && System.nanoTime() < deadline) Thread.sleep(1);
+            assertEquals(inventory.version(), received.get(received.size() - 1).version());
+            assertTrue(received.size() <= 3, "expected coalescing, got " + received.size() + " events");
+            int net = received.stream().mapToInt(c -> c.delta(20)).sum();
+            assertEquals(100, net);
+            for (int i = 1; i < received.size(); i++) {
+                assertEquals(received.get(i - 1).version(), received.get(i).previousVersion());
+            }
+        }
+    }
+
+    @Test
+    void closedSubscriptionsStopReceiving() throws InterruptedException {
+        var inventory = new CopyOnWriteInventory(Map.of(10, 1));
+        var events = new LinkedBlockingQueue<InventoryChange>();
+        inventory.subscribe(events::add).close();
+        inventory.add(Map.of(10, 1));
+        assertNull(events.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "InMemory", "Array" })
+    void deliveryNeverWaitsForTheInventoryLock(String kind) throws Exception {
+        Inventory inventory = KINDS.get(kind).apply(Map.of(10, 1));
+        var events = new LinkedBlockingQueue<InventoryChange>();
+        var holding = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        try (var subscription = inventory.subscribe(events::add)) {
+            inventory.add(Map.of(20, 1));
+            Thread writer = new Thread(() -> inventory.transact(working -> {
+                holding.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            }));
+            writer.start();
+            assertTrue(holding.await(5, TimeUnit.SECONDS));
+            try {
+                InventoryChange change = events.poll(5, TimeUnit.SECONDS);   // delivered while the lock is held
+                assertNotNull(change);
+                assertEquals(1, change.delta(20));
+            } finally {
+                release.countDown();
+                writer.join();
+            }
+        }
+    }
+
+    @Test
+    void policyFollowsTheSmallestStockedDenomination() throws InterruptedException {
+        var inventory = new InMemoryInventory(Map.of(50, 1, 20, 2));
+        try (var policy = new SmallestDenomDivisibilityPolicy(inventory)) {
+            assertEquals(20, policy.smallestDenomination());
+            inventory.add(Map.of(10, 1));
+            awaitSmallest(policy, 10);
+            assertTrue(policy.check(30).isEmpty());
+            inventory.remove(Map.of(10, 1, 20, 2));
+            awaitSmallest(policy, 50);
+            assertTrue(policy.check(30).isPresent());
+        }
+    }
+
+    private static void awaitSmallest(SmallestDenomDivisibilityPolicy policy, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (policy.smallestDenomination() != expected && System.nanoTime() < deadline) Thread.sleep(1);
+        assertEquals(expected, policy.smallestDenomination());
+    }
+
+    private static InventoryChange awaitVersion(LinkedBlockingQueue<InventoryChange> events, long version) throws InterruptedException {
+        while (true) {
+            InventoryChange change = events.poll(5, TimeUnit.SECONDS);
+            assertNotNull(change, "no event for version " + version);
+            if (change.version() == version) return change;
+        }
+    }
+}
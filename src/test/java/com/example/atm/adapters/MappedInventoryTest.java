@@ -0,0 +1,161 @@
+package com.example.atm.adapters;
+
+import com.example.atm.domain.InventoryState;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedInventoryTest {
+
+    @TempDir Path dir;
+
+    @Test
+    void instancesOnOneFileShareCountsAndVersions() {
+        Path file = dir.resolve("inventory.map");
+        try (var first = MappedInventory.open(file, Map.of(50, 2, 20, 3, 10, 0));
+             var second = MappedInventory.open(file, Map.of(100, 9))) {   // initial ignored: file exists
+            first.remove(Map.of(50, 1, 20, 1));
+            assertEquals(Map.of(50, 1, 20, 2), second.snapshot());
+            second.add(Map.of(10, 4));
+            assertEquals(130, first.balance());
+            assertEquals(2, first.version());
+            assertThrows(IllegalStateException.class, () -> second.remove(Map.of(50, 1, 20, 3)));
+            assertThrows(IllegalArgumentException.class, () -> second.add(Map.of(100, 1)));
+            assertThrows(IllegalStateException.class, () -> second.remove(Map.of(100, 1)));
+            assertThrows(IllegalArgumentException.class, () -> second.remove(Map.of(-10, 1)));
+            assertThrows(IllegalArgumentException.class, () -> second.remove(Collections.singletonMap(10, null)));
+            assertEquals(first.state().asMap(), second.state().asMap());
+            assertTrue(first.dispense(60, new OptimalNotesStrategy()).isPresent());
+            assertEquals(Map.of(20, 2, 10, 3), second.snapshot());   // 50 + 10
+        }
+        try (var reopened = MappedInventory.open(file, Map.of())) {
+            assertEquals(Map.of(20, 2, 10, 3), reopened.snapshot());
+            assertEquals(3, reopened.version());
+        }
+    }
+
+    @Test
+    @Timeout(20)
+    void readersNeverSeeHalfAppliedUpdates() throws InterruptedException {
+        Path file = dir.resolve("inventory.map");
+        try (var a = MappedInventory.open(file, Map.of(50, 100, 10, 500)); var b = MappedInventory.open(file, Map.of())) {
+            ExecutorService pool = Executors.newFixedThreadPool(4);
+            AtomicBoolean stop = new AtomicBoolean();
+            AtomicInteger failures = new AtomicInteger();
+            for (MappedInventory inv : new MappedInventory[] { a, b }) {
+                pool.execute(() -> {   // swap one 50 for five 10s and back: the balance never changes
+                    for (int i = 0; i < 5_000; i++) {
+                        inv.transact(working -> working.merge(10, 5, Integer::sum) + working.merge(50, -1, Integer::sum));
+                        inv.transact(working -> working.merge(10, -5, Integer::sum) + working.merge(50, 1, Integer::sum));
+                    }
+                });
+                pool.execute(() -> {
+                    while (!stop.get()) {
+                        InventoryState state = inv.state();
+                        if (state.balance() != 10_000 || inv.balance() != 10_000) failures.incrementAndGet();
+                    }
+                });
+            }
+            pool.shutdown();
+            while (!pool.awaitTermination(10, TimeUnit.MILLISECONDS)) {
+                if (a.version() == 20_000) stop.set(true);
+            }
+            assertEquals(0, failures.get());
+            assertEquals(Map.of(50, 100, 10, 500), b.snapshot());
+        }
+    }
+
+    @Test
+    @Timeout(20)
+    void takesOverTheLockOfAnExitedProcess() throws Exception {
+        Path file = dir.resolve("inventory.map");
+        try (var inv = MappedInventory.open(file, Map.of(10, 1))) {
+            Process dead = new ProcessBuilder(javaExecutable(), "-version").start();
+            dead.waitFor();
+            writeLong(file, MappedInventory.LOCK, dead.pid() << 32 | 1);
+            inv.add(Map.of(10, 1));
+            assertEquals(20, inv.balance());
+        }
+    }
+
+    @Test
+    @Timeout(20)
+    void takesOverTheLockOfAReusedPidButNotOfItsLiveOwner() throws Exception {
+        Path file = dir.resolve("inventory.map");
+        try (var inv = MappedInventory.open(file, Map.of(10, 1))) {
+            // Held under this process's pid by a process that started at another time
+            long owner = ProcessHandle.current().pid() << 32 | 0xFFFF_FFFFL;
+            writeLong(file, MappedInventory.STARTED, MappedInventory.STARTED_AT - 1_000);
+            writeLong(file, MappedInventory.OWNER, owner);
+            writeLong(file, MappedInventory.LOCK, owner);
+            inv.add(Map.of(10, 1));
+            assertEquals(20, inv.balance());
+
+            // Held by the live process with that pid: waited for, never stolen
+            writeLong(file, MappedInventory.STARTED, MappedInventory.STARTED_AT);
+            writeLong(file, MappedInventory.OWNER, owner);
+            writeLong(file, MappedInventory.LOCK, owner);
+            ExecutorService pool = Executors.newSingleThreadExecutor();
+            var deposit = pool.submit(() -> inv.add(Map.of(10, 1)));
+            Thread.sleep(100);
+            assertFalse(deposit.isDone());
+            writeLong(file, MappedInventory.LOCK, 0);
+            deposit.get(10, TimeUnit.SECONDS);
+            pool.shutdown();
+            assertEquals(30, inv.balance());
+        }
+    }
+
+    @Test
+    @Timeout(60)
+    void anotherJvmSeesAndMakesChanges() throws Exception {
+        Path file = dir.resolve("inventory.map");
+        try (var inv = MappedInventory.open(file, Map.of(20, 5, 10, 5))) {
+            inv.remove(Map.of(20, 1));
+            Process child = new ProcessBuilder(javaExecutable(), "-cp", System.getProperty("java.class.path"),
+                    Depositor.class.getName(), file.toString())
+                    .redirectErrorStream(true).start();
+            String output = new String(child.getInputStream().readAllBytes());
+            assertEquals(0, child.waitFor(), output);
+            assertTrue(output.contains("balance=130"), output);   // saw this process's removal
+            assertEquals(Map.of(20, 4, 10, 8), inv.snapshot());    // and we see its deposit
+            assertEquals(2, inv.version());
+        }
+    }
+
+    /** Runs in a separate JVM. */
+    static final class Depositor {
+        public static void main(String[] args) {
+            try (var inv = MappedInventory.open(Path.of(args[0]), Map.of())) {
+                System.out.println("balance=" + inv.balance());
+                inv.add(Map.of(10, 3));
+            }
+        }
+    }
+
+    private static void writeLong(Path file, int offset, long value) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(8).order(ByteOrder.nativeOrder()).putLong(0, value), offset);
+        }
+    }
+
+    private static String javaExecutable() throws IOException {
+        return Path.of(System.getProperty("java.home"), "bin", "java").toString();
+    }
+}
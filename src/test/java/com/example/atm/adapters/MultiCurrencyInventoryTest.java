@@ -0,0 +1,92 @@
+package com.example.atm.adapters;
+
+import com.example.atm.domain.Cassette;
+import com.example.atm.ports.Inventory;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiCurrencyInventoryTest {
+
+    private final MultiCurrencyInventory inventory = new MultiCurrencyInventory(List.of(
+            new Cassette("eur-1", "EUR", 20, 100, 500),
+            new Cassette("eur-2", "EUR", 20, 100, 500),
+            new Cassette("eur-3", "EUR", 50, 40, 500),
+            new Cassette("gbp-1", "GBP", 20, 50, 200),
+            new Cassette("gbp-2", "GBP", 5, 50, 200)));
+
+    @Test
+    void eachCurrencyIsItsOwnInventory() {
+        Inventory eur = inventory.inventory("EUR");
+        Inventory gbp = inventory.inventory("GBP");
+        assertEquals(Map.of(20, 200, 50, 40), eur.snapshot());
+        assertEquals(1_250, gbp.balance());
+
+        eur.remove(Map.of(20, 3));
+        assertEquals(1, eur.version());
+        assertEquals(0, gbp.version());
+        assertEquals(Map.of(20, 50, 5, 50), gbp.snapshot());
+        assertEquals(List.of("EUR", "GBP"), List.copyOf(inventory.currencies()));
+        assertThrows(IllegalArgumentException.class, () -> inventory.inventory("USD"));
+    }
+
+    @Test
+    void removalsSpreadWearAcrossCassettes() {
+        Inventory eur = inventory.inventory("EUR");
+        for (int i = 0; i < 50; i++) eur.remove(Map.of(20, 3));
+        Cassette first = cassette("eur-1"), second = cassette("eur-2");
+        assertEquals(150, first.wear() + second.wear());
+        assertTrue(Math.abs(first.wear() - second.wear()) <= 3, first + " vs " + second);
+        assertEquals(200 - 150, first.count() + second.count());
+
+        eur.remove(Map.of(20, 50));   // more than either cassette holds alone
+        assertEquals(0, eur.count(20));
+    }
+
+    @Test
+    void depositsFillTheEmptiestCassetteWithinCapacity() {
+        Inventory eur = inventory.inventory("EUR");
+        eur.remove(Map.of(20, 60));   // all from one cassette: 40 and 100 left
+        eur.add(Map.of(20, 70));
+        assertEquals(105, cassette("eur-1").count());
+        assertEquals(105, cassette("eur-2").count());
+
+        assertThrows(IllegalArgumentException.class, () -> eur.add(Map.of(10, 1)));
+        assertThrows(IllegalStateException.class, () -> eur.add(Map.of(20, 791)));
+        assertThrows(IllegalStateException.class, () -> eur.remove(Map.of(20, 1, 50, 41)));
+        assertEquals(Map.of(20, 210, 50, 40), eur.snapshot());   // all-or-nothing
+    }
+
+    @Test
+    void currenciesDoNotContend() throws Exception {
+        var holding = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        CompletableFuture<Void> eurWriter = CompletableFuture.runAsync(() -> inventory.inventory("EUR").transact(working -> {
+            holding.countDown();
+            try {
+                release.await();   // keep the EUR lock held
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return working.put(50, 39);
+        }));
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Void> gbp = CompletableFuture.runAsync(() -> inventory.inventory("GBP").remove(Map.of(5, 2)));
+        gbp.get(5, TimeUnit.SECONDS);   // finishes while EUR is locked
+        assertFalse(eurWriter.isDone());
+        release.countDown();
+        eurWriter.get(5, TimeUnit.SECONDS);
+        assertEquals(39, inventory.inventory("EUR").count(50));
+        assertEquals(48, inventory.inventory("GBP").count(5));
+    }
+
+    private Cassette cassette(String id) {
+        return inventory.cassettes().stream().filter(c -> c.id().equals(id)).findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.atm.adapters;
+
+import com.example.atm.domain.InventoryState;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackedAtomicInventoryTest {
+
+    @Test
+    void removalsAreAllOrNothing() {
+        var inv = new PackedAtomicInventory(Map.of(50, 2, 20, 1, 10, 3));
+        assertThrows(IllegalStateException.class, () -> inv.remove(Map.of(50, 1, 20, 2)));
+        assertEquals(Map.of(50, 2, 20, 1, 10, 3), inv.snapshot());
+        assertEquals(0, inv.version());
+
+        inv.remove(Map.of(50, 1, 10, 3));
+        assertEquals(Map.of(50, 1, 20, 1), inv.snapshot());
+        assertEquals(70, inv.balance());
+        assertEquals(0, inv.count(10));
+        assertEquals(1, inv.version());
+    }
+
+    @Test
+    void denominationsAndCapacityAreFixed() {
+        var inv = new PackedAtomicInventory(Map.of(50, 1, 20, 1, 10, 1, 5, 1));
+        assertEquals(8191, inv.capacity());
+        assertThrows(IllegalArgumentException.class, () -> inv.add(Map.of(100, 1)));
+        assertThrows(IllegalStateException.class, () -> inv.add(Map.of(10, 8191)));
+        inv.add(Map.of(10, 8190));
+        assertEquals(8191, inv.count(10));
+        assertThrows(IllegalStateException.class, () -> inv.remove(Map.of(100, 1)));
+        assertThrows(IllegalArgumentException.class, () -> inv.remove(Map.of(-5, 1)));
+        assertThrows(IllegalArgumentException.class, () -> inv.remove(Collections.singletonMap(10, null)));
+
+        assertEquals(Integer.MAX_VALUE, new PackedAtomicInventory(Map.of(10, 1)).capacity());
+        assertEquals(Integer.MAX_VALUE, new PackedAtomicInventory(Map.of()).capacity());
+        assertThrows(IllegalArgumentException.class, () -> new PackedAtomicInventory(Map.of(10, 8192, 20, 1, 50, 1, 100, 1)));
+        Map<Integer, Integer> five = new HashMap<>();
+        for (int i = 1; i <= 5; i++) five.put(i * 10, 1);
+        assertThrows(IllegalArgumentException.class, () -> new PackedAtomicInventory(five));
+    }
+
+    @Test
+    void dispenseAndTransactApplyAtomically() {
+        var inv = new PackedAtomicInventory(Map.of(50, 2, 20, 3));
+        assertEquals(Optional.empty(), inv.dispense(30, new MinNotesStrategy()));
+        assertTrue(inv.dispense(90, new OptimalNotesStrategy()).isPresent());
+        assertEquals(Map.of(50, 1, 20, 1), inv.snapshot());
+
+        assertThrows(IllegalArgumentException.class, () -> inv.transact(working -> working.put(10, 1)));
+        assertEquals(Map.of(50, 1, 20, 1), inv.snapshot());
+        int result = inv.transact(working -> {
+            working.merge(20, 4, Integer::sum);
+            working.remove(50);
+            return 7;
+        });
+        assertEquals(7, result);
+        InventoryState state = inv.state();
+        assertEquals(Map.of(20, 5), state.asMap());
+        assertEquals(2, state.version());
+        inv.add(Map.of(50, 1));   // the busy bit is clear again
+        assertEquals(3, inv.version());
+    }
+
+    @Test
+    void versionsSurviveStampWraparound() {
+        var inv = new PackedAtomicInventory(Map.of(10, 1));
+        for (int i = 0; i < 5_000; i++) inv.add(Map.of(10, i % 2 == 0 ? 1 : 0));
+        assertEquals(5_000, inv.version());
+        assertEquals(5_000, inv.state().version());
+        assertEquals(2_501, inv.count(10));
+    }
+
+    @Test
+    @Timeout(20)
+    void readersNeverSeeHalfAppliedExchanges() throws InterruptedException {
+        // writers swap one 50 for five 10s and back, so the balance never changes
+        var inv = new PackedAtomicInventory(Map.of(50, 100, 10, 500));
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicInteger failures = new AtomicInteger();
+        for (int t = 0; t < 2; t++) {
+            pool.execute(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    inv.transact(working -> {
+                        working.merge(50, -1, Integer::sum);
+                        return working.merge(10, 5, Integer::sum);
+                    });
+                    inv.transact(working -> {
+                        working.merge(50, 1, Integer::sum);
+                        return working.merge(10, -5, Integer::sum);
+                    });
+                }
+            });
+        }
+        for (int t = 0; t < 2; t++) {
+            pool.execute(() -> {
+                long lastVersion = -1;
+                while (!stop.get()) {
+                    InventoryState state = inv.state();
+                    if (inv.balance() != 10_000 || state.balance() != 10_000 || state.version() < lastVersion) failures.incrementAndGet();
+                    lastVersion = state.version();
+                }
+            });
+        }
+        Thread.sleep(50);
+        pool.shutdown();
+        while (!pool.awaitTermination(10, TimeUnit.MILLISECONDS)) {
+            if (inv.version() == 80_000) stop.set(true);
+        }
+        assertEquals(0, failures.get());
+        assertEquals(80_000, inv.version());
+        assertEquals(Map.of(50, 100, 10, 500), inv.snapshot());
+    }
+}
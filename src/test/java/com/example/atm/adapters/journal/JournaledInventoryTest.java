@@ -0,0 +1,216 @@
+package com.example.atm.adapters.journal;
+
+import com.example.atm.adapters.MinNotesStrategy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournaledInventoryTest {
+
+    @TempDir
+    Path dir;
+
+    @ParameterizedTest
+    @EnumSource(Durability.class)
+    void stateSurvivesReopen(Durability durability) {
+        try (var inv = JournaledInventory.open(dir, Map.of(50, 2, 20, 3), durability)) {
+            inv.add(Map.of(10, 4));
+            inv.remove(Map.of(20, 1));
+            assertTrue(inv.dispense(100, new MinNotesStrategy()).isPresent());
+        }
+        try (var reopened = JournaledInventory.open(dir, Map.of(), durability)) {
+            assertEquals(Map.of(20, 2, 10, 4), reopened.snapshot());
+            assertEquals(80, reopened.balance());
+        }
+    }
+
+    @Test
+    void transactIsLoggedAsOneRecord() {
+        try (var inv = JournaledInventory.open(dir, Map.of(50, 2, 20, 1), Durability.PER_OP)) {
+            inv.transact(working -> {
+                working.remove(50);
+                working.merge(20, 4, Integer::sum);
+                working.put(10, 2);
+                return null;
+            });
+            assertEquals(1, inv.version());
+        }
+        try (var reopened = JournaledInventory.open(dir, Map.of(), Durability.PER_OP)) {
+            assertEquals(Map.of(20, 5, 10, 2), reopened.snapshot());
+        }
+    }
+
+    @Test
+    void concurrentGroupCommitsAreAllReplayed() throws Exception {
+        try (var inv = JournaledInventory.open(dir, Map.of(10, 0), Durability.GROUP)) {
+            ExecutorService pool = Executors.newFixedThreadPool(8);
+            for (int i = 0; i < 2_000; i++) pool.submit(() -> inv.add(Map.of(10, 1)));
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+            assertEquals(20_000, inv.balance());
+        }
+        try (var reopened = JournaledInventory.open(dir, Map.of(), Durability.GROUP)) {
+            assertEquals(20_000, reopened.balance());
+        }
+    }
+
+    @Test
+    void tornTailIsTruncatedOnReplay() throws Exception {
+        try (var inv = JournaledInventory.open(dir, Map.of(20, 1), Durability.PER_OP)) {
+            inv.add(Map.of(20, 1));
+        }
+        Path segment = onlySegment();
+        long intact = Files.size(segment);
+        Files.write(segment, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (var reopened = JournaledInventory.open(dir, Map.of(), Durability.PER_OP)) {
+            assertEquals(40, reopened.balance());
+            assertEquals(intact, Files.size(segment));
+            reopened.add(Map.of(50, 1));
+        }
+        try (var again = JournaledInventory.open(dir, Map.of(), Durability.PER_OP)) {
+            assertEquals(90, again.balance());
+        }
+    }
+
+    @Test
+    void checkpointTruncatesCoveredSegmentsAndRestartReplaysOnlyTheTail() throws Exception {
+        try (var inv = JournaledInventory.open(dir, Map.of(20, 10), Durability.GROUP, 1_000_000)) {
+            for (int i = 0; i < 5; i++) inv.remove(Map.of(20, 1));
+            inv.checkpoint();
+            inv.add(Map.of(50, 1));
+            assertEquals(6, inv.version());
+        }
+        // One checkpoint at seq 5, one live segment starting at seq 6
+        assertEquals(1, files("checkpoint-").size());
+        assertEquals(1, files("journal-").size());
+        assertTrue(files("journal-").get(0).endsWith("journal-00000000000000000006.log"));
+
+        try (var reopened = JournaledInventory.open(dir, Map.of(), Durability.GROUP)) {
+            assertEquals(Map.of(20, 5, 50, 1), reopened.snapshot());
+            assertEquals(6, reopened.version());
+        }
+    }
+
+    @Test
+    void backgroundCheckpointsKeepDirectoryBounded() throws Exception {
+        try (var inv = JournaledInventory.open(dir, Map.of(10, 0), Durability.ASYNC, 100)) {
+            for (int i = 0; i < 1_000; i++) inv.add(Map.of(10, 1));
+        }
+        assertTrue(files("journal-").size() <= 3, "segments: " + files("journal-"));
+        try (var reopened = JournaledInventory.open(dir, Map.of(), Durability.ASYNC)) {
+            assertEquals(10_000, reopened.balance());
+        }
+    }
+
+    @Test
+    void gapInTheLogFailsReplay() {
+        try (var inv = JournaledInventory.open(dir, Map.of(20, 1), Durability.PER_OP)) {
+            inv.add(Map.of(20, 1));
+        }
+        // A segment starting at seq 3 while seq 2 never made it to disk
+        var files = new JournalDirectory(dir);
+        try (var orphan = new Journal(files.segment(3), 2, Durability.PER_OP)) {
+            orphan.append(Journal.ADD, Map.of(20, 1));
+        }
+
+        var e = assertThrows(IllegalStateException.class, () -> JournaledInventory.open(dir, Map.of(), Durability.PER_OP));
+        assertTrue(e.getMessage().contains("gap"), e.getMessage());
+    }
+
+    @Test
+    void failedGroupCommitFailsEveryLaterRead() {
+        AtomicBoolean diskFailing = new AtomicBoolean();
+        var inv = JournaledInventory.open(dir, Map.of(20, 1), Durability.GROUP, 1_000_000,
+                (segment, lastSeq, durability) -> new Journal(new FailingChannel(segment, diskFailing), lastSeq, durability));
+        inv.add(Map.of(20, 1));
+        diskFailing.set(true);
+
+        assertThrows(UncheckedIOException.class, () -> inv.add(Map.of(50, 1)));
+        // The deposit was published before the commit failed; nothing may report it now
+        assertThrows(UncheckedIOException.class, inv::balance);
+        assertThrows(UncheckedIOException.class, inv::snapshot);
+        assertThrows(UncheckedIOException.class, inv::state);
+        assertThrows(UncheckedIOException.class, () -> inv.remove(Map.of(20, 1)));
+        assertThrows(UncheckedIOException.class, inv::checkpoint);
+        assertThrows(UncheckedIOException.class, inv::close);
+
+        try (var reopened = JournaledInventory.open(dir, Map.of(), Durability.GROUP)) {
+            assertEquals(Map.of(20, 2), reopened.snapshot());
+        }
+    }
+
+    private Path onlySegment() throws Exception {
+        List<String> segments = files("journal-");
+        assertEquals(1, segments.size());
+        return dir.resolve(segments.get(0));
+    }
+
+    private List<String> files(String prefix) throws Exception {
+        try (var stream = Files.list(dir)) {
+            return stream.map(p -> p.getFileName().toString())
+                    .filter(n -> n.startsWith(prefix) && !n.endsWith(".tmp"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /** A segment file whose writes and fsyncs fail once {@code failing} is set, like a dying disk. */
+    private static final class FailingChannel extends FileChannel {
+        private final FileChannel file;
+        private final AtomicBoolean failing;
+
+        FailingChannel(Path segment, AtomicBoolean failing) {
+            try {
+                this.file = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.failing = failing;
+        }
+
+        private void check() throws IOException {
+            if (failing.get()) throw new IOException("Input/output error");
+        }
+
+        @Override public int write(ByteBuffer src) throws IOException { check(); return file.write(src); }
+        @Override public long write(ByteBuffer[] srcs, int offset, int length) throws IOException { check(); return file.write(srcs, offset, length); }
+        @Override public int write(ByteBuffer src, long position) throws IOException { check(); return file.write(src, position); }
+        @Override public void force(boolean metaData) throws IOException { check(); file.force(metaData); }
+        @Override public int read(ByteBuffer dst) throws IOException { return file.read(dst); }
+        @Override public long read(ByteBuffer[] dsts, int offset, int length) throws IOException { return file.read(dsts, offset, length); }
+        @Override public int read(ByteBuffer dst, long position) throws IOException { return file.read(dst, position); }
+        @Override public long position() throws IOException { return file.position(); }
+        @Override public FileChannel position(long newPosition) throws IOException { file.position(newPosition); return this; }
+        @Override public long size() throws IOException { return file.size(); }
+        @Override public FileChannel truncate(long size) throws IOException { file.truncate(size); return this; }
+        @Override public long transferTo(long position, long count, WritableByteChannel target) throws IOException { return file.transferTo(position, count, target); }
+        @Override public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException { return file.transferFrom(src, position, count); }
+        @Override public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException { return file.map(mode, position, size); }
+        @Override public FileLock lock(long position, long size, boolean shared) throws IOException { return file.lock(position, size, shared); }
+        @Override public FileLock tryLock(long position, long size, boolean shared) throws IOException { return file.tryLock(position, size, shared); }
+        @Override protected void implCloseChannel() throws IOException { file.close(); }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.atm.audit;
+
+import com.example.atm.adapters.InMemoryInventory;
+import com.example.atm.adapters.MinNotesStrategy;
+import com.example.atm.adapters.SmallestDenomDivisibilityPolicy;
+import com.example.atm.domain.Money;
+import com.example.atm.domain.Outcome;
+import com.example.atm.service.CashMachine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditTrailTest {
+
+    @TempDir Path dir;
+
+    @Test
+    void recordsEveryOperationWithOutcomeAndVersion() throws IOException {
+        var inventory = new InMemoryInventory(Map.of(50, 2, 20, 3, 10, 5));
+        try (var audit = new AuditTrail(dir)) {
+            var atm = new CashMachine(inventory, new MinNotesStrategy(), new SmallestDenomDivisibilityPolicy(inventory.denominations()), audit);
+            atm.withdraw(130);
+            assertThrows(RuntimeException.class, () -> atm.withdraw(15));
+            atm.deposit(new Money(Map.of(20, 1)));
+        }
+
+        List<String> lines = lines();
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0).matches("\\S+Z WITHDRAW SUCCESS amount=130 version=1 latencyNs=\\d+ notes=.*"), lines.get(0));
+        assertTrue(lines.get(0).contains("50x2") && lines.get(0).contains("20x1") && lines.get(0).contains("10x1"));
+        assertTrue(lines.get(1).contains("WITHDRAW INVALID_AMOUNT amount=15 version=1"), lines.get(1));
+        assertFalse(lines.get(1).contains("notes="));
+        assertTrue(lines.get(2).contains("DEPOSIT SUCCESS amount=20 version=2"), lines.get(2));
+        assertTrue(lines.get(2).endsWith("notes=20x1"));
+    }
+
+    @Test
+    void concurrentWritersWrapTheRingAndAccountForEveryRecord() throws Exception {
+        int threads = 4, perThread = 2_000;
+        var audit = new AuditTrail(dir, 16, 1 << 20, 100);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            pool.execute(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    audit.withdrawn(id * perThread + i, null, Outcome.INSUFFICIENT_FUNDS, 0, 1, i);
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+        audit.close();
+
+        // Records are only dropped if the drainer falls a full ring behind for a millisecond
+        assertEquals(threads * perThread, audit.claimed() + audit.dropped());
+        assertEquals(audit.claimed(), audit.drained());
+        assertTrue(audit.claimed() > 16, "claimed " + audit.claimed());
+        List<Integer> amounts = new ArrayList<>();
+        for (String line : lines()) {
+            int from = line.indexOf("amount=") + 7;
+            amounts.add(Integer.parseInt(line.substring(from, line.indexOf(' ', from))));
+        }
+        assertEquals(audit.claimed(), amounts.size());
+        assertEquals(amounts.size(), new HashSet<>(amounts).size());
+    }
+
+    @Test
+    void failingFileNeverBlocksCallers() throws Exception {
+        Path auditDir = dir.resolve("audit");
+        var audit = new AuditTrail(auditDir, 16, 200, 3);
+        try (Stream<Path> s = Files.list(auditDir)) {
+            for (Path f : s.toList()) Files.delete(f);
+        }
+        Files.delete(auditDir);   // the next roll cannot open a file
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            for (int i = 0; i < 1_000; i++) audit.deposited(new Money(Map.of(10, 1)), Outcome.SUCCESS, 0, 1, i);
+            audit.close();
+        });
+        assertEquals(1_000, audit.claimed() + audit.dropped());
+        assertEquals(audit.claimed(), audit.drained());
+    }
+
+    @Test
+    void recordsHowManyNotesWereCutOff() throws IOException {
+        Map<Integer, Integer> many = new HashMap<>();
+        for (int d = 1; d <= AuditTrail.MAX_NOTES + 3; d++) many.put(d, 1);
+        try (var audit = new AuditTrail(dir)) {
+            audit.deposited(new Money(many), Outcome.SUCCESS, 0, 1, 1);
+        }
+        String line = lines().get(0);
+        assertTrue(line.endsWith(" notesTruncated=3"), line);
+        assertEquals(AuditTrail.MAX_NOTES, line.split("notes=")[1].split(" ")[0].split(",").length);
+    }
+
+    @Test
+    void rollsFilesAndKeepsOnlyTheNewest() throws IOException {
+        try (var audit = new AuditTrail(dir, 64, 400, 3)) {
+            for (int i = 0; i < 50; i++) audit.deposited(new Money(Map.of(10, 1)), Outcome.SUCCESS, 0, 1, i);
+        }
+        List<Path> files = files();
+        assertEquals(3, files.size());
+        for (Path f : files) assertTrue(Files.size(f) <= 400, f + " is " + Files.size(f) + " bytes");
+        assertTrue(lines().get(lines().size() - 1).contains("version=49"));
+
+        // Reopening continues the numbering instead of overwriting
+        Path newest = files.get(files.size() - 1);
+        try (var audit = new AuditTrail(dir, 64, 400, 3)) {
+            audit.deposited(new Money(Map.of(10, 1)), Outcome.SUCCESS, 0, 1, 50);
+        }
+        assertTrue(files().get(files().size() - 1).compareTo(newest) > 0);
+    }
+
+    private List<Path> files() throws IOException {
+        try (Stream<Path> s = Files.list(dir)) {
+            return s.sorted().toList();
+        }
+    }
+
+    private List<String> lines() throws IOException {
+        List<String> all = new ArrayList<>();
+        for (Path f : files()) all.addAll(Files.readAllLines(f));
+        return all;
+    }
+}
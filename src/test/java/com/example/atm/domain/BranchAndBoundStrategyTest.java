@@ -0,0 +1,88 @@
+package com.example.atm.domain;
+
+import com.example.atm.adapters.BranchAndBoundStrategy;
+import com.example.atm.adapters.MinNotesStrategy;
+import com.example.atm.adapters.OptimalNotesStrategy;
+import com.example.atm.ports.DispenseStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BranchAndBoundStrategyTest {
+
+    private final DispenseStrategy strategy = new BranchAndBoundStrategy(Duration.ofSeconds(5));
+
+    @Test
+    void findsPlansGreedyMissesOrOverpays() {
+        assertEquals(Map.of(20, 3), strategy.plan(60, Map.of(50, 1, 20, 3)).orElseThrow().notes().asMap());
+        assertEquals(Map.of(40, 2), strategy.plan(80, Map.of(50, 1, 40, 2, 10, 5)).orElseThrow().notes().asMap());
+        assertTrue(strategy.plan(40, Map.of(20, 1, 10, 1)).isEmpty());
+        assertTrue(strategy.plan(35, Map.of(20, 5, 10, 5)).isEmpty());
+        assertTrue(strategy.plan(0, Map.of(10, 10)).isEmpty());
+    }
+
+    @Test
+    void matchesExactDpOnLargeCoinAndNoteSets() {
+        // 16 denominations mixing coins and notes, including non-canonical ones
+        int[] pool = {1, 2, 3, 5, 7, 10, 20, 25, 40, 50, 70, 100, 200, 250, 500, 1000};
+        DispenseStrategy exact = new OptimalNotesStrategy();
+        var workers = new ForkJoinPool(4);
+        var parallel = new BranchAndBoundStrategy(Duration.ofSeconds(5), workers);
+        try {
+            Random rnd = new Random(11);
+            for (int round = 0; round < 300; round++) {
+                Map<Integer, Integer> inv = new HashMap<>();
+                for (int d : pool) {
+                    if (rnd.nextInt(4) > 0) inv.put(d, rnd.nextInt(rnd.nextBoolean() ? 5 : 500));
+                }
+                int amount = 1 + rnd.nextInt(5_000);
+                Optional<DispensePlan> expected = exact.plan(amount, inv);
+                Optional<DispensePlan> actual = parallel.plan(amount, inv);
+                assertEquals(expected.isPresent(), actual.isPresent(), "amount " + amount + " inv " + inv);
+                if (expected.isEmpty()) continue;
+                assertValid(amount, inv, actual.get());
+                assertEquals(notes(expected.get()), notes(actual.get()), "amount " + amount + " inv " + inv);
+            }
+        } finally {
+            workers.shutdown();
+        }
+    }
+
+    @Test
+    void timeBudgetBoundsLatencyAndKeepsBestPlan() {
+        // Many close, coprime denominations and an amount greedy cannot finish: a huge search space
+        Map<Integer, Integer> inv = new HashMap<>();
+        for (int d = 9_973; d > 9_900; d -= 2) inv.put(d, 1_000);
+        inv.put(1, 3);
+        int amount = 4_999_999;
+        var strategy = new BranchAndBoundStrategy(Duration.ofMillis(10));
+
+        long start = System.nanoTime();
+        Optional<DispensePlan> plan = strategy.plan(amount, inv);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis < 1_000, "took " + elapsedMillis + " ms");
+        plan.ifPresent(p -> assertValid(amount, inv, p));
+        Optional<DispensePlan> greedy = new MinNotesStrategy().plan(amount, inv);
+        if (greedy.isPresent()) {
+            assertTrue(plan.isPresent());
+            assertTrue(notes(plan.get()) <= notes(greedy.get()));
+        }
+    }
+
+    private static void assertValid(int amount, Map<Integer, Integer> inv, DispensePlan plan) {
+        assertEquals(amount, plan.amount());
+        plan.notes().asMap().forEach((d,c) -> assertTrue(c <= inv.getOrDefault(d, 0), "over stock for " + d));
+    }
+
+    private static int notes(DispensePlan plan) {
+        return plan.notes().asMap().values().stream().mapToInt(Integer::intValue).sum();
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.atm.domain;
+
+
+
+import com.example.atm.adapters.CachingDispenseStrategy;
+import com.example.atm.adapters.InMemoryInventory;
+import com.example.atm.adapters.MinNotesStrategy;
+import com.example.atm.ports.DispenseStrategy;
+import com.example.atm.ports.Inventory;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingDispenseStrategyTest {
+
+    @Test
+    void repeatAmountAtSameVersionIsServedFromCache() {
+        AtomicInteger calls = new AtomicInteger();
+        DispenseStrategy counting = (amount, inv) -> { calls.incrementAndGet(); return new MinNotesStrategy().plan(amount, inv); };
+        var cache = new CachingDispenseStrategy(counting, () -> 7L, 8);
+        Map<Integer, Integer> inv = Map.of(50, 2, 20, 3);
+
+        Optional<DispensePlan> first = cache.plan(100, inv);
+        Optional<DispensePlan> second = cache.plan(100, inv);
+
+        assertSame(first, second);
+        assertEquals(1, calls.get());
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    void inventoryMutationInvalidatesEntries() {
+        Inventory inventory = new InMemoryInventory(Map.of(50, 2, 20, 5));
+        var cache = new CachingDispenseStrategy(new MinNotesStrategy(), inventory::version, 8);
+
+        assertEquals(Map.of(50, 2), cache.plan(100, inventory.snapshot()).orElseThrow().notes().asMap());
+        cache.plan(100, inventory.snapshot());
+        assertEquals(1, cache.hits());   // same version: served from cache
+
+        inventory.remove(Map.of(50, 2));
+        // Same amount, new version: recomputed against the new counts
+        assertEquals(Map.of(20, 5), cache.plan(100, inventory.snapshot()).orElseThrow().notes().asMap());
+        assertEquals(1, cache.hits());
+        assertEquals(2, cache.misses());
+
+        cache.plan(100, inventory.snapshot());
+        assertEquals(2, cache.hits());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedBeyondCapacity() {
+        var cache = new CachingDispenseStrategy(new MinNotesStrategy(), () -> 0L, 2);
+        Map<Integer, Integer> inv = Map.of(10, 100);
+        cache.plan(10, inv);
+        cache.plan(20, inv);
+        cache.plan(10, inv); // touch 10
+        cache.plan(30, inv); // evicts 20
+        assertEquals(2, cache.size());
+        cache.plan(10, inv);
+        assertEquals(2, cache.hits());
+        cache.plan(20, inv);
+        assertEquals(4, cache.misses());
+    }
+}
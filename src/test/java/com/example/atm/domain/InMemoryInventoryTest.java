@@ -3,9 +3,13 @@ package com.example.atm.domain;
 
 
 import com.example.atm.adapters.InMemoryInventory;
+import com.example.atm.adapters.MinNotesStrategy;
+import com.example.atm.errors.Errors.InsufficientFundsException;
 import com.example.atm.ports.Inventory;
 import org.junit.jupiter.api.Test;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -30,6 +34,20 @@ class InMemoryInventoryTest {
         assertThrows(IllegalStateException.class, () -> inv.remove(Map.of(20, 2)));
     }
 
+    @Test
+    void invalidDepositChangesNothing() {
+        Inventory inv = new InMemoryInventory(Map.of(50, 1));
+        Map<Integer, Integer> deposit = new LinkedHashMap<>();
+        deposit.put(20, 1);
+        deposit.put(10, -1);
+        assertThrows(IllegalArgumentException.class, () -> inv.add(deposit));
+        assertThrows(IllegalArgumentException.class, () -> inv.add(Map.of(20, 1, -10, 1)));
+        assertThrows(IllegalArgumentException.class, () -> inv.add(Collections.singletonMap(null, 1)));
+        assertThrows(ArithmeticException.class, () -> inv.add(Map.of(20, 1, 1_000_000, 10_000)));
+        assertEquals(Map.of(50, 1), inv.snapshot());
+        assertEquals(0, inv.version());
+    }
+
     @Test
     void snapshotIsIndependentCopy() {
         Inventory inv = new InMemoryInventory(Map.of(10, 2));
@@ -38,4 +56,21 @@ class InMemoryInventoryTest {
         snap.put(10, 999);
         assertEquals(20, inv.balance());
     }
+
+    @Test
+    void dispensePlansAndRemovesInOneStep() {
+        Inventory inv = new InMemoryInventory(Map.of(50, 2, 20, 3));
+        var plan = inv.dispense(120, new MinNotesStrategy());
+        assertTrue(plan.isPresent());
+        assertEquals(120, plan.get().amount());
+        assertEquals(Map.of(20, 2), inv.snapshot());
+    }
+
+    @Test
+    void dispenseLeavesInventoryUntouchedWhenAmountCannotBeFormed() {
+        Inventory inv = new InMemoryInventory(Map.of(50, 1, 20, 1));
+        assertTrue(inv.dispense(30, new MinNotesStrategy()).isEmpty());
+        assertThrows(InsufficientFundsException.class, () -> inv.dispense(100, new MinNotesStrategy()));
+        assertEquals(70, inv.balance());
+    }
 }
@@ -2,6 +2,7 @@ package com.example.atm.domain;
 
 
 
+import com.example.atm.adapters.InMemoryInventory;
 import org.junit.jupiter.api.Test;
 
 import java.util.Map;
@@ -28,5 +29,48 @@ class MoneyTest {
         var map = m.asMap();
         assertThrows(UnsupportedOperationException.class, () -> map.put(5, 1));
     }
-}
 
+    @Test
+    void zeroCountsAreDroppedAndEqualityIgnoresOrder() {
+        Money a = new Money(Map.of(50, 1, 20, 2, 10, 0));
+        Money b = new Money(Map.of(20, 2, 50, 1));
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertEquals(Map.of(50, 1, 20, 2), a.asMap());
+        assertEquals(0, a.count(10));
+        assertEquals(50, a.denominationAt(0));
+        assertEquals("Money{50=1, 20=2}", a.toString());
+        assertNotEquals(a, new Money(Map.of(50, 1, 20, 1)));
+    }
+
+    @Test
+    void plusAndMinusMergeDenominations() {
+        Money a = new Money(Map.of(50, 1, 10, 3));
+        Money b = new Money(Map.of(20, 2, 10, 1));
+        Money sum = a.plus(b);
+        assertEquals(new Money(Map.of(50, 1, 20, 2, 10, 4)), sum);
+        assertEquals(130, sum.total());
+        assertEquals(a, sum.minus(b));
+        assertEquals(Money.empty(), a.minus(a));
+        assertSame(a, a.plus(Money.empty()));
+        assertEquals(Money.of(10, 2), new Money(Map.of(10, 2)));
+    }
+
+    @Test
+    void minusRejectsMissingNotes() {
+        Money a = new Money(Map.of(50, 1, 10, 3));
+        assertThrows(IllegalArgumentException.class, () -> a.minus(Money.of(10, 4)));
+        assertThrows(IllegalArgumentException.class, () -> a.minus(Money.of(20, 1)));
+        assertThrows(IllegalArgumentException.class, () -> a.minus(Money.of(100, 1)));
+        assertThrows(IllegalArgumentException.class, () -> a.minus(Money.of(5, 1)));
+    }
+
+    @Test
+    void fitsInChecksLiveCounts() {
+        var inventory = new InMemoryInventory(Map.of(50, 1, 20, 2));
+        assertTrue(new Money(Map.of(50, 1, 20, 2)).fitsIn(inventory));
+        assertFalse(new Money(Map.of(20, 3)).fitsIn(inventory));
+        assertFalse(Money.of(10, 1).fitsIn(inventory));
+        assertTrue(Money.empty().fitsIn(inventory));
+    }
+}
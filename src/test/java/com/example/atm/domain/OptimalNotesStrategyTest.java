@@ -0,0 +1,91 @@
+package com.example.atm.domain;
+
+
+
+import com.example.atm.adapters.OptimalNotesStrategy;
+import com.example.atm.ports.DispenseStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimalNotesStrategyTest {
+
+    private final DispenseStrategy strategy = new OptimalNotesStrategy();
+
+    @Test
+    void findsPlanWhereGreedyFails() {
+        // Greedy takes the 50 and is left with 10 it cannot form
+        Optional<DispensePlan> plan = strategy.plan(60, Map.of(50, 1, 20, 3));
+        assertTrue(plan.isPresent());
+        assertEquals(Map.of(20, 3), plan.get().notes().asMap());
+    }
+
+    @Test
+    void prefersFewerNotesThanGreedy() {
+        // Greedy: 50 + 10×3 (4 notes); optimal: 40×2
+        Optional<DispensePlan> plan = strategy.plan(80, Map.of(50, 1, 40, 2, 10, 5));
+        assertTrue(plan.isPresent());
+        assertEquals(Map.of(40, 2), plan.get().notes().asMap());
+    }
+
+    @Test
+    void returnsEmptyWhenNoCombinationExists() {
+        assertTrue(strategy.plan(40, Map.of(20, 1, 10, 1)).isEmpty());
+        assertTrue(strategy.plan(30, Map.of(50, 1, 20, 2)).isEmpty());
+        assertTrue(strategy.plan(0, Map.of(10, 10)).isEmpty());
+    }
+
+    @Test
+    void amountsTooLargeForTheTableAreStillPlanned() {
+        // amount / gcd is about 2^31, so k * (n + 1) overflows an int; greedy is not provably optimal
+        Optional<DispensePlan> plan = strategy.plan(2_000_000_001, Map.of(7, 300_000_000, 3, 10));
+        assertTrue(plan.isPresent());
+        assertEquals(Map.of(7, 285_714_285, 3, 2), plan.get().notes().asMap());
+    }
+
+    @Test
+    void matchesBruteForceOnRandomInventories() {
+        Random rnd = new Random(42);
+        int[] pool = {10, 20, 30, 40, 50, 70, 100, 200};
+        for (int round = 0; round < 500; round++) {
+            Map<Integer, Integer> inv = new HashMap<>();
+            for (int d : pool) {
+                if (rnd.nextInt(3) > 0) inv.put(d, rnd.nextInt(5));
+            }
+            int amount = 10 * (1 + rnd.nextInt(60));
+            int expected = bruteForce(amount, inv);
+            Optional<DispensePlan> plan = strategy.plan(amount, inv);
+            if (expected < 0) {
+                assertTrue(plan.isEmpty(), "amount " + amount + " inv " + inv);
+                continue;
+            }
+            assertTrue(plan.isPresent(), "amount " + amount + " inv " + inv);
+            assertEquals(amount, plan.get().amount());
+            int notes = plan.get().notes().asMap().values().stream().mapToInt(Integer::intValue).sum();
+            assertEquals(expected, notes, "amount " + amount + " inv " + inv);
+            plan.get().notes().asMap().forEach((d, c) -> assertTrue(c <= inv.get(d)));
+        }
+    }
+
+    /** Minimum note count by exhaustive search, or -1 if the amount cannot be formed. */
+    private static int bruteForce(int amount, Map<Integer, Integer> inv) {
+        int[] denoms = inv.keySet().stream().mapToInt(Integer::intValue).toArray();
+        return search(amount, denoms, 0, inv);
+    }
+
+    private static int search(int remaining, int[] denoms, int i, Map<Integer, Integer> inv) {
+        if (remaining == 0) return 0;
+        if (i == denoms.length) return -1;
+        int best = -1;
+        for (int t = 0; t <= inv.get(denoms[i]) && t * denoms[i] <= remaining; t++) {
+            int rest = search(remaining - t * denoms[i], denoms, i + 1, inv);
+            if (rest >= 0 && (best < 0 || rest + t < best)) best = rest + t;
+        }
+        return best;
+    }
+}
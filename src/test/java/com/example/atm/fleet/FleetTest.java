@@ -0,0 +1,87 @@
+package com.example.atm.fleet;
+
+import com.example.atm.adapters.InMemoryInventory;
+import com.example.atm.adapters.MinNotesStrategy;
+import com.example.atm.adapters.SmallestDenomDivisibilityPolicy;
+import com.example.atm.domain.Money;
+import com.example.atm.service.CashMachine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FleetTest {
+    private static final int MACHINES = 2_000;
+
+    private Fleet fleet;
+
+    @BeforeEach
+    void setUp() {
+        fleet = new Fleet();
+        for (int i = 0; i < MACHINES; i++) {
+            // machine i holds 50×(i % 5), 20×2, 10×1 → balance 50*(i%5) + 50
+            var inventory = new InMemoryInventory(Map.of(50, i % 5, 20, 2, 10, 1));
+            fleet.register(id(i), new CashMachine(inventory, new MinNotesStrategy(),
+                    new SmallestDenomDivisibilityPolicy(Set.of(50, 20, 10))));
+        }
+    }
+
+    @Test
+    void aggregatesMatchPerMachineTotals() {
+        long expected = 0;
+        for (int i = 0; i < MACHINES; i++) expected += 50L * (i % 5) + 50;
+        assertEquals(expected, fleet.totalCash());
+        assertEquals(Map.of(10, (long) MACHINES, 20, 2L * MACHINES, 50, 2L * MACHINES), fleet.denominationTotals());
+
+        List<String> low = fleet.belowThreshold(100);   // i % 5 == 0 → balance 50
+        assertEquals(MACHINES / 5, low.size());
+        assertEquals(id(0), low.get(0));
+        assertTrue(low.contains(id(5)));
+        assertFalse(low.contains(id(1)));
+    }
+
+    @Test
+    void machinesAreOperatedIndependentlyAndConcurrently() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        AtomicInteger failures = new AtomicInteger();
+        for (int i = 0; i < MACHINES; i++) {
+            String id = id(i);
+            pool.execute(() -> {
+                if (!fleet.withdraw(id, 30).isSuccess()) failures.incrementAndGet();
+                fleet.deposit(id, Money.of(10, 1));
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(0, failures.get());
+
+        long expected = 0;
+        for (int i = 0; i < MACHINES; i++) expected += 50L * (i % 5) + 50 - 20;
+        assertEquals(expected, fleet.totalCash());
+        assertEquals((long) MACHINES, fleet.denominationTotals().get(20)); // 20+10 out, 10 back in
+    }
+
+    @Test
+    void registryRejectsDuplicatesAndUnknownIds() {
+        var machine = fleet.machine(id(0));
+        assertThrows(IllegalArgumentException.class, () -> fleet.register(id(0), machine));
+        assertThrows(IllegalArgumentException.class, () -> fleet.withdraw("missing", 10));
+        assertSame(machine, fleet.deregister(id(0)));
+        assertEquals(MACHINES - 1, fleet.size());
+        assertEquals(new ArrayList<>(), new Fleet().belowThreshold(10));
+        assertEquals(Map.of(), new Fleet().denominationTotals());
+    }
+
+    private static String id(int i) {
+        return String.format("atm-%05d", i);
+    }
+}
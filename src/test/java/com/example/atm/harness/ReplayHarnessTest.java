@@ -0,0 +1,111 @@
+package com.example.atm.harness;
+
+import com.example.atm.adapters.InMemoryInventory;
+import com.example.atm.adapters.MinNotesStrategy;
+import com.example.atm.adapters.SmallestDenomDivisibilityPolicy;
+import com.example.atm.domain.BatchOperation;
+import com.example.atm.domain.Money;
+import com.example.atm.domain.Outcome;
+import com.example.atm.service.CashMachine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayHarnessTest {
+
+    @TempDir Path dir;
+
+    @Test
+    void parsesCsvTraces() throws IOException {
+        String csv = "# offset_us,op,amount_or_notes\n0,W,130\n\n1500,D,50x2;20x1\n1500,W,15\n";
+        List<TraceEvent> trace = Traces.readCsv(new BufferedReader(new StringReader(csv)));
+        assertEquals(3, trace.size());
+        assertEquals(130, trace.get(0).operation().amount());
+        assertEquals(BatchOperation.Type.DEPOSIT, trace.get(1).operation().type());
+        assertEquals(new Money(Map.of(50, 2, 20, 1)), trace.get(1).operation().deposit());
+        assertEquals(1500, trace.get(2).offsetMicros());
+
+        assertThrows(IllegalArgumentException.class, () -> Traces.readCsv(new BufferedReader(new StringReader("5,W,10\n1,W,10\n"))));
+        assertThrows(IllegalArgumentException.class, () -> Traces.readCsv(new BufferedReader(new StringReader("0,X,10\n"))));
+    }
+
+    @Test
+    void generatedTracesRoundTripThroughCsv() {
+        var generator = new TraceGenerator(10_000, 0.2, AmountDistribution.uniform(10, 500, 10), 10, 50);
+        List<TraceEvent> trace = generator.generate(500, 7);
+        assertEquals(trace.size(), generator.generate(500, 7).size());
+        assertEquals(trace.get(499).offsetMicros(), generator.generate(500, 7).get(499).offsetMicros());
+
+        Path file = dir.resolve("trace.csv");
+        Traces.writeCsv(file, trace);
+        List<TraceEvent> read = Traces.readCsv(file);
+        assertEquals(trace.size(), read.size());
+        for (int i = 0; i < trace.size(); i++) {
+            assertEquals(trace.get(i).offsetMicros(), read.get(i).offsetMicros());
+            assertEquals(trace.get(i).operation().amount(), read.get(i).operation().amount());
+            assertEquals(trace.get(i).operation().deposit(), read.get(i).operation().deposit());
+        }
+    }
+
+    @Test
+    void reportsOutcomeBreakdownAtMaxSpeed() {
+        var inventory = new InMemoryInventory(Map.of(50, 1, 10, 1));
+        var atm = new CashMachine(inventory, new MinNotesStrategy(), new SmallestDenomDivisibilityPolicy(inventory.denominations()));
+        List<TraceEvent> trace = List.of(
+                new TraceEvent(0, BatchOperation.withdraw(15)),      // invalid amount
+                new TraceEvent(0, BatchOperation.withdraw(1_000)),   // insufficient funds
+                new TraceEvent(0, BatchOperation.withdraw(40)),      // cannot be formed
+                new TraceEvent(0, BatchOperation.withdraw(60)),
+                new TraceEvent(0, BatchOperation.deposit(Money.of(10, 2))));
+
+        ReplayReport report = new ReplayHarness(atm, 1).replay(trace, Pacing.MAX, 1);
+
+        assertEquals(5, report.operations());
+        assertEquals(2, report.count(Outcome.SUCCESS));
+        assertEquals(1, report.count(Outcome.INVALID_AMOUNT));
+        assertEquals(1, report.count(Outcome.INSUFFICIENT_FUNDS));
+        assertEquals(1, report.count(Outcome.UNAVAILABLE_DENOMINATIONS));
+        assertEquals(5, report.latency().count());
+        assertEquals(20, atm.balance());
+        assertTrue(report.toString().contains("insufficient_funds:"));
+    }
+
+    @Test
+    void scaledPacingHonoursOffsets() {
+        var inventory = new InMemoryInventory(Map.of(10, 1_000));
+        var atm = new CashMachine(inventory, new MinNotesStrategy(), new SmallestDenomDivisibilityPolicy(inventory.denominations()));
+        List<TraceEvent> trace = List.of(
+                new TraceEvent(0, BatchOperation.withdraw(10)),
+                new TraceEvent(200_000, BatchOperation.withdraw(10)));   // 200 ms recorded
+
+        ReplayReport report = new ReplayHarness(atm, 2).replay(trace, Pacing.SCALED, 4);   // → 50 ms
+
+        assertTrue(report.elapsedNanos() >= 50_000_000, "ran in " + report.elapsedNanos() + "ns");
+        assertTrue(report.elapsedNanos() < 190_000_000, "ran in " + report.elapsedNanos() + "ns");
+        assertEquals(2, report.count(Outcome.SUCCESS));
+    }
+
+    @Test
+    void distributionsStayInRange() {
+        Random random = new Random(3);
+        var uniform = AmountDistribution.uniform(20, 100, 20);
+        var weighted = AmountDistribution.weighted(new int[] { 20, 50 }, new double[] { 0, 1 });
+        var logNormal = AmountDistribution.logNormal(80, 1.0, 10, 500);
+        for (int i = 0; i < 1_000; i++) {
+            int u = uniform.next(random);
+            assertTrue(u >= 20 && u <= 100 && u % 20 == 0, "uniform " + u);
+            assertEquals(50, weighted.next(random));
+            int l = logNormal.next(random);
+            assertTrue(l >= 10 && l <= 500 && l % 10 == 0, "logNormal " + l);
+        }
+    }
+}
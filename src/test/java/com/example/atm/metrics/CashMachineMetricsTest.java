@@ -0,0 +1,87 @@
+package com.example.atm.metrics;
+
+import com.example.atm.adapters.InMemoryInventory;
+import com.example.atm.adapters.MinNotesStrategy;
+import com.example.atm.adapters.SmallestDenomDivisibilityPolicy;
+import com.example.atm.domain.BatchOperation;
+import com.example.atm.domain.Money;
+import com.example.atm.domain.Outcome;
+import com.example.atm.service.CashMachine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CashMachineMetricsTest {
+
+    private CashMachineMetrics metrics;
+    private CashMachine atm;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new CashMachineMetrics();
+        var inventory = new InMemoryInventory(Map.of(100, 1, 50, 1, 10, 1), metrics);
+        var strategy = new TimedDispenseStrategy(new MinNotesStrategy(), metrics);
+        atm = new CashMachine(inventory, strategy, new SmallestDenomDivisibilityPolicy(inventory.denominations()), metrics);
+    }
+
+    @Test
+    void countsWithdrawalsByOutcome() {
+        atm.withdraw(100);
+        assertThrows(RuntimeException.class, () -> atm.withdraw(15));   // invalid amount
+        assertThrows(RuntimeException.class, () -> atm.withdraw(1000)); // insufficient funds
+        assertThrows(RuntimeException.class, () -> atm.withdraw(30));   // 50+10 left: cannot form 30
+        atm.deposit(new Money(Map.of(20, 1)));
+
+        var snapshot = metrics.snapshot();
+        assertEquals(1L, snapshot.withdrawals().get(Outcome.SUCCESS));
+        assertEquals(1L, snapshot.withdrawals().get(Outcome.INVALID_AMOUNT));
+        assertEquals(1L, snapshot.withdrawals().get(Outcome.INSUFFICIENT_FUNDS));
+        assertEquals(1L, snapshot.withdrawals().get(Outcome.UNAVAILABLE_DENOMINATIONS));
+        assertEquals(0L, snapshot.withdrawals().get(Outcome.CONCURRENT_CHANGE));
+        assertEquals(4, snapshot.latency("withdraw").count());
+        assertEquals(1, snapshot.latency("deposit").count());
+        assertEquals(2, snapshot.latency("plan").count());
+        assertEquals(1, snapshot.latency("remove").count());
+        assertTrue(snapshot.latency("lock.wait").count() >= 4);
+        assertEquals(snapshot.latency("lock.wait").count(), snapshot.latency("lock.hold").count());
+        assertTrue(snapshot.toString().contains("withdraw.success: 1"));
+    }
+
+    @Test
+    void batchItemsAreCountedIndividually() {
+        atm.process(List.of(BatchOperation.withdraw(50), BatchOperation.withdraw(15), BatchOperation.deposit(new Money(Map.of(50, 1)))));
+
+        var snapshot = metrics.snapshot();
+        assertEquals(1L, snapshot.withdrawals().get(Outcome.SUCCESS));
+        assertEquals(1L, snapshot.withdrawals().get(Outcome.INVALID_AMOUNT));
+        assertEquals(1, snapshot.latency("deposit").count());
+    }
+
+    @Test
+    void histogramPercentilesAreWithinBucketPrecision() {
+        var histogram = new LatencyHistogram();
+        for (long v = 1; v <= 10_000; v++) histogram.record(v * 1_000);
+        var snapshot = histogram.snapshot();
+
+        assertEquals(10_000, snapshot.count());
+        assertEquals(10_000_000, snapshot.max());
+        assertEquals(5_000_500, snapshot.mean(), 1);
+        assertEquals(5_000_000, snapshot.percentile(0.50), 5_000_000 * 0.035);
+        assertEquals(9_900_000, snapshot.percentile(0.99), 9_900_000 * 0.035);
+        assertEquals(10_000_000, snapshot.percentile(1.0));
+    }
+
+    @Test
+    void bucketBoundsCoverEveryValue() {
+        long[] samples = { 0, 1, 63, 64, 65, 1_000, 123_456_789, Long.MAX_VALUE };
+        for (long v : samples) {
+            int i = LatencyHistogram.indexOf(v);
+            assertTrue(LatencyHistogram.upperBoundOf(i) >= v, "upper bound of " + v);
+            assertTrue(i == 0 || LatencyHistogram.upperBoundOf(i - 1) < v, "lower bound of " + v);
+        }
+    }
+}
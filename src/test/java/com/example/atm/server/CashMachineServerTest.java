@@ -0,0 +1,174 @@
+package com.example.atm.server;
+
+import com.example.atm.adapters.InMemoryInventory;
+import com.example.atm.adapters.MinNotesStrategy;
+import com.example.atm.adapters.SmallestDenomDivisibilityPolicy;
+import com.example.atm.domain.InventoryState;
+import com.example.atm.domain.Money;
+import com.example.atm.domain.Outcome;
+import com.example.atm.domain.WithdrawResult;
+import com.example.atm.ports.DispenseStrategy;
+import com.example.atm.service.CashMachine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Timeout(30)
+class CashMachineServerTest {
+
+    private CashMachineServer server;
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) server.close();
+    }
+
+    @Test
+    void servesEveryOperationOverLoopback() {
+        CashMachine atm = start(Map.of(50, 2, 20, 3, 10, 5));
+        try (var client = new CashMachineClient(address())) {
+            assertEquals(210, client.balance());
+            assertEquals(WithdrawResult.success(new Money(Map.of(50, 2, 20, 1, 10, 1))), client.withdraw(130));
+            assertEquals(Outcome.INVALID_AMOUNT, client.withdraw(15).outcome());
+            assertEquals(Outcome.INSUFFICIENT_FUNDS, client.withdraw(1_000).outcome());
+
+            client.deposit(new Money(Map.of(50, 1)));
+            InventoryState state = client.snapshot();
+            assertEquals(Map.of(50, 1, 20, 2, 10, 4), state.asMap());
+            assertEquals(atm.inventoryState().version(), state.version());
+        }
+    }
+
+    @Test
+    void pipelinedRequestsAnswerInOrder() {
+        CashMachine atm = start(Map.of(10, 5_000));
+        try (var client = new CashMachineClient(address())) {
+            int[] amounts = new int[5_001];
+            Arrays.fill(amounts, 10);
+            List<WithdrawResult> results = client.withdrawAll(amounts);
+            assertEquals(amounts.length, results.size());
+            for (int i = 0; i < 5_000; i++) assertTrue(results.get(i).isSuccess(), "request " + i);
+            assertEquals(Outcome.INSUFFICIENT_FUNDS, results.get(5_000).outcome());
+            assertEquals(0, atm.balance());
+        }
+    }
+
+    @Test
+    void servesConcurrentClients() throws Exception {
+        CashMachine atm = start(Map.of(10, 8_000));
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        Future<?>[] futures = new Future<?>[4];
+        for (int t = 0; t < 4; t++) {
+            futures[t] = pool.submit(() -> {
+                try (var client = new CashMachineClient(address())) {
+                    int[] amounts = new int[1_000];
+                    Arrays.fill(amounts, 20);
+                    for (WithdrawResult r : client.withdrawAll(amounts)) assertTrue(r.isSuccess());
+                    client.deposit(Money.of(10, 1_000));
+                }
+                return null;
+            });
+        }
+        for (Future<?> f : futures) f.get(20, TimeUnit.SECONDS);
+        pool.shutdown();
+        assertEquals(80_000 - 4 * 20_000 + 4 * 10_000, atm.balance());
+    }
+
+    @Test
+    void throttlesClientsThatReadSlowerThanTheyWrite() throws Exception {
+        start(Map.of(10, 1));
+        int requests = 50_000;   // ~450 KB of requests, ~700 KB of responses
+        try (SocketChannel raw = SocketChannel.open(address())) {
+            Thread writer = new Thread(() -> {
+                ByteBuffer buf = ByteBuffer.allocate(9 * 1_000);
+                try {
+                    for (int sent = 0; sent < requests; sent += 1_000) {
+                        buf.clear();
+                        for (int i = 0; i < 1_000; i++) buf.putInt(5).put(Protocol.BALANCE).putInt(sent + i);
+                        buf.flip();
+                        while (buf.hasRemaining()) raw.write(buf);
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            writer.start();
+            ByteBuffer in = ByteBuffer.allocate(14 * 1_000);
+            for (int received = 0; received < requests; received += 1_000) {
+                in.clear();
+                while (in.hasRemaining()) assertTrue(raw.read(in) >= 0);
+                in.flip();
+                for (int i = 0; i < 1_000; i++) {
+                    assertEquals(10, in.getInt());
+                    assertEquals(Protocol.BALANCE, in.get());
+                    assertEquals(received + i, in.getInt());
+                    assertEquals(0, in.get());
+                    assertEquals(10, in.getInt());
+                }
+            }
+            writer.join();
+        }
+    }
+
+    @Test
+    void malformedFramesCloseOnlyTheirConnection() throws IOException {
+        start(Map.of(10, 1));
+        try (SocketChannel raw = SocketChannel.open(address()); var client = new CashMachineClient(address())) {
+            raw.write(ByteBuffer.allocate(9).putInt(5).put((byte) 99).putInt(7).flip());   // unknown op
+            ByteBuffer error = ByteBuffer.allocate(10);
+            while (error.hasRemaining()) raw.read(error);
+            assertEquals(Outcome.ERROR, Protocol.outcome(error.get(9)));
+
+            raw.write(ByteBuffer.allocate(4).putInt(0, Protocol.MAX_FRAME + 1));
+            ByteBuffer rest = ByteBuffer.allocate(64);
+            while (raw.read(rest) >= 0) rest.clear();   // error message bytes, then end of stream
+            assertEquals(10, client.balance());
+        }
+    }
+
+    @Test
+    void serverErrorMidPipelineLeavesTheClientUsable() {
+        DispenseStrategy failing = (amount, stock) -> {
+            if (amount == 30) throw new IllegalStateException("Dispenser jammed");
+            return new MinNotesStrategy().plan(amount, stock);
+        };
+        start(Map.of(10, 100), failing);
+        try (var client = new CashMachineClient(address())) {
+            var e = assertThrows(IllegalStateException.class, () -> client.withdrawAll(10, 30, 20, 10));
+            assertTrue(e.getMessage().contains("Dispenser jammed"), e.getMessage());
+            assertEquals(1_000 - 40, client.balance());
+            assertTrue(client.withdraw(10).isSuccess());
+        }
+    }
+
+    private CashMachine start(Map<Integer, Integer> stock) {
+        return start(stock, new MinNotesStrategy());
+    }
+
+    private CashMachine start(Map<Integer, Integer> stock, DispenseStrategy strategy) {
+        var inventory = new InMemoryInventory(stock);
+        var atm = new CashMachine(inventory, strategy, new SmallestDenomDivisibilityPolicy(Set.of(50, 20, 10)));
+        server = new CashMachineServer(atm, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        return atm;
+    }
+
+    private InetSocketAddress address() {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), server.port());
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.atm.service;
+
+import com.example.atm.adapters.InMemoryInventory;
+import com.example.atm.adapters.MinNotesStrategy;
+import com.example.atm.adapters.SmallestDenomDivisibilityPolicy;
+import com.example.atm.domain.Money;
+import com.example.atm.errors.Errors.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncCashMachineTest {
+
+    private static CashMachine machine(Map<Integer, Integer> initial) {
+        var inv = new InMemoryInventory(initial);
+        return new CashMachine(inv, new MinNotesStrategy(), new SmallestDenomDivisibilityPolicy(inv.denominations()));
+    }
+
+    @Test
+    @Timeout(10)
+    void concurrentCallersAreSerialisedWithoutOverdrawing() throws Exception {
+        var atm = new AsyncCashMachine(machine(Map.of(20, 500, 10, 0)), 64, 32);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        List<Future<CompletableFuture<Money>>> submitted = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) submitted.add(callers.submit(() -> atm.withdraw(20)));
+
+        int dispensed = 0, rejected = 0;
+        for (var f : submitted) {
+            try {
+                dispensed += f.get().get().total();
+            } catch (ExecutionException e) {
+                assertInstanceOf(InsufficientFundsException.class, e.getCause());
+                rejected++;
+            }
+        }
+        callers.shutdown();
+        atm.close();
+
+        assertEquals(10_000, dispensed);
+        assertEquals(500, rejected);
+        assertEquals(0, atm.balance());
+    }
+
+    @Test
+    @Timeout(10)
+    void failuresCompleteExceptionallyWithDomainErrors() throws Exception {
+        try (var atm = new AsyncCashMachine(machine(Map.of(50, 1, 10, 1)), 8, 1)) {
+            var invalid = atm.withdraw(15);
+            var unavailable = atm.withdraw(40);
+            var deposited = atm.deposit(new Money(Map.of(10, 3)));
+            var ok = atm.withdraw(40);
+
+            assertInstanceOf(InvalidAmountException.class, assertThrows(ExecutionException.class, invalid::get).getCause());
+            assertInstanceOf(UnavailableDenominationsException.class, assertThrows(ExecutionException.class, unavailable::get).getCause());
+            assertEquals(30, deposited.get().total());
+            assertEquals(40, ok.get().total());
+        }
+    }
+
+    @Test
+    @Timeout(10)
+    void requestsRacingCloseAlwaysComplete() throws Exception {
+        var atm = new AsyncCashMachine(machine(Map.of(10, 100_000)), 2, 1);
+        List<CompletableFuture<Money>> futures = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            callers.execute(() -> {
+                try {
+                    while (true) futures.add(atm.withdraw(10));
+                } catch (IllegalStateException closed) {
+                    // stopped accepting
+                }
+            });
+        }
+        Thread.sleep(20);
+        atm.close();
+        callers.shutdown();
+        assertTrue(callers.awaitTermination(5, TimeUnit.SECONDS));
+
+        int succeeded = 0;
+        for (var f : List.copyOf(futures)) {
+            try {
+                succeeded += f.get(5, TimeUnit.SECONDS).total() / 10;
+            } catch (ExecutionException e) {
+                assertInstanceOf(IllegalStateException.class, e.getCause());
+            }
+        }
+        assertEquals(100_000 - succeeded, atm.balance() / 10);
+    }
+}
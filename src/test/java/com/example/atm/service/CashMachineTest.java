@@ -3,14 +3,22 @@ package com.example.atm.service;
 import com.example.atm.adapters.MinNotesStrategy;
 import com.example.atm.adapters.InMemoryInventory;
 import com.example.atm.adapters.SmallestDenomDivisibilityPolicy;
+import com.example.atm.domain.BatchOperation;
+import com.example.atm.domain.BatchResult;
+import com.example.atm.domain.InventoryState;
 import com.example.atm.domain.Money;
+import com.example.atm.domain.Outcome;
+import com.example.atm.domain.WithdrawResult;
 import com.example.atm.errors.Errors.*;
+import com.example.atm.ports.AmountPolicy;
 import com.example.atm.ports.Inventory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -94,4 +102,122 @@ class CashMachineTest {
 
         assertDoesNotThrow(() -> atm2.withdraw(30));
     }
+
+    @Test
+    void batchPlansSequentiallyAndReportsPerItemOutcome() {
+        // 210 in stock: 50×2, 20×3, 10×5
+        List<BatchResult> results = atm.process(List.of(
+                BatchOperation.withdraw(100),                       // 50×2
+                BatchOperation.withdraw(7),                         // invalid
+                BatchOperation.withdraw(100),                       // 20×3 + 10×4, leaves 10×1
+                BatchOperation.deposit(new Money(Map.of(50, 1))),
+                BatchOperation.withdraw(40),                        // only 50 + 10 left
+                BatchOperation.withdraw(60),                        // 50 + 10
+                BatchOperation.withdraw(500)));                     // insufficient
+
+        assertEquals(100, results.get(0).money().total());
+        assertInstanceOf(InvalidAmountException.class, results.get(1).error());
+        assertEquals(100, results.get(2).money().total());
+        assertTrue(results.get(3).isSuccess());
+        assertInstanceOf(UnavailableDenominationsException.class, results.get(4).error());
+        assertEquals(Map.of(50, 1, 10, 1), results.get(5).money().asMap());
+        assertInstanceOf(InsufficientFundsException.class, results.get(6).error());
+        assertEquals(0, atm.balance());
+    }
+
+    @Test
+    void concurrentChangeInNonAtomicBatchKeepsEarlierRejections() {
+        var racing = new RacingInventory(Map.of(20, 3));
+        var machine = new CashMachine(racing, new MinNotesStrategy(), new SmallestDenomDivisibilityPolicy(Set.of(20)));
+        racing.stealOnNextSnapshot = true;   // another writer takes two 20s mid-batch
+
+        List<BatchResult> results = machine.process(List.of(BatchOperation.withdraw(15), BatchOperation.withdraw(40)));
+
+        assertEquals(Outcome.INVALID_AMOUNT, Outcome.of(results.get(0).error()));
+        assertEquals(Outcome.CONCURRENT_CHANGE, Outcome.of(results.get(1).error()));
+        assertEquals(20, machine.balance());
+    }
+
+    @Test
+    void otherIllegalStatesAreNotReportedAsConcurrentChange() {
+        var racing = new RacingInventory(Map.of(20, 3));
+        var machine = new CashMachine(racing, new MinNotesStrategy(), new SmallestDenomDivisibilityPolicy(Set.of(20)));
+        racing.closed = true;
+
+        var e = assertThrows(IllegalStateException.class, () -> machine.tryWithdraw(40));
+        assertEquals("Closed", e.getMessage());
+        assertThrows(IllegalStateException.class, () -> machine.process(List.of(BatchOperation.withdraw(40))));
+
+        racing.closed = false;
+        racing.stealOnNextSnapshot = true;
+        assertEquals(Outcome.CONCURRENT_CHANGE, machine.tryWithdraw(40).outcome());
+    }
+
+    /** Relies on the non-atomic Inventory defaults; can lose a race or refuse writes on demand. */
+    private static final class RacingInventory implements Inventory {
+        private final InMemoryInventory delegate;
+        boolean stealOnNextSnapshot;
+        boolean closed;
+
+        RacingInventory(Map<Integer, Integer> initial) {
+            this.delegate = new InMemoryInventory(initial);
+        }
+
+        @Override public Map<Integer, Integer> snapshot() {
+            Map<Integer, Integer> snapshot = delegate.snapshot();
+            if (stealOnNextSnapshot) {
+                stealOnNextSnapshot = false;
+                delegate.remove(Map.of(20, 2));
+            }
+            return snapshot;
+        }
+
+        @Override public void add(Map<Integer, Integer> deposit) { delegate.add(deposit); }
+
+        @Override public void remove(Map<Integer, Integer> take) {
+            if (closed) throw new IllegalStateException("Closed");
+            delegate.remove(take);
+        }
+
+        @Override public Set<Integer> denominations() { return delegate.denominations(); }
+        @Override public int balance() { return delegate.balance(); }
+        @Override public long version() { return delegate.version(); }
+        @Override public InventoryState state() { return delegate.state(); }
+    }
+
+    @Test
+    void tryWithdrawReturnsTypedFailuresWithoutThrowing() {
+        assertEquals(Outcome.INVALID_AMOUNT, atm.tryWithdraw(3).outcome());
+        assertEquals(Outcome.INVALID_AMOUNT, atm.tryWithdraw(-10).outcome());
+        var insufficient = atm.tryWithdraw(1000);
+        assertEquals(Outcome.INSUFFICIENT_FUNDS, insufficient.outcome());
+        assertEquals("ATM balance is insufficient", ((WithdrawResult.Failure) insufficient).message());
+        assertEquals(210, atm.balance());
+
+        var ok = atm.tryWithdraw(70);
+        assertTrue(ok.isSuccess());
+        assertEquals(new Money(Map.of(50, 1, 20, 1)), ((WithdrawResult.Success) ok).notes());
+        assertEquals(140, atm.balance());
+    }
+
+    @Test
+    void tryWithdrawReportsUnformableAmounts() {
+        var inv = new InMemoryInventory(Map.of(50, 1, 10, 1));
+        var machine = new CashMachine(inv, new MinNotesStrategy(), new SmallestDenomDivisibilityPolicy(inv.denominations()));
+        WithdrawResult result = machine.tryWithdraw(40);
+        assertEquals(WithdrawResult.unavailable(40), result);
+        assertInstanceOf(UnavailableDenominationsException.class, ((WithdrawResult.Failure) result).toException());
+        assertEquals(60, machine.balance());
+    }
+
+    @Test
+    void defaultPolicyCheckWrapsValidate() {
+        AmountPolicy throwing = amount -> { if (amount > 100) throw new InvalidAmountException("Too much"); };
+        var machine = new CashMachine(inventory, new MinNotesStrategy(), throwing);
+        var failure = (WithdrawResult.Failure) machine.tryWithdraw(200);
+        assertEquals(Outcome.INVALID_AMOUNT, failure.reason());
+        assertEquals("Too much", failure.message());
+        var e = assertThrows(InvalidAmountException.class, () -> machine.withdraw(200));
+        assertEquals("Too much", e.getMessage());
+    }
 }
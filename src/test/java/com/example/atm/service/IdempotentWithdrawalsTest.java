@@ -0,0 +1,147 @@
+package com.example.atm.service;
+
+import com.example.atm.adapters.InMemoryInventory;
+import com.example.atm.adapters.MinNotesStrategy;
+import com.example.atm.adapters.SmallestDenomDivisibilityPolicy;
+import com.example.atm.domain.Money;
+import com.example.atm.domain.Outcome;
+import com.example.atm.domain.WithdrawResult;
+import com.example.atm.errors.Errors;
+import com.example.atm.ports.AmountPolicy;
+import com.example.atm.ports.DispenseStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotentWithdrawalsTest {
+
+    private final AtomicInteger plans = new AtomicInteger();
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private volatile CountDownLatch release = new CountDownLatch(0);
+    private volatile int blockOn = -1;   // amount held up before the inventory lock until release
+
+    private CashMachine machine(Map<Integer, Integer> stock) {
+        DispenseStrategy counting = (amount, inventory) -> {
+            plans.incrementAndGet();
+            return new MinNotesStrategy().plan(amount, inventory);
+        };
+        AmountPolicy divisibility = new SmallestDenomDivisibilityPolicy(Set.of(50, 20, 10));
+        AmountPolicy gated = amount -> {
+            if (amount == blockOn) {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            divisibility.validate(amount);
+        };
+        return new CashMachine(new InMemoryInventory(stock), counting, gated);
+    }
+
+    @Test
+    void retriesReturnTheOriginalResult() {
+        CashMachine atm = machine(Map.of(50, 2, 20, 2));
+        var withdrawals = new IdempotentWithdrawals(atm);
+
+        Money first = withdrawals.withdraw("t1-0001", 70);
+        assertEquals(first, withdrawals.withdraw("t1-0001", 70));
+        assertEquals(70, atm.balance());
+        assertEquals(1, plans.get());
+
+        WithdrawResult rejected = withdrawals.tryWithdraw("t1-0002", 500);
+        assertEquals(Outcome.INSUFFICIENT_FUNDS, rejected.outcome());
+        atm.deposit(Money.of(50, 10));
+        assertSame(rejected, withdrawals.tryWithdraw("t1-0002", 500));   // rejection is cached too
+        assertThrows(Errors.InsufficientFundsException.class, () -> withdrawals.withdraw("t1-0002", 500));
+
+        assertThrows(IllegalArgumentException.class, () -> withdrawals.tryWithdraw("t1-0001", 20));
+        assertEquals(2, withdrawals.size());
+    }
+
+    @Test
+    void concurrentDuplicatesDispenseOnce() throws Exception {
+        CashMachine atm = machine(Map.of(10, 100));
+        var withdrawals = new IdempotentWithdrawals(atm);
+        blockOn = 30;
+        release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        Future<?>[] results = new Future<?>[8];
+        for (int i = 0; i < 8; i++) results[i] = pool.submit(() -> withdrawals.withdraw("dup", 30));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);   // let the duplicates reach the in-flight entry
+        release.countDown();
+        for (Future<?> f : results) assertEquals(Money.of(10, 3), f.get(5, TimeUnit.SECONDS));
+        pool.shutdown();
+        assertEquals(1, plans.get());
+        assertEquals(970, atm.balance());
+    }
+
+    @Test
+    void inFlightRequestsAreNeverEvicted() throws Exception {
+        CashMachine atm = machine(Map.of(10, 100));
+        var withdrawals = new IdempotentWithdrawals(atm, 2, Duration.ofMinutes(1), 1);
+        blockOn = 30;
+        release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        Future<Money> slow = pool.submit(() -> withdrawals.withdraw("slow", 30));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 3; i++) withdrawals.withdraw("r" + i, 10);   // fills the shard past "slow"
+        assertEquals(2, withdrawals.size());
+        Future<Money> retry = pool.submit(() -> withdrawals.withdraw("slow", 30));
+        Thread.sleep(50);   // let the retry reach the in-flight entry
+        release.countDown();
+
+        assertEquals(Money.of(10, 3), slow.get(5, TimeUnit.SECONDS));
+        assertEquals(Money.of(10, 3), retry.get(5, TimeUnit.SECONDS));
+        pool.shutdown();
+        assertEquals(4, plans.get());
+        assertEquals(1_000 - 60, atm.balance());
+    }
+
+    @Test
+    void errorsAreNotCachedAndDoNotStrandRetries() {
+        var inventory = new InMemoryInventory(Map.of(10, 100));
+        AtomicInteger calls = new AtomicInteger();
+        DispenseStrategy failingOnce = (amount, stock) -> {
+            if (calls.incrementAndGet() == 1) throw new AssertionError("boom");
+            return new MinNotesStrategy().plan(amount, stock);
+        };
+        var withdrawals = new IdempotentWithdrawals(new CashMachine(inventory, failingOnce, new SmallestDenomDivisibilityPolicy(Set.of(10))));
+
+        assertThrows(AssertionError.class, () -> withdrawals.withdraw("e1", 20));
+        assertEquals(0, withdrawals.size());
+        assertEquals(Money.of(10, 2), withdrawals.withdraw("e1", 20));
+        assertEquals(980, inventory.balance());
+    }
+
+    @Test
+    void entriesExpireByAgeAndSize() throws InterruptedException {
+        CashMachine atm = machine(Map.of(10, 100));
+        var withdrawals = new IdempotentWithdrawals(atm, 4, Duration.ofMillis(50), 1);
+        for (int i = 0; i < 5; i++) withdrawals.withdraw("r" + i, 10);
+        assertEquals(4, withdrawals.size());
+        withdrawals.withdraw("r0", 10);   // evicted for size: dispenses again
+        assertEquals(6, plans.get());
+        withdrawals.withdraw("r4", 10);   // still cached
+        assertEquals(6, plans.get());
+
+        Thread.sleep(60);
+        withdrawals.withdraw("r4", 10);   // expired: dispenses again
+        assertEquals(7, plans.get());
+        assertEquals(1, withdrawals.size());
+        assertEquals(1_000 - 70, atm.balance());
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.atm.service;
+
+import com.example.atm.adapters.MultiCurrencyInventory;
+import com.example.atm.adapters.SmallestDenomDivisibilityPolicy;
+import com.example.atm.domain.Cassette;
+import com.example.atm.domain.Money;
+import com.example.atm.domain.Outcome;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiCurrencyCashMachineTest {
+
+    @Test
+    void routesEachCurrencyToItsOwnMachine() {
+        var inventory = new MultiCurrencyInventory(List.of(
+                new Cassette("eur-50", "EUR", 50, 10, 100),
+                new Cassette("eur-20", "EUR", 20, 10, 100),
+                new Cassette("gbp-20", "GBP", 20, 10, 100),
+                new Cassette("gbp-5", "GBP", 5, 10, 100)));
+        var atm = new MultiCurrencyCashMachine(inventory);
+
+        assertEquals(new Money(Map.of(20, 1, 5, 1)), atm.withdraw("GBP", 25));   // 5s accepted without the ×10 rule
+        assertEquals(Outcome.INVALID_AMOUNT, atm.tryWithdraw("EUR", 25).outcome());   // EUR smallest is 20
+        assertEquals(new Money(Map.of(50, 2, 20, 1)), atm.withdraw("EUR", 120));
+        atm.deposit("EUR", Money.of(20, 5));
+
+        assertEquals(680, atm.balance("EUR"));
+        assertEquals(225, atm.balance("GBP"));
+        assertThrows(IllegalArgumentException.class, () -> atm.withdraw("USD", 10));
+        assertEquals(Set.of("EUR", "GBP"), atm.currencies());
+    }
+
+    @Test
+    void policyCanRelaxTheTenMultipleRule() {
+        assertThrows(IllegalArgumentException.class, () -> new SmallestDenomDivisibilityPolicy(Set.of(20, 5)));
+        var relaxed = new SmallestDenomDivisibilityPolicy(Set.of(20, 5), false);
+        assertTrue(relaxed.check(15).isEmpty());
+        assertTrue(relaxed.check(12).isPresent());
+        assertThrows(IllegalArgumentException.class, () -> new SmallestDenomDivisibilityPolicy(Set.of(5, -1), false));
+    }
+}
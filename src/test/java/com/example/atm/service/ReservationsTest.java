@@ -0,0 +1,119 @@
+package com.example.atm.service;
+
+import com.example.atm.adapters.ArrayInventory;
+import com.example.atm.adapters.InMemoryInventory;
+import com.example.atm.adapters.MinNotesStrategy;
+import com.example.atm.adapters.SmallestDenomDivisibilityPolicy;
+import com.example.atm.domain.Money;
+import com.example.atm.errors.Errors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationsTest {
+
+    private CashMachine atm;
+    private Reservations reservations;
+
+    @BeforeEach
+    void setUp() {
+        var inventory = new InMemoryInventory(Map.of(50, 2, 20, 2, 10, 2));
+        atm = new CashMachine(inventory, new MinNotesStrategy(), new SmallestDenomDivisibilityPolicy(Set.of(50, 20, 10)));
+        reservations = new Reservations(atm, 5, 64);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reservations.close();
+    }
+
+    @Test
+    void heldNotesAreUnavailableUntilCancelled() {
+        Reservation hold = reservations.reserve(130, Duration.ofMinutes(1));
+        assertEquals(new Money(Map.of(50, 2, 20, 1, 10, 1)), hold.notes());
+        assertEquals(30, atm.balance());
+        assertThrows(Errors.InsufficientFundsException.class, () -> reservations.reserve(40, Duration.ofMinutes(1)));
+        assertEquals(1, reservations.held());
+
+        assertTrue(hold.cancel());
+        assertFalse(hold.cancel());
+        assertEquals(Reservation.Status.CANCELLED, hold.status());
+        assertEquals(160, atm.balance());
+        assertEquals(0, reservations.held());
+        assertThrows(IllegalStateException.class, hold::commit);
+    }
+
+    @Test
+    void committedNotesStayOut() throws InterruptedException {
+        Reservation hold = reservations.reserve(70, Duration.ofMillis(20));
+        assertEquals(hold.notes(), hold.commit());
+        assertEquals(0, reservations.held());
+        assertEquals(hold.notes(), hold.commit());   // idempotent, counted once
+        assertEquals(0, reservations.held());
+        Thread.sleep(60);
+        assertEquals(Reservation.Status.COMMITTED, hold.status());
+        assertEquals(90, atm.balance());
+        assertFalse(hold.cancel());
+    }
+
+    @Test
+    void failedReturnLeavesTheHoldRetryable() {
+        var inventory = new ArrayInventory(Map.of(50, 2, 20, 2, 10, 2));
+        var machine = new CashMachine(inventory, new MinNotesStrategy(), new SmallestDenomDivisibilityPolicy(Set.of(50, 20, 10)));
+        try (var holds = new Reservations(machine, 5, 64)) {
+            Reservation hold = holds.reserve(130, Duration.ofMinutes(1));
+            int filler = (Integer.MAX_VALUE - 30) / 50;   // returning 130 more would overflow the balance
+            machine.deposit(Money.of(50, filler));
+
+            assertThrows(ArithmeticException.class, hold::cancel);
+            assertEquals(Reservation.Status.HELD, hold.status());
+            assertEquals(1, holds.held());
+
+            machine.withdraw(50 * filler);
+            assertTrue(hold.cancel());
+            assertEquals(160, machine.balance());
+            assertEquals(0, holds.held());
+        }
+    }
+
+    @Test
+    void abandonedHoldsExpire() throws InterruptedException {
+        Reservation hold = reservations.reserve(100, Duration.ofMillis(30));
+        assertEquals(60, atm.balance());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        // EXPIRED is set before the notes go back; held() drops once they are in stock
+        while (reservations.held() != 0 && System.nanoTime() < deadline) Thread.sleep(2);
+        assertEquals(Reservation.Status.EXPIRED, hold.status());
+        assertEquals(160, atm.balance());
+        assertEquals(0, reservations.held());
+        var e = assertThrows(IllegalStateException.class, hold::commit);
+        assertTrue(e.getMessage().contains("EXPIRED"));
+    }
+
+    @Test
+    void wheelFiresAfterSeveralRevolutionsAndNeverEarly() throws InterruptedException {
+        try (var wheel = new HashedTimingWheel(TimeUnit.MILLISECONDS.toNanos(1), 8, "test-wheel")) {
+            var fired = new CountDownLatch(2);
+            var firedAt = new long[2];
+            long start = System.nanoTime();
+            wheel.schedule(() -> { firedAt[0] = System.nanoTime(); fired.countDown(); }, TimeUnit.MILLISECONDS.toNanos(3));
+            wheel.schedule(() -> { firedAt[1] = System.nanoTime(); fired.countDown(); }, TimeUnit.MILLISECONDS.toNanos(30)); // ~4 revolutions
+            var cancelled = new AtomicInteger();
+            assertTrue(wheel.schedule(cancelled::incrementAndGet, TimeUnit.MILLISECONDS.toNanos(10)).cancel());
+
+            assertTrue(fired.await(5, TimeUnit.SECONDS));
+            assertTrue(firedAt[0] - start >= TimeUnit.MILLISECONDS.toNanos(3));
+            assertTrue(firedAt[1] - start >= TimeUnit.MILLISECONDS.toNanos(30));
+            assertEquals(0, cancelled.get());
+        }
+    }
+}